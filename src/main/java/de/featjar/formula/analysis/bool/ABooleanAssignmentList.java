@@ -63,19 +63,19 @@ public abstract class ABooleanAssignmentList<T extends ABooleanAssignment>
     @Override
     public BooleanAssignmentList toAssignmentList() {
         return new BooleanAssignmentList(
-                assignments.stream().map(ABooleanAssignment::toAssignment).collect(Collectors.toList()));
+                getAll().stream().map(ABooleanAssignment::toAssignment).collect(Collectors.toList()));
     }
 
     @Override
     public BooleanClauseList toClauseList(int variableCount) {
         return new BooleanClauseList(
-                assignments.stream().map(ABooleanAssignment::toClause).collect(Collectors.toList()), variableCount);
+                getAll().stream().map(ABooleanAssignment::toClause).collect(Collectors.toList()), variableCount);
     }
 
     @Override
     public BooleanSolutionList toSolutionList() {
         return new BooleanSolutionList(
-                assignments.stream().map(ABooleanAssignment::toSolution).collect(Collectors.toList()));
+                getAll().stream().map(ABooleanAssignment::toSolution).collect(Collectors.toList()));
     }
 
     @Override
@@ -83,12 +83,12 @@ public abstract class ABooleanAssignmentList<T extends ABooleanAssignment>
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ABooleanAssignmentList<?> that = (ABooleanAssignmentList<?>) o;
-        return Objects.equals(assignments, that.assignments);
+        return Objects.equals(getAll(), that.getAll());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(assignments);
+        return Objects.hash(getAll());
     }
 
     /**
@@ -102,7 +102,7 @@ public abstract class ABooleanAssignmentList<T extends ABooleanAssignment>
 
         protected int addLengths(ABooleanAssignmentList<?> o) {
             int count = 0;
-            for (final ABooleanAssignment literalSet : o.assignments) {
+            for (final ABooleanAssignment literalSet : o.getAll()) {
                 count += literalSet.get().length;
             }
             return count;
@@ -120,7 +120,7 @@ public abstract class ABooleanAssignmentList<T extends ABooleanAssignment>
 
         protected int addLengths(ABooleanAssignmentList<?> o) {
             int count = 0;
-            for (final ABooleanAssignment literalSet : o.assignments) {
+            for (final ABooleanAssignment literalSet : o.getAll()) {
                 count += literalSet.get().length;
             }
             return count;
@@ -28,6 +28,7 @@ import de.featjar.formula.analysis.value.ValueClauseList;
 import de.featjar.formula.structure.formula.IFormula;
 import de.featjar.formula.transformer.ComputeCNFFormula;
 import java.util.Collection;
+import java.util.Objects;
 
 /**
  * A list of Boolean clauses.
@@ -89,6 +90,23 @@ public class BooleanClauseList extends ABooleanAssignmentList<BooleanClause> {
         return (IComputation<ValueClauseList>) super.toValue(variableMap);
     }
 
+    /**
+     * {@inheritDoc}
+     * Clause lists are compared by their clauses only, so a {@link CompactBooleanClauseList} may equal
+     * a {@link BooleanClauseList}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BooleanClauseList)) return false;
+        return Objects.equals(getAll(), ((BooleanClauseList) o).getAll());
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
     public String print() {
         return VariableMap.toAnonymousValue(this).get().print();
     }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import de.featjar.base.computation.AComputation;
+import de.featjar.base.computation.Dependency;
+import de.featjar.base.computation.IComputation;
+import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Pair;
+import de.featjar.base.data.Result;
+import de.featjar.base.tree.structure.ITree;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Substitutes equivalent literals in a {@link BooleanClauseList}.
+ * Builds the binary implication graph of all binary clauses, in which each clause {@code (a, b)}
+ * yields the implications {@code -a -> b} and {@code -b -> a}.
+ * All literals in a strongly connected component of this graph are equivalent and are replaced by the literal
+ * with the smallest variable index in their component.
+ * Afterwards, tautological and duplicate clauses are removed.
+ * The reduced clause list keeps the original variable indices and only contains representative variables.
+ * It is returned together with a {@link LiteralMapping} for expanding its solutions.
+ * If a literal is equivalent to its complement, the reduced clause list contains only the empty clause.
+ */
+public class BooleanClauseListEquivalenceComputation extends AComputation<Pair<BooleanClauseList, LiteralMapping>> {
+    public static final Dependency<BooleanClauseList> BOOLEAN_CLAUSE_LIST =
+            Dependency.newDependency(BooleanClauseList.class);
+
+    /**
+     * Creates a new equivalent literal substitution computation.
+     *
+     * @param booleanClauseList the input clause list computation
+     */
+    public BooleanClauseListEquivalenceComputation(IComputation<BooleanClauseList> booleanClauseList) {
+        super(booleanClauseList);
+    }
+
+    protected BooleanClauseListEquivalenceComputation(BooleanClauseListEquivalenceComputation other) {
+        super(other);
+    }
+
+    @Override
+    public Result<Pair<BooleanClauseList, LiteralMapping>> compute(List<Object> dependencyList, Progress progress) {
+        BooleanClauseList booleanClauseList = BOOLEAN_CLAUSE_LIST.get(dependencyList);
+        List<BooleanClause> booleanClauses = booleanClauseList.getAll();
+        int variableCount = booleanClauseList.getVariableCount();
+        for (BooleanClause booleanClause : booleanClauses) {
+            for (int literal : booleanClause.get()) {
+                variableCount = Math.max(variableCount, Math.abs(literal));
+            }
+        }
+
+        int[] components = computeStronglyConnectedComponents(booleanClauses, variableCount);
+        int[] componentRepresentatives = new int[2 * variableCount];
+        for (int variable = variableCount; variable > 0; variable--) {
+            componentRepresentatives[components[getNode(variable)]] = variable;
+            componentRepresentatives[components[getNode(-variable)]] = -variable;
+        }
+        int[] representatives = new int[variableCount];
+        for (int variable = 1; variable <= variableCount; variable++) {
+            if (components[getNode(variable)] == components[getNode(-variable)]) {
+                return Result.of(new Pair<>(
+                        new BooleanClauseList(List.of(new BooleanClause()), booleanClauseList.getVariableCount()),
+                        LiteralMapping.identity(variableCount)));
+            }
+            representatives[variable - 1] = componentRepresentatives[components[getNode(variable)]];
+        }
+        LiteralMapping literalMapping = new LiteralMapping(representatives);
+
+        List<BooleanClause> reducedClauses = new ArrayList<>(booleanClauses.size());
+        HashSet<BooleanClause> clauseSet = new HashSet<>();
+        for (BooleanClause booleanClause : booleanClauses) {
+            int[] clause = substitute(booleanClause.get(), literalMapping);
+            if (clause != null) {
+                BooleanClause reducedClause = new BooleanClause(clause, false);
+                if (clauseSet.add(reducedClause)) {
+                    reducedClauses.add(reducedClause);
+                }
+            }
+        }
+        return Result.of(new Pair<>(
+                new BooleanClauseList(reducedClauses, booleanClauseList.getVariableCount()), literalMapping));
+    }
+
+    /**
+     * {@return the given clause with all literals replaced by their representatives, sorted and without duplicates,
+     * or null if it is a tautology}
+     */
+    private static int[] substitute(int[] literals, LiteralMapping literalMapping) {
+        int[] clause = new int[literals.length];
+        for (int i = 0; i < literals.length; i++) {
+            clause[i] = literalMapping.map(literals[i]);
+        }
+        Arrays.sort(clause);
+        int length = 0;
+        for (int i = 0; i < clause.length; i++) {
+            if (length == 0 || clause[length - 1] != clause[i]) {
+                clause[length++] = clause[i];
+            }
+        }
+        clause = Arrays.copyOf(clause, length);
+        for (int literal : clause) {
+            if (literal > 0) {
+                break;
+            } else if (Arrays.binarySearch(clause, -literal) >= 0) {
+                return null;
+            }
+        }
+        return clause;
+    }
+
+    /**
+     * Computes the strongly connected components of the binary implication graph with Tarjan's algorithm.
+     * The recursion is replaced by an explicit call stack, so that long implication chains do not overflow the
+     * Java stack.
+     *
+     * @return the component index of each node, where components are numbered in reverse topological order
+     */
+    private static int[] computeStronglyConnectedComponents(List<BooleanClause> booleanClauses, int variableCount) {
+        int nodeCount = 2 * variableCount;
+        int[] edgeStarts = new int[nodeCount + 1];
+        for (BooleanClause booleanClause : booleanClauses) {
+            int[] clause = booleanClause.get();
+            if (clause.length == 2) {
+                edgeStarts[getNode(-clause[0])]++;
+                edgeStarts[getNode(-clause[1])]++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            edgeStarts[node + 1] += edgeStarts[node];
+        }
+        int[] edges = new int[edgeStarts[nodeCount]];
+        for (BooleanClause booleanClause : booleanClauses) {
+            int[] clause = booleanClause.get();
+            if (clause.length == 2) {
+                edges[--edgeStarts[getNode(-clause[0])]] = getNode(clause[1]);
+                edges[--edgeStarts[getNode(-clause[1])]] = getNode(clause[0]);
+            }
+        }
+
+        int[] indices = new int[nodeCount];
+        Arrays.fill(indices, -1);
+        int[] lowLinks = new int[nodeCount];
+        int[] components = new int[nodeCount];
+        boolean[] isOnStack = new boolean[nodeCount];
+        int[] stack = new int[nodeCount];
+        int stackSize = 0;
+        int[] callNodes = new int[nodeCount];
+        int[] callEdges = new int[nodeCount];
+        int index = 0;
+        int componentCount = 0;
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (indices[root] != -1) {
+                continue;
+            }
+            indices[root] = lowLinks[root] = index++;
+            stack[stackSize++] = root;
+            isOnStack[root] = true;
+            callNodes[0] = root;
+            callEdges[0] = edgeStarts[root];
+            int depth = 1;
+            while (depth > 0) {
+                int node = callNodes[depth - 1];
+                int edge = callEdges[depth - 1];
+                if (edge < edgeStarts[node + 1]) {
+                    callEdges[depth - 1]++;
+                    int successor = edges[edge];
+                    if (indices[successor] == -1) {
+                        indices[successor] = lowLinks[successor] = index++;
+                        stack[stackSize++] = successor;
+                        isOnStack[successor] = true;
+                        callNodes[depth] = successor;
+                        callEdges[depth] = edgeStarts[successor];
+                        depth++;
+                    } else if (isOnStack[successor]) {
+                        lowLinks[node] = Math.min(lowLinks[node], indices[successor]);
+                    }
+                } else {
+                    depth--;
+                    if (depth > 0) {
+                        int parent = callNodes[depth - 1];
+                        lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[node]);
+                    }
+                    if (lowLinks[node] == indices[node]) {
+                        int member;
+                        do {
+                            member = stack[--stackSize];
+                            isOnStack[member] = false;
+                            components[member] = componentCount;
+                        } while (member != node);
+                        componentCount++;
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    private static int getNode(int literal) {
+        return literal > 0 ? 2 * (literal - 1) : 2 * (-literal - 1) + 1;
+    }
+
+    @Override
+    public ITree<IComputation<?>> cloneNode() {
+        return new BooleanClauseListEquivalenceComputation(this);
+    }
+}
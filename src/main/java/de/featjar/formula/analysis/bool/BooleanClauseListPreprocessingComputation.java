@@ -0,0 +1,498 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import de.featjar.base.computation.AComputation;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.Dependency;
+import de.featjar.base.computation.IComputation;
+import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Pair;
+import de.featjar.base.data.Result;
+import de.featjar.base.tree.structure.ITree;
+import de.featjar.formula.analysis.VariableMap;
+import de.featjar.formula.transformer.TseitinTransformer;
+import de.featjar.formula.visitor.CardinalityEncoder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reduces a {@link BooleanClauseList} by satisfiability-preserving preprocessing.
+ * Applies top-level unit propagation, pure literal elimination, blocked clause elimination,
+ * and bounded variable elimination until none of them changes the clause list anymore.
+ * Each technique can be disabled individually.
+ * Variable elimination prefers auxiliary variables introduced by the {@link TseitinTransformer} or the
+ * {@link CardinalityEncoder}, and can be restricted to these variables.
+ * The reduced clause list keeps the variable indices of the given {@link VariableMap}.
+ * It is satisfiable if and only if the original clause list is satisfiable,
+ * and each of its solutions can be extended to a solution of the original clause list
+ * with the returned {@link ReconstructionStack}.
+ * If the original clause list is found to be unsatisfiable, the reduced clause list contains only the empty clause.
+ */
+public class BooleanClauseListPreprocessingComputation
+        extends AComputation<Pair<BooleanClauseList, ReconstructionStack>> {
+    @SuppressWarnings("rawtypes")
+    public static final Dependency<Pair> CNF = Dependency.newDependency(Pair.class);
+
+    public static final Dependency<Boolean> IS_PROPAGATING_UNITS = Dependency.newDependency(Boolean.class);
+    public static final Dependency<Boolean> IS_ELIMINATING_PURE_LITERALS = Dependency.newDependency(Boolean.class);
+    public static final Dependency<Boolean> IS_ELIMINATING_BLOCKED_CLAUSES = Dependency.newDependency(Boolean.class);
+    public static final Dependency<Boolean> IS_ELIMINATING_VARIABLES = Dependency.newDependency(Boolean.class);
+    /**
+     * Determines whether pure literal elimination, blocked clause elimination, and variable elimination
+     * are restricted to auxiliary variables.
+     * If set, the solutions of both clause lists agree on all other variables that are not fixed by unit propagation.
+     */
+    public static final Dependency<Boolean> IS_AUXILIARY_VARIABLES_ONLY = Dependency.newDependency(Boolean.class);
+
+    /**
+     * The maximum number of occurrences of a literal for which resolvents are computed
+     * during blocked clause elimination and variable elimination.
+     */
+    private static final int OCCURRENCE_LIMIT = 16;
+
+    /**
+     * Creates a new preprocessing computation.
+     *
+     * @param cnf the input clause list and variable map computation
+     */
+    public BooleanClauseListPreprocessingComputation(IComputation<Pair<BooleanClauseList, VariableMap>> cnf) {
+        super(
+                cnf, //
+                Computations.of(Boolean.TRUE), //
+                Computations.of(Boolean.TRUE), //
+                Computations.of(Boolean.TRUE), //
+                Computations.of(Boolean.TRUE), //
+                Computations.of(Boolean.FALSE));
+    }
+
+    protected BooleanClauseListPreprocessingComputation(BooleanClauseListPreprocessingComputation other) {
+        super(other);
+    }
+
+    /**
+     * {@return whether the given variable name denotes an auxiliary variable}
+     *
+     * @param variableName the variable name
+     */
+    public static boolean isAuxiliaryVariable(String variableName) {
+        return variableName.startsWith(TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX)
+                || variableName.startsWith(CardinalityEncoder.AUXILIARY_VARIABLE_NAME_PREFIX);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Result<Pair<BooleanClauseList, ReconstructionStack>> compute(
+            List<Object> dependencyList, Progress progress) {
+        Pair<BooleanClauseList, VariableMap> cnf = (Pair<BooleanClauseList, VariableMap>) CNF.get(dependencyList);
+        BooleanClauseList booleanClauseList = cnf.getKey();
+        VariableMap variableMap = cnf.getValue();
+        List<BooleanClause> booleanClauses = booleanClauseList.getAll();
+
+        int variableCount = booleanClauseList.getVariableCount();
+        for (BooleanClause booleanClause : booleanClauses) {
+            for (int literal : booleanClause.get()) {
+                variableCount = Math.max(variableCount, Math.abs(literal));
+            }
+        }
+        boolean[] isAuxiliary = new boolean[variableCount + 1];
+        for (int variable = 1; variable <= variableCount; variable++) {
+            isAuxiliary[variable] =
+                    variableMap.get(variable).map(name -> isAuxiliaryVariable(name)).orElse(false);
+        }
+
+        Preprocessor preprocessor = new Preprocessor(
+                variableCount,
+                isAuxiliary,
+                IS_AUXILIARY_VARIABLES_ONLY.get(dependencyList),
+                IS_PROPAGATING_UNITS.get(dependencyList));
+        for (BooleanClause booleanClause : booleanClauses) {
+            preprocessor.addClause(booleanClause.get());
+        }
+        preprocessor.preprocess(
+                IS_ELIMINATING_PURE_LITERALS.get(dependencyList),
+                IS_ELIMINATING_BLOCKED_CLAUSES.get(dependencyList),
+                IS_ELIMINATING_VARIABLES.get(dependencyList));
+        return Result.of(new Pair<>(
+                preprocessor.getResult(booleanClauseList.getVariableCount()), preprocessor.reconstructionStack));
+    }
+
+    @Override
+    public ITree<IComputation<?>> cloneNode() {
+        return new BooleanClauseListPreprocessingComputation(this);
+    }
+
+    private static class Preprocessor {
+        private final ReconstructionStack reconstructionStack;
+        private final boolean[] isAuxiliary;
+        private final boolean[] isEliminable;
+        private final boolean isPropagatingUnits;
+
+        private int[][] clauses = new int[16][];
+        private boolean[] isDeleted = new boolean[16];
+        private int clauseCount;
+
+        private final int[][] occurrences;
+        private final int[] occurrenceCounts;
+        private final boolean[] isRemoved;
+        private final ArrayDeque<Integer> units = new ArrayDeque<>();
+        private final int[] marks;
+        private int mark;
+        private boolean isUnsatisfiable;
+
+        private Preprocessor(
+                int variableCount,
+                boolean[] isAuxiliary,
+                boolean isAuxiliaryVariablesOnly,
+                boolean isPropagatingUnits) {
+            this.isAuxiliary = isAuxiliary;
+            this.isPropagatingUnits = isPropagatingUnits;
+            reconstructionStack = new ReconstructionStack(variableCount);
+            isEliminable = new boolean[variableCount + 1];
+            for (int variable = 1; variable <= variableCount; variable++) {
+                isEliminable[variable] = !isAuxiliaryVariablesOnly || isAuxiliary[variable];
+            }
+            isRemoved = new boolean[variableCount + 1];
+            occurrences = new int[2 * variableCount + 2][];
+            occurrenceCounts = new int[occurrences.length];
+            marks = new int[occurrences.length];
+            Arrays.fill(occurrences, new int[0]);
+        }
+
+        private void addClause(int[] literals) {
+            int[] clause = literals.clone();
+            Arrays.sort(clause);
+            int length = 0;
+            for (int i = 0; i < clause.length; i++) {
+                if (length == 0 || clause[length - 1] != clause[i]) {
+                    clause[length++] = clause[i];
+                }
+            }
+            clause = Arrays.copyOf(clause, length);
+            for (int literal : clause) {
+                if (literal > 0) {
+                    break;
+                } else if (Arrays.binarySearch(clause, -literal) >= 0) {
+                    return;
+                }
+            }
+            if (clause.length == 0) {
+                isUnsatisfiable = true;
+                return;
+            }
+            if (clauseCount == clauses.length) {
+                clauses = Arrays.copyOf(clauses, 2 * clauses.length);
+                isDeleted = Arrays.copyOf(isDeleted, clauses.length);
+            }
+            int clauseIndex = clauseCount++;
+            clauses[clauseIndex] = clause;
+            for (int literal : clause) {
+                addOccurrence(literal, clauseIndex);
+            }
+            if (clause.length == 1 && isPropagatingUnits) {
+                units.add(clause[0]);
+            }
+        }
+
+        private void deleteClause(int clauseIndex) {
+            isDeleted[clauseIndex] = true;
+            for (int literal : clauses[clauseIndex]) {
+                removeOccurrence(literal, clauseIndex);
+            }
+        }
+
+        private void addOccurrence(int literal, int clauseIndex) {
+            int literalIndex = getLiteralIndex(literal);
+            int[] clauseIndices = occurrences[literalIndex];
+            if (occurrenceCounts[literalIndex] == clauseIndices.length) {
+                clauseIndices = Arrays.copyOf(clauseIndices, Math.max(4, 2 * clauseIndices.length));
+                occurrences[literalIndex] = clauseIndices;
+            }
+            clauseIndices[occurrenceCounts[literalIndex]++] = clauseIndex;
+        }
+
+        private void removeOccurrence(int literal, int clauseIndex) {
+            int literalIndex = getLiteralIndex(literal);
+            int[] clauseIndices = occurrences[literalIndex];
+            int count = occurrenceCounts[literalIndex];
+            for (int i = 0; i < count; i++) {
+                if (clauseIndices[i] == clauseIndex) {
+                    clauseIndices[i] = clauseIndices[count - 1];
+                    occurrenceCounts[literalIndex]--;
+                    return;
+                }
+            }
+        }
+
+        private int[] getOccurrences(int literal) {
+            int literalIndex = getLiteralIndex(literal);
+            return Arrays.copyOf(occurrences[literalIndex], occurrenceCounts[literalIndex]);
+        }
+
+        private int getOccurrenceCount(int literal) {
+            return occurrenceCounts[getLiteralIndex(literal)];
+        }
+
+        private void preprocess(
+                boolean isEliminatingPureLiterals,
+                boolean isEliminatingBlockedClauses,
+                boolean isEliminatingVariables) {
+            propagate();
+            boolean hasChanged = true;
+            while (hasChanged && !isUnsatisfiable) {
+                hasChanged = false;
+                if (isEliminatingPureLiterals) {
+                    hasChanged |= eliminatePureLiterals();
+                }
+                if (isEliminatingBlockedClauses) {
+                    hasChanged |= eliminateBlockedClauses();
+                }
+                if (isEliminatingVariables) {
+                    hasChanged |= eliminateVariables();
+                }
+                propagate();
+            }
+        }
+
+        /**
+         * Assigns all unit literals, removes all satisfied clauses, and removes all falsified literals from clauses,
+         * until no unit clauses are left.
+         */
+        private void propagate() {
+            while (!units.isEmpty() && !isUnsatisfiable) {
+                int unit = units.poll();
+                if (isRemoved[Math.abs(unit)] || getOccurrenceCount(unit) == 0) {
+                    continue;
+                }
+                isRemoved[Math.abs(unit)] = true;
+                reconstructionStack.push(unit, new int[] {unit});
+                for (int clauseIndex : getOccurrences(unit)) {
+                    deleteClause(clauseIndex);
+                }
+                for (int clauseIndex : getOccurrences(-unit)) {
+                    int[] clause = clauses[clauseIndex];
+                    if (clause.length == 1) {
+                        isUnsatisfiable = true;
+                        return;
+                    }
+                    int[] strengthenedClause = new int[clause.length - 1];
+                    int length = 0;
+                    for (int literal : clause) {
+                        if (literal != -unit) {
+                            strengthenedClause[length++] = literal;
+                        }
+                    }
+                    clauses[clauseIndex] = strengthenedClause;
+                    removeOccurrence(-unit, clauseIndex);
+                    if (strengthenedClause.length == 1) {
+                        units.add(strengthenedClause[0]);
+                    }
+                }
+            }
+        }
+
+        private boolean eliminatePureLiterals() {
+            boolean hasChanged = false;
+            for (int variable = 1; variable < isEliminable.length; variable++) {
+                if (isEliminable[variable] && !isRemoved[variable]) {
+                    int positiveCount = getOccurrenceCount(variable);
+                    int negativeCount = getOccurrenceCount(-variable);
+                    if (positiveCount > 0 && negativeCount == 0) {
+                        eliminate(variable);
+                        hasChanged = true;
+                    } else if (negativeCount > 0 && positiveCount == 0) {
+                        eliminate(-variable);
+                        hasChanged = true;
+                    }
+                }
+            }
+            return hasChanged;
+        }
+
+        /**
+         * Removes all clauses containing the given literal, using this literal as witness for reconstruction.
+         */
+        private void eliminate(int literal) {
+            for (int clauseIndex : getOccurrences(literal)) {
+                reconstructionStack.push(literal, clauses[clauseIndex]);
+                deleteClause(clauseIndex);
+            }
+        }
+
+        /**
+         * Removes clauses that contain a literal such that all resolvents on this literal are tautologies.
+         */
+        private boolean eliminateBlockedClauses() {
+            boolean hasChanged = false;
+            for (int clauseIndex = 0; clauseIndex < clauseCount; clauseIndex++) {
+                if (!isDeleted[clauseIndex]) {
+                    for (int literal : clauses[clauseIndex]) {
+                        if (isEliminable[Math.abs(literal)]
+                                && getOccurrenceCount(-literal) <= OCCURRENCE_LIMIT
+                                && isBlocked(clauses[clauseIndex], literal)) {
+                            reconstructionStack.push(literal, clauses[clauseIndex]);
+                            deleteClause(clauseIndex);
+                            hasChanged = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            return hasChanged;
+        }
+
+        private boolean isBlocked(int[] clause, int blockingLiteral) {
+            mark++;
+            for (int literal : clause) {
+                marks[getLiteralIndex(literal)] = mark;
+            }
+            int literalIndex = getLiteralIndex(-blockingLiteral);
+            for (int i = 0; i < occurrenceCounts[literalIndex]; i++) {
+                boolean isTautology = false;
+                for (int literal : clauses[occurrences[literalIndex][i]]) {
+                    if (literal != -blockingLiteral && marks[getLiteralIndex(-literal)] == mark) {
+                        isTautology = true;
+                        break;
+                    }
+                }
+                if (!isTautology) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Replaces the clauses containing a variable with all their non-tautological resolvents on this variable,
+         * if this does not increase the number of clauses.
+         * Auxiliary variables are tried first, then all variables in ascending order of their number of occurrences.
+         */
+        private boolean eliminateVariables() {
+            List<Integer> candidates = new ArrayList<>();
+            for (int variable = 1; variable < isEliminable.length; variable++) {
+                if (isEliminable[variable]
+                        && !isRemoved[variable]
+                        && getOccurrenceCount(variable) <= OCCURRENCE_LIMIT
+                        && getOccurrenceCount(-variable) <= OCCURRENCE_LIMIT
+                        && getOccurrenceCount(variable) + getOccurrenceCount(-variable) > 0) {
+                    candidates.add(variable);
+                }
+            }
+            candidates.sort(Comparator.<Integer, Boolean>comparing(variable -> !isAuxiliary[variable])
+                    .thenComparingInt(variable -> getOccurrenceCount(variable) + getOccurrenceCount(-variable)));
+            boolean hasChanged = false;
+            for (int variable : candidates) {
+                if (isUnsatisfiable) {
+                    break;
+                }
+                if (!isRemoved[variable] && eliminateVariable(variable)) {
+                    hasChanged = true;
+                    propagate();
+                }
+            }
+            return hasChanged;
+        }
+
+        private boolean eliminateVariable(int variable) {
+            int[] positiveClauses = getOccurrences(variable);
+            int[] negativeClauses = getOccurrences(-variable);
+            if (positiveClauses.length > OCCURRENCE_LIMIT || negativeClauses.length > OCCURRENCE_LIMIT) {
+                return false;
+            }
+            int maximumResolventCount = positiveClauses.length + negativeClauses.length;
+            List<int[]> resolvents = new ArrayList<>();
+            for (int positiveClause : positiveClauses) {
+                for (int negativeClause : negativeClauses) {
+                    int[] resolvent = resolve(clauses[positiveClause], clauses[negativeClause], variable);
+                    if (resolvent != null) {
+                        resolvents.add(resolvent);
+                        if (resolvents.size() > maximumResolventCount) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            isRemoved[variable] = true;
+            eliminate(variable);
+            eliminate(-variable);
+            for (int[] resolvent : resolvents) {
+                addClause(resolvent);
+            }
+            return true;
+        }
+
+        /**
+         * {@return the resolvent of two sorted clauses on the given variable, or null if it is a tautology}
+         */
+        private static int[] resolve(int[] positiveClause, int[] negativeClause, int variable) {
+            int[] resolvent = new int[positiveClause.length + negativeClause.length - 2];
+            int length = 0, i = 0, j = 0;
+            while (i < positiveClause.length || j < negativeClause.length) {
+                int literal;
+                if (j == negativeClause.length
+                        || (i < positiveClause.length && positiveClause[i] <= negativeClause[j])) {
+                    literal = positiveClause[i++];
+                    if (j < negativeClause.length && literal == negativeClause[j]) {
+                        j++;
+                    }
+                } else {
+                    literal = negativeClause[j++];
+                }
+                if (Math.abs(literal) == variable) {
+                    continue;
+                }
+                if (length > 0 && resolvent[length - 1] == literal) {
+                    continue;
+                }
+                resolvent[length++] = literal;
+            }
+            resolvent = Arrays.copyOf(resolvent, length);
+            for (int literal : resolvent) {
+                if (literal > 0) {
+                    break;
+                } else if (Arrays.binarySearch(resolvent, -literal) >= 0) {
+                    return null;
+                }
+            }
+            return resolvent;
+        }
+
+        private BooleanClauseList getResult(int variableCount) {
+            if (isUnsatisfiable) {
+                return new BooleanClauseList(List.of(new BooleanClause()), variableCount);
+            }
+            List<BooleanClause> remainingClauses = new ArrayList<>();
+            for (int i = 0; i < clauseCount; i++) {
+                if (!isDeleted[i]) {
+                    remainingClauses.add(new BooleanClause(clauses[i], false));
+                }
+            }
+            return new BooleanClauseList(remainingClauses, variableCount);
+        }
+
+        private static int getLiteralIndex(int literal) {
+            return literal > 0 ? 2 * literal : -2 * literal + 1;
+        }
+    }
+}
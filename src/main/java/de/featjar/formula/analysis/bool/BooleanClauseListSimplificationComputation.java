@@ -0,0 +1,393 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import de.featjar.base.computation.AComputation;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.Dependency;
+import de.featjar.base.computation.IComputation;
+import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Result;
+import de.featjar.base.tree.structure.ITree;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Removes redundant clauses from a {@link BooleanClauseList}.
+ * Removes duplicate literals, tautological clauses, and clauses that are subsumed by another clause
+ * (i.e., are a superset of another clause).
+ * Optionally, clauses are strengthened by self-subsuming resolution;
+ * that is, if a clause {@code C} contains all literals of another clause {@code D} except for one literal {@code l}
+ * that occurs negated in {@code D}, {@code l} is removed from {@code C}.
+ * The result is equivalent to the input and contains the remaining clauses in their original order.
+ * Candidate clauses are found using occurrence lists of literals and filtered using 64-bit clause signatures,
+ * so that only few clauses have to be compared literal by literal.
+ * Removed clauses are deleted from occurrence lists lazily, which are compacted once they mostly consist of
+ * removed clauses.
+ */
+public class BooleanClauseListSimplificationComputation extends AComputation<BooleanClauseList> {
+    public static final Dependency<BooleanClauseList> BOOLEAN_CLAUSE_LIST =
+            Dependency.newDependency(BooleanClauseList.class);
+    /**
+     * Determines whether clauses are strengthened by self-subsuming resolution.
+     */
+    public static final Dependency<Boolean> IS_STRENGTHENING = Dependency.newDependency(Boolean.class);
+
+    /**
+     * Creates a new clause list simplification computation.
+     *
+     * @param booleanClauseList the input clause list computation
+     */
+    public BooleanClauseListSimplificationComputation(IComputation<BooleanClauseList> booleanClauseList) {
+        super(
+                booleanClauseList, //
+                Computations.of(Boolean.TRUE));
+    }
+
+    protected BooleanClauseListSimplificationComputation(BooleanClauseListSimplificationComputation other) {
+        super(other);
+    }
+
+    @Override
+    public Result<BooleanClauseList> compute(List<Object> dependencyList, Progress progress) {
+        BooleanClauseList booleanClauseList = BOOLEAN_CLAUSE_LIST.get(dependencyList);
+        Simplifier simplifier = new Simplifier(booleanClauseList.getAll(), IS_STRENGTHENING.get(dependencyList));
+        simplifier.simplify();
+        BooleanClauseList result = simplifier.getResult(booleanClauseList.getVariableCount());
+        return Result.of(
+                booleanClauseList instanceof CompactBooleanClauseList ? new CompactBooleanClauseList(result) : result);
+    }
+
+    @Override
+    public ITree<IComputation<?>> cloneNode() {
+        return new BooleanClauseListSimplificationComputation(this);
+    }
+
+    private static class Simplifier {
+        private final boolean isStrengthening;
+        private final int[][] clauses;
+        private final long[] signatures;
+        private final boolean[] isDeleted;
+        private final boolean[] isQueued;
+        private final boolean[] isStrengthened;
+        private final int[] queue;
+        private int queueStart, queueSize;
+
+        private final int[][] occurrences;
+        private final int[] occurrenceCounts;
+        private final int[] occurrenceListSizes;
+        private final int[] marks;
+        private int mark = 0;
+
+        private Simplifier(List<BooleanClause> booleanClauses, boolean isStrengthening) {
+            this.isStrengthening = isStrengthening;
+            int clauseCount = booleanClauses.size();
+            clauses = new int[clauseCount][];
+            signatures = new long[clauseCount];
+            isDeleted = new boolean[clauseCount];
+            isQueued = new boolean[clauseCount];
+            isStrengthened = new boolean[clauseCount];
+            queue = new int[Math.max(clauseCount, 1)];
+            int maximumVariable = 0;
+            for (int i = 0; i < clauseCount; i++) {
+                int[] clause = normalize(booleanClauses.get(i).get());
+                clauses[i] = clause;
+                if (clause == null) {
+                    isDeleted[i] = true;
+                } else {
+                    signatures[i] = getSignature(clause);
+                    for (int literal : clause) {
+                        maximumVariable = Math.max(maximumVariable, Math.abs(literal));
+                    }
+                }
+            }
+            occurrences = new int[2 * maximumVariable + 2][];
+            occurrenceCounts = new int[occurrences.length];
+            occurrenceListSizes = new int[occurrences.length];
+            marks = new int[occurrences.length];
+            for (int i = 0; i < clauseCount; i++) {
+                if (!isDeleted[i]) {
+                    for (int literal : clauses[i]) {
+                        occurrenceCounts[getLiteralIndex(literal)]++;
+                    }
+                }
+            }
+            for (int i = 0; i < occurrences.length; i++) {
+                occurrences[i] = new int[occurrenceCounts[i]];
+                occurrenceCounts[i] = 0;
+            }
+            for (int i = 0; i < clauseCount; i++) {
+                if (!isDeleted[i]) {
+                    for (int literal : clauses[i]) {
+                        int literalIndex = getLiteralIndex(literal);
+                        occurrences[literalIndex][occurrenceCounts[literalIndex]++] = i;
+                    }
+                }
+            }
+            System.arraycopy(occurrenceCounts, 0, occurrenceListSizes, 0, occurrences.length);
+        }
+
+        /**
+         * {@return a sorted copy of the given clause without duplicate literals, or null if it is a tautology}
+         */
+        private static int[] normalize(int[] clause) {
+            int[] sortedClause = clause.clone();
+            Arrays.sort(sortedClause);
+            int length = 0;
+            for (int i = 0; i < sortedClause.length; i++) {
+                if (length == 0 || sortedClause[length - 1] != sortedClause[i]) {
+                    sortedClause[length++] = sortedClause[i];
+                }
+            }
+            sortedClause = Arrays.copyOf(sortedClause, length);
+            for (int literal : sortedClause) {
+                if (literal > 0) {
+                    break;
+                } else if (Arrays.binarySearch(sortedClause, -literal) >= 0) {
+                    return null;
+                }
+            }
+            return sortedClause;
+        }
+
+        private void simplify() {
+            Integer[] order = new Integer[clauses.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> clauses[i] == null ? 0 : clauses[i].length));
+            for (int clauseIndex : order) {
+                enqueue(clauseIndex);
+            }
+            while (queueSize > 0) {
+                int clauseIndex = queue[queueStart];
+                queueStart = (queueStart + 1) % queue.length;
+                queueSize--;
+                isQueued[clauseIndex] = false;
+                if (isStrengthened[clauseIndex]) {
+                    isStrengthened[clauseIndex] = false;
+                    if (!isDeleted[clauseIndex] && isSubsumed(clauseIndex)) {
+                        delete(clauseIndex);
+                    }
+                }
+                if (!isDeleted[clauseIndex]) {
+                    eliminateWith(clauseIndex);
+                }
+            }
+        }
+
+        private void enqueue(int clauseIndex) {
+            if (!isDeleted[clauseIndex] && !isQueued[clauseIndex]) {
+                isQueued[clauseIndex] = true;
+                queue[(queueStart + queueSize) % queue.length] = clauseIndex;
+                queueSize++;
+            }
+        }
+
+        /**
+         * Removes all clauses that are subsumed by the given clause and strengthens all clauses that can be resolved
+         * with the given clause to one of their subsets.
+         * Candidates are taken from the occurrence lists of the variable of the given clause that occurs least often.
+         */
+        private void eliminateWith(int clauseIndex) {
+            int[] clause = clauses[clauseIndex];
+            int bestLiteral = 0;
+            int bestCount = Integer.MAX_VALUE;
+            for (int literal : clause) {
+                int count = occurrenceCounts[getLiteralIndex(literal)]
+                        + (isStrengthening ? occurrenceCounts[getLiteralIndex(-literal)] : 0);
+                if (count < bestCount) {
+                    bestCount = count;
+                    bestLiteral = literal;
+                }
+            }
+            if (bestLiteral == 0) {
+                return;
+            }
+            mark++;
+            for (int literal : clause) {
+                marks[getLiteralIndex(literal)] = mark;
+            }
+            eliminateWith(clauseIndex, bestLiteral);
+            if (isStrengthening) {
+                eliminateWith(clauseIndex, -bestLiteral);
+            }
+        }
+
+        private void eliminateWith(int clauseIndex, int candidateLiteral) {
+            int[] clause = clauses[clauseIndex];
+            long signature = signatures[clauseIndex];
+            int literalIndex = compactOccurrences(candidateLiteral);
+            int[] candidates = occurrences[literalIndex];
+            int candidateCount = occurrenceListSizes[literalIndex];
+            for (int i = 0; i < candidateCount; i++) {
+                int candidateIndex = candidates[i];
+                int[] candidate = clauses[candidateIndex];
+                if (candidateIndex == clauseIndex
+                        || isDeleted[candidateIndex]
+                        || candidate.length < clause.length
+                        || (signature & ~signatures[candidateIndex]) != 0) {
+                    continue;
+                }
+                int sharedLiteralCount = 0;
+                int complementaryLiteral = 0;
+                int complementaryLiteralCount = 0;
+                for (int literal : candidate) {
+                    if (marks[getLiteralIndex(literal)] == mark) {
+                        sharedLiteralCount++;
+                    } else if (marks[getLiteralIndex(-literal)] == mark) {
+                        complementaryLiteral = literal;
+                        complementaryLiteralCount++;
+                    }
+                }
+                if (sharedLiteralCount == clause.length) {
+                    delete(candidateIndex);
+                } else if (isStrengthening
+                        && complementaryLiteralCount == 1
+                        && sharedLiteralCount == clause.length - 1) {
+                    strengthen(candidateIndex, complementaryLiteral);
+                }
+            }
+        }
+
+        private void delete(int clauseIndex) {
+            isDeleted[clauseIndex] = true;
+            for (int literal : clauses[clauseIndex]) {
+                removeOccurrence(literal);
+            }
+        }
+
+        private void strengthen(int clauseIndex, int literal) {
+            int[] clause = clauses[clauseIndex];
+            int[] strengthenedClause = new int[clause.length - 1];
+            int length = 0;
+            for (int otherLiteral : clause) {
+                if (otherLiteral != literal) {
+                    strengthenedClause[length++] = otherLiteral;
+                }
+            }
+            clauses[clauseIndex] = strengthenedClause;
+            signatures[clauseIndex] = getSignature(strengthenedClause);
+            removeOccurrence(literal);
+            isStrengthened[clauseIndex] = true;
+            enqueue(clauseIndex);
+        }
+
+        /**
+         * {@return whether the given clause is subsumed by any other clause}
+         * Used for strengthened clauses, as they may now be subsumed by clauses that have already been processed.
+         */
+        private boolean isSubsumed(int clauseIndex) {
+            int[] clause = clauses[clauseIndex];
+            long signature = signatures[clauseIndex];
+            mark++;
+            for (int literal : clause) {
+                marks[getLiteralIndex(literal)] = mark;
+            }
+            for (int literal : clause) {
+                int literalIndex = compactOccurrences(literal);
+                int[] candidates = occurrences[literalIndex];
+                int candidateCount = occurrenceListSizes[literalIndex];
+                for (int i = 0; i < candidateCount; i++) {
+                    int candidateIndex = candidates[i];
+                    int[] candidate = clauses[candidateIndex];
+                    if (candidateIndex != clauseIndex
+                            && !isDeleted[candidateIndex]
+                            && candidate.length <= clause.length
+                            && (signatures[candidateIndex] & ~signature) == 0
+                            && containsAllMarked(candidate)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean containsAllMarked(int[] clause) {
+            for (int literal : clause) {
+                if (marks[getLiteralIndex(literal)] != mark) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Removes a clause from the occurrence list of the given literal.
+         * The clause is only removed from the count of occurrences, its entry in the occurrence list is skipped when
+         * scanning and removed when compacting the list.
+         */
+        private void removeOccurrence(int literal) {
+            occurrenceCounts[getLiteralIndex(literal)]--;
+        }
+
+        /**
+         * Removes all entries of clauses that no longer contain the given literal from its occurrence list, if they
+         * make up more than half of the list.
+         * Thus, the cost of compacting a list is amortized over the entries removed from it, instead of searching the
+         * list each time a clause is removed.
+         * Must not be called while scanning the occurrence list.
+         *
+         * @param literal the literal
+         * @return the index of the literal
+         */
+        private int compactOccurrences(int literal) {
+            int literalIndex = getLiteralIndex(literal);
+            int size = occurrenceListSizes[literalIndex];
+            if (size > 2 * occurrenceCounts[literalIndex]) {
+                int[] clauseIndices = occurrences[literalIndex];
+                int newSize = 0;
+                for (int i = 0; i < size; i++) {
+                    int clauseIndex = clauseIndices[i];
+                    if (!isDeleted[clauseIndex] && Arrays.binarySearch(clauses[clauseIndex], literal) >= 0) {
+                        clauseIndices[newSize++] = clauseIndex;
+                    }
+                }
+                occurrenceListSizes[literalIndex] = newSize;
+            }
+            return literalIndex;
+        }
+
+        private BooleanClauseList getResult(int variableCount) {
+            List<BooleanClause> remainingClauses = new ArrayList<>();
+            for (int i = 0; i < clauses.length; i++) {
+                if (!isDeleted[i]) {
+                    remainingClauses.add(new BooleanClause(clauses[i], false));
+                }
+            }
+            return new BooleanClauseList(remainingClauses, variableCount);
+        }
+
+        private static long getSignature(int[] clause) {
+            long signature = 0;
+            for (int literal : clause) {
+                signature |= 1L << (Math.abs(literal) & 63);
+            }
+            return signature;
+        }
+
+        private static int getLiteralIndex(int literal) {
+            return literal > 0 ? 2 * literal : -2 * literal + 1;
+        }
+    }
+}
@@ -31,7 +31,6 @@ import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.formula.IFormula;
 import de.featjar.formula.structure.formula.predicate.Literal;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Transforms a formula, which is assumed to be in conjunctive normal form, into an indexed CNF representation.
@@ -45,12 +44,33 @@ public class BooleanRepresentationComputation<T extends IValueRepresentation, U
     protected static final Dependency<Object> VALUE_REPRESENTATION = Dependency.newDependency();
 
     public static Result<BooleanClauseList> toBooleanClauseList(IFormula formula, VariableMap variableMap) {
-        final BooleanClauseList clauseList = new BooleanClauseList(variableMap.getVariableCount());
-        formula.getChildren().stream()
-                .map(expression -> getClause((IFormula) expression, variableMap))
-                .filter(Objects::nonNull)
-                .forEach(clauseList::add);
-        // }
+        final List<? extends IExpression> clauses = formula.getChildren();
+        final CompactBooleanClauseList clauseList =
+                new CompactBooleanClauseList(clauses.size(), clauses.size() * 2, variableMap.getVariableCount());
+        int[] literals = new int[16];
+        for (final IExpression clause : clauses) {
+            if (clause instanceof Literal) {
+                clauseList.addClause(getLiteral((Literal) clause, variableMap));
+            } else {
+                final List<? extends IExpression> children = clause.getChildren();
+                if (literals.length < children.size()) {
+                    literals = new int[children.size()];
+                }
+                int length = 0;
+                boolean isTautology = false;
+                for (final IExpression child : children) {
+                    if (child == Expressions.True) {
+                        isTautology = true;
+                        break;
+                    } else if (child instanceof Literal) {
+                        literals[length++] = getLiteral((Literal) child, variableMap);
+                    }
+                }
+                if (!isTautology) {
+                    clauseList.addClause(literals, length);
+                }
+            }
+        }
         return Result.of(clauseList); // todo: better error handling when index cannot be found
     }
 
@@ -79,6 +99,11 @@ public class BooleanRepresentationComputation<T extends IValueRepresentation, U
         }
     }
 
+    private static int getLiteral(Literal literal, VariableMap variableMap) {
+        final int index = variableMap.get(literal.getExpression().getName()).orElseThrow();
+        return literal.isPositive() ? index : -index;
+    }
+
     public BooleanRepresentationComputation(IComputation<T> valueRepresentation) {
         super(valueRepresentation);
     }
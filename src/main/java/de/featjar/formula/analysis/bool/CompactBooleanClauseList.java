@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A list of Boolean clauses that stores all literals in one contiguous array.
+ * Instead of one {@link BooleanClause} object per clause, this list only holds an array of literals
+ * and an array of offsets that mark where each clause begins.
+ * Thus, it requires considerably less memory for large CNFs than a {@link BooleanClauseList}.
+ * {@link BooleanClause} objects are only created on demand (e.g., by {@link #getAll()}),
+ * so modifying such an object does not modify this list.
+ * To iterate over the literals without creating any objects,
+ * use {@link #getLiteralArray()}, {@link #getClauseStart(int)}, and {@link #getClauseEnd(int)}.
+ * The literals of each clause are always stored in ascending order, regardless of how the clause was added.
+ * All clauses are accessed through {@link #getAll()}, so the inherited list of assignments remains empty.
+ */
+public class CompactBooleanClauseList extends BooleanClauseList {
+    private static final int DEFAULT_CLAUSE_CAPACITY = 16;
+    private static final int DEFAULT_LITERAL_CAPACITY = 64;
+
+    protected int[] literals;
+    protected int[] offsets;
+    protected int clauseCount;
+
+    private final ClauseView clauseView = new ClauseView();
+
+    public CompactBooleanClauseList(int variableCount) {
+        this(DEFAULT_CLAUSE_CAPACITY, DEFAULT_LITERAL_CAPACITY, variableCount);
+    }
+
+    public CompactBooleanClauseList(int clauseCapacity, int literalCapacity, int variableCount) {
+        super(0, variableCount);
+        literals = new int[Math.max(literalCapacity, 1)];
+        offsets = new int[Math.max(clauseCapacity, 1) + 1];
+    }
+
+    public CompactBooleanClauseList(BooleanClauseList other) {
+        super(0, other.getVariableCount());
+        if (other instanceof CompactBooleanClauseList) {
+            final CompactBooleanClauseList compactOther = (CompactBooleanClauseList) other;
+            clauseCount = compactOther.clauseCount;
+            literals = Arrays.copyOf(compactOther.literals, Math.max(compactOther.getLiteralCount(), 1));
+            offsets = Arrays.copyOf(compactOther.offsets, clauseCount + 1);
+        } else {
+            final List<BooleanClause> clauses = other.getAll();
+            int literalCount = 0;
+            for (final BooleanClause clause : clauses) {
+                literalCount += clause.size();
+            }
+            literals = new int[Math.max(literalCount, 1)];
+            offsets = new int[clauses.size() + 1];
+            for (final BooleanClause clause : clauses) {
+                insert(clauseCount, clause.get(), clause.size());
+            }
+        }
+    }
+
+    /**
+     * Adds a clause to the end of this list.
+     *
+     * @param clauseLiterals the literals of the clause
+     */
+    public void addClause(int... clauseLiterals) {
+        addClause(clauseLiterals, clauseLiterals.length);
+    }
+
+    /**
+     * Adds a clause to the end of this list.
+     * The literals are copied, so the given array may be reused afterwards (e.g., as a buffer).
+     *
+     * @param clauseLiterals the array containing the literals of the clause
+     * @param length the number of literals to copy from the array
+     */
+    public void addClause(int[] clauseLiterals, int length) {
+        insert(clauseCount, clauseLiterals, length);
+    }
+
+    /**
+     * Adds all clauses of another compact list to the end of this list.
+     * The literals are copied in bulk, so no {@link BooleanClause} objects are created.
+     *
+     * @param other the other list
+     */
+    public void addClauses(CompactBooleanClauseList other) {
+        ensureCapacity(other.getLiteralCount(), other.clauseCount);
+        final int literalCount = getLiteralCount();
+        System.arraycopy(other.literals, 0, literals, literalCount, other.getLiteralCount());
+        for (int i = 1; i <= other.clauseCount; i++) {
+            offsets[clauseCount + i] = literalCount + other.offsets[i];
+        }
+        clauseCount += other.clauseCount;
+    }
+
+    /**
+     * {@return the array containing the literals of all clauses}
+     * Only the first {@link #getLiteralCount()} entries are valid.
+     * The returned array must not be modified.
+     */
+    public int[] getLiteralArray() {
+        return literals;
+    }
+
+    /**
+     * {@return the total number of literals in this list}
+     */
+    public int getLiteralCount() {
+        return offsets[clauseCount];
+    }
+
+    /**
+     * {@return the index of the first literal of the given clause in the literal array}
+     *
+     * @param clauseIndex the index of the clause
+     */
+    public int getClauseStart(int clauseIndex) {
+        Objects.checkIndex(clauseIndex, clauseCount);
+        return offsets[clauseIndex];
+    }
+
+    /**
+     * {@return the index after the last literal of the given clause in the literal array}
+     *
+     * @param clauseIndex the index of the clause
+     */
+    public int getClauseEnd(int clauseIndex) {
+        Objects.checkIndex(clauseIndex, clauseCount);
+        return offsets[clauseIndex + 1];
+    }
+
+    /**
+     * {@return the number of literals in the given clause}
+     *
+     * @param clauseIndex the index of the clause
+     */
+    public int getClauseLength(int clauseIndex) {
+        Objects.checkIndex(clauseIndex, clauseCount);
+        return offsets[clauseIndex + 1] - offsets[clauseIndex];
+    }
+
+    /**
+     * {@return a copy of the literals of the given clause}
+     *
+     * @param clauseIndex the index of the clause
+     */
+    public int[] getClauseLiterals(int clauseIndex) {
+        Objects.checkIndex(clauseIndex, clauseCount);
+        return Arrays.copyOfRange(literals, offsets[clauseIndex], offsets[clauseIndex + 1]);
+    }
+
+    /**
+     * Shrinks the internal arrays to the current number of clauses and literals.
+     */
+    public void trimToSize() {
+        literals = Arrays.copyOf(literals, Math.max(getLiteralCount(), 1));
+        offsets = Arrays.copyOf(offsets, clauseCount + 1);
+    }
+
+    @Override
+    public List<BooleanClause> getAll() {
+        return clauseView;
+    }
+
+    @Override
+    public int size() {
+        return clauseCount;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return clauseCount == 0;
+    }
+
+    @Override
+    public void clear() {
+        clauseView.clear();
+    }
+
+    private void ensureCapacity(int additionalLiterals, int additionalClauses) {
+        final int requiredLiterals = getLiteralCount() + additionalLiterals;
+        if (requiredLiterals > literals.length) {
+            literals = Arrays.copyOf(literals, Math.max(requiredLiterals, literals.length + (literals.length >> 1)));
+        }
+        final int requiredOffsets = clauseCount + additionalClauses + 1;
+        if (requiredOffsets > offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(requiredOffsets, offsets.length + (offsets.length >> 1)));
+        }
+    }
+
+    private void insert(int clauseIndex, int[] clauseLiterals, int length) {
+        assert Arrays.stream(clauseLiterals, 0, length).noneMatch(l -> l == 0)
+                : "contains zero: " + Arrays.toString(clauseLiterals);
+        ensureCapacity(length, 1);
+        final int start = offsets[clauseIndex];
+        final int literalCount = offsets[clauseCount];
+        System.arraycopy(literals, start, literals, start + length, literalCount - start);
+        System.arraycopy(clauseLiterals, 0, literals, start, length);
+        Arrays.sort(literals, start, start + length);
+        System.arraycopy(offsets, clauseIndex + 1, offsets, clauseIndex + 2, clauseCount - clauseIndex);
+        offsets[clauseIndex + 1] = start + length;
+        for (int i = clauseIndex + 2; i <= clauseCount + 1; i++) {
+            offsets[i] += length;
+        }
+        clauseCount++;
+    }
+
+    private void delete(int clauseIndex) {
+        final int start = offsets[clauseIndex];
+        final int end = offsets[clauseIndex + 1];
+        final int length = end - start;
+        System.arraycopy(literals, end, literals, start, offsets[clauseCount] - end);
+        for (int i = clauseIndex + 1; i < clauseCount; i++) {
+            offsets[i] = offsets[i + 1] - length;
+        }
+        clauseCount--;
+    }
+
+    private void replace(int clauseIndex, int[] clauseLiterals, int length) {
+        final int start = offsets[clauseIndex];
+        if (offsets[clauseIndex + 1] - start == length) {
+            System.arraycopy(clauseLiterals, 0, literals, start, length);
+            Arrays.sort(literals, start, start + length);
+        } else {
+            delete(clauseIndex);
+            insert(clauseIndex, clauseLiterals, length);
+        }
+    }
+
+    private boolean equalsClauses(CompactBooleanClauseList other) {
+        if (clauseCount != other.clauseCount) {
+            return false;
+        }
+        return Arrays.equals(offsets, 0, clauseCount + 1, other.offsets, 0, clauseCount + 1)
+                && Arrays.equals(literals, 0, getLiteralCount(), other.literals, 0, getLiteralCount());
+    }
+
+    /**
+     * A list view that creates {@link BooleanClause} objects on demand.
+     */
+    private class ClauseView extends AbstractList<BooleanClause> implements RandomAccess {
+        @Override
+        public BooleanClause get(int index) {
+            return new BooleanClause(getClauseLiterals(index));
+        }
+
+        @Override
+        public int size() {
+            return clauseCount;
+        }
+
+        @Override
+        public BooleanClause set(int index, BooleanClause clause) {
+            final BooleanClause oldClause = get(index);
+            replace(index, clause.get(), clause.size());
+            return oldClause;
+        }
+
+        @Override
+        public void add(int index, BooleanClause clause) {
+            Objects.checkIndex(index, clauseCount + 1);
+            insert(index, clause.get(), clause.size());
+            modCount++;
+        }
+
+        /**
+         * Sorts the clauses and rebuilds the literal array in a single pass.
+         * Creates each {@link BooleanClause} only once, instead of on every comparison and for every move.
+         */
+        @Override
+        public void sort(Comparator<? super BooleanClause> comparator) {
+            final BooleanClause[] clauses = toArray(new BooleanClause[clauseCount]);
+            Arrays.sort(clauses, comparator);
+            int literalCount = 0;
+            for (int i = 0; i < clauses.length; i++) {
+                final int[] clauseLiterals = clauses[i].get();
+                System.arraycopy(clauseLiterals, 0, literals, literalCount, clauseLiterals.length);
+                literalCount += clauseLiterals.length;
+                offsets[i + 1] = literalCount;
+            }
+            modCount++;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof ClauseView) {
+                return equalsClauses(((ClauseView) other).getClauseList());
+            }
+            return super.equals(other);
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+
+        private CompactBooleanClauseList getClauseList() {
+            return CompactBooleanClauseList.this;
+        }
+
+        @Override
+        public BooleanClause remove(int index) {
+            final BooleanClause oldClause = get(index);
+            delete(index);
+            modCount++;
+            return oldClause;
+        }
+
+        @Override
+        public void clear() {
+            clauseCount = 0;
+            modCount++;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import java.util.Arrays;
+
+/**
+ * Maps each variable of a {@link BooleanClauseList} to a representative literal.
+ * Obtained by substituting equivalent literals, where each variable is replaced by the representative literal
+ * of its equivalence class.
+ * Solutions of the reduced clause list can be expanded to solutions of the original clause list with
+ * {@link #expand(BooleanSolution)}.
+ *
+ * @see BooleanClauseListEquivalenceComputation
+ */
+public class LiteralMapping {
+    private final int[] representatives;
+
+    /**
+     * Creates a literal mapping.
+     *
+     * @param representatives the representative literal for each variable, where the array index {@code i - 1}
+     *                        holds the representative literal of variable {@code i}
+     */
+    public LiteralMapping(int[] representatives) {
+        this.representatives = representatives;
+    }
+
+    /**
+     * {@return the identity mapping for the given number of variables}
+     *
+     * @param variableCount the number of variables
+     */
+    public static LiteralMapping identity(int variableCount) {
+        final int[] representatives = new int[variableCount];
+        for (int i = 0; i < variableCount; i++) {
+            representatives[i] = i + 1;
+        }
+        return new LiteralMapping(representatives);
+    }
+
+    /**
+     * {@return the number of variables of the original clause list}
+     */
+    public int getVariableCount() {
+        return representatives.length;
+    }
+
+    /**
+     * {@return the representative literal of the given literal}
+     *
+     * @param literal the literal
+     */
+    public int map(int literal) {
+        final int representative = representatives[Math.abs(literal) - 1];
+        return literal > 0 ? representative : -representative;
+    }
+
+    /**
+     * {@return whether the given variable is its own representative}
+     *
+     * @param variable the variable
+     */
+    public boolean isRepresentative(int variable) {
+        return representatives[variable - 1] == variable;
+    }
+
+    /**
+     * {@return the number of variables that are their own representative}
+     */
+    public int countRepresentatives() {
+        int count = 0;
+        for (int i = 0; i < representatives.length; i++) {
+            if (representatives[i] == i + 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Expands a solution of the reduced clause list to a solution of the original clause list.
+     * Each variable is assigned the value of its representative literal.
+     * Variables whose representative is unassigned remain unassigned.
+     *
+     * @param solution the solution of the reduced clause list
+     * @return the solution of the original clause list
+     */
+    public BooleanSolution expand(BooleanSolution solution) {
+        final int[] solutionValues = solution.get();
+        final int[] values = new int[representatives.length];
+        for (int i = 0; i < values.length; i++) {
+            final int representative = representatives[i];
+            final int representativeIndex = Math.abs(representative) - 1;
+            final int value = representativeIndex < solutionValues.length ? solutionValues[representativeIndex] : 0;
+            if (value != 0) {
+                values[i] = value == representative ? i + 1 : -(i + 1);
+            }
+        }
+        return new BooleanSolution(values, false);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(representatives, ((LiteralMapping) o).representatives);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(representatives);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LiteralMapping%s", Arrays.toString(representatives));
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.analysis.VariableMap;
+import de.featjar.formula.analysis.value.ValueSolution;
+import java.util.Arrays;
+
+/**
+ * A Boolean solution packed into two bit sets.
+ * Compared to a {@link BooleanSolution}, which uses one integer per variable, this representation uses two bits per variable:
+ * one bit stores whether the variable is assigned, and one bit stores whether it is assigned to {@code true}.
+ * Operations on two solutions (e.g., {@link #countConflicts(PackedBooleanSolution)}) process 64 variables at once.
+ * Can be converted to and from a {@link BooleanSolution} without loss of information.
+ */
+public class PackedBooleanSolution implements IBooleanRepresentation {
+    private final int variableCount;
+    private final long[] assigned;
+    private final long[] positive;
+
+    /**
+     * Creates a solution in which all variables are unassigned.
+     *
+     * @param variableCount the number of variables
+     */
+    public PackedBooleanSolution(int variableCount) {
+        this.variableCount = variableCount;
+        assigned = new long[getWordCount(variableCount)];
+        positive = new long[assigned.length];
+    }
+
+    /**
+     * Creates a packed copy of a given solution.
+     *
+     * @param solution the solution
+     */
+    public PackedBooleanSolution(BooleanSolution solution) {
+        this(solution.size());
+        final int[] literals = solution.get();
+        for (int i = 0; i < literals.length; i++) {
+            final int literal = literals[i];
+            if (literal != 0) {
+                final long bit = 1L << i;
+                assigned[i >>> 6] |= bit;
+                if (literal > 0) {
+                    positive[i >>> 6] |= bit;
+                }
+            }
+        }
+    }
+
+    public PackedBooleanSolution(PackedBooleanSolution other) {
+        variableCount = other.variableCount;
+        assigned = Arrays.copyOf(other.assigned, other.assigned.length);
+        positive = Arrays.copyOf(other.positive, other.positive.length);
+    }
+
+    /**
+     * {@return the number of 64-bit words needed to store the given number of variables}
+     *
+     * @param variableCount the number of variables
+     */
+    public static int getWordCount(int variableCount) {
+        return (variableCount + Long.SIZE - 1) >>> 6;
+    }
+
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return the words of the bit set that marks assigned variables}
+     * Bit {@code i} refers to the variable with index {@code i + 1}.
+     * The returned array must not be modified.
+     */
+    public long[] getAssignedWords() {
+        return assigned;
+    }
+
+    /**
+     * {@return the words of the bit set that marks variables assigned to {@code true}}
+     * Bit {@code i} refers to the variable with index {@code i + 1}.
+     * The returned array must not be modified.
+     */
+    public long[] getPositiveWords() {
+        return positive;
+    }
+
+    /**
+     * {@return the literal of the given variable in this solution, or 0 if the variable is unassigned}
+     *
+     * @param variable the variable index
+     */
+    public int get(int variable) {
+        final int i = checkVariable(variable);
+        final long bit = 1L << i;
+        if ((assigned[i >>> 6] & bit) == 0) {
+            return 0;
+        }
+        return (positive[i >>> 6] & bit) != 0 ? variable : -variable;
+    }
+
+    /**
+     * Assigns the variable of the given literal according to the literal's sign.
+     *
+     * @param literal the literal
+     */
+    public void set(int literal) {
+        final int i = checkVariable(Math.abs(literal));
+        final long bit = 1L << i;
+        assigned[i >>> 6] |= bit;
+        if (literal > 0) {
+            positive[i >>> 6] |= bit;
+        } else {
+            positive[i >>> 6] &= ~bit;
+        }
+    }
+
+    /**
+     * Removes the assignment of the given variable.
+     *
+     * @param variable the variable index
+     */
+    public void unset(int variable) {
+        final int i = checkVariable(variable);
+        final long bit = ~(1L << i);
+        assigned[i >>> 6] &= bit;
+        positive[i >>> 6] &= bit;
+    }
+
+    private int checkVariable(int variable) {
+        if (variable <= 0 || variable > variableCount) {
+            throw new IndexOutOfBoundsException("Variable index out of range: " + variable);
+        }
+        return variable - 1;
+    }
+
+    /**
+     * {@return the number of assigned variables}
+     */
+    public int countAssigned() {
+        int count = 0;
+        for (final long word : assigned) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of variables assigned to {@code true}}
+     */
+    public int countPositives() {
+        int count = 0;
+        for (final long word : positive) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of variables assigned to {@code false}}
+     */
+    public int countNegatives() {
+        return countAssigned() - countPositives();
+    }
+
+    /**
+     * {@return the number of variables that are assigned in both solutions, but to different values}
+     *
+     * @param other the other solution
+     */
+    public int countConflicts(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        int count = 0;
+        for (int i = 0; i < assigned.length; i++) {
+            count += Long.bitCount(assigned[i] & other.assigned[i] & (positive[i] ^ other.positive[i]));
+        }
+        return count;
+    }
+
+    /**
+     * {@return whether there is a variable that is assigned in both solutions, but to different values}
+     *
+     * @param other the other solution
+     */
+    public boolean conflictsWith(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        for (int i = 0; i < assigned.length; i++) {
+            if ((assigned[i] & other.assigned[i] & (positive[i] ^ other.positive[i])) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@return a new solution that only keeps the assignments on which both solutions agree}
+     * Analogous to {@link BooleanSolution#removeConflicts(int[], int[])}.
+     *
+     * @param other the other solution
+     */
+    public PackedBooleanSolution removeConflicts(PackedBooleanSolution other) {
+        final PackedBooleanSolution solution = new PackedBooleanSolution(this);
+        solution.removeConflictsInplace(other);
+        return solution;
+    }
+
+    /**
+     * Only keeps the assignments on which this and the given solution agree.
+     * Analogous to {@link BooleanSolution#removeConflictsInplace(int[], int[])}.
+     *
+     * @param other the other solution
+     */
+    public void removeConflictsInplace(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        for (int i = 0; i < assigned.length; i++) {
+            assigned[i] &= other.assigned[i] & ~(positive[i] ^ other.positive[i]);
+            positive[i] &= assigned[i];
+        }
+    }
+
+    private void checkVariableCount(PackedBooleanSolution other) {
+        if (variableCount != other.variableCount) throw new IllegalArgumentException();
+    }
+
+    /**
+     * {@return an unpacked copy of this solution}
+     */
+    public BooleanSolution toSolution() {
+        final int[] literals = new int[variableCount];
+        for (int w = 0; w < assigned.length; w++) {
+            long word = assigned[w];
+            while (word != 0) {
+                final int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                literals[i] = (positive[w] & (1L << i)) != 0 ? i + 1 : -(i + 1);
+                word &= word - 1;
+            }
+        }
+        return new BooleanSolution(literals, false);
+    }
+
+    @Override
+    public Result<ValueSolution> toValue(VariableMap variableMap) {
+        return variableMap.toValue(toSolution());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final PackedBooleanSolution that = (PackedBooleanSolution) o;
+        return variableCount == that.variableCount
+                && Arrays.equals(assigned, that.assigned)
+                && Arrays.equals(positive, that.positive);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * variableCount + Arrays.hashCode(assigned)) + Arrays.hashCode(positive);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PackedBooleanSolution[%s]", toSolution().print());
+    }
+}
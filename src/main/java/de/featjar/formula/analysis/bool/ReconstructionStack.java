@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import java.util.Arrays;
+
+/**
+ * Records clauses removed by a satisfiability-preserving preprocessing of a {@link BooleanClauseList},
+ * so that solutions of the reduced clause list can be extended to solutions of the original clause list.
+ * Each entry consists of a removed clause and a witness literal of this clause.
+ * To reconstruct a solution, entries are processed in reverse order,
+ * and whenever an entry's clause is not satisfied, its witness literal is set to true.
+ * Entries are stored in one contiguous array, similar to a {@link CompactBooleanClauseList}.
+ *
+ * @see BooleanClauseListPreprocessingComputation
+ */
+public class ReconstructionStack {
+    private final int variableCount;
+    private int[] literals = new int[16];
+    private int[] offsets = new int[9];
+    private int size;
+
+    /**
+     * Creates an empty reconstruction stack.
+     *
+     * @param variableCount the number of variables of the original clause list
+     */
+    public ReconstructionStack(int variableCount) {
+        this.variableCount = variableCount;
+    }
+
+    /**
+     * Pushes a removed clause onto this stack.
+     *
+     * @param witness the witness literal, which must be contained in the clause
+     * @param clause the removed clause
+     */
+    public void push(int witness, int[] clause) {
+        int length = clause.length + 1;
+        int start = offsets[size];
+        if (start + length > literals.length) {
+            literals = Arrays.copyOf(literals, Math.max(2 * literals.length, start + length));
+        }
+        if (size + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+        }
+        literals[start] = witness;
+        System.arraycopy(clause, 0, literals, start + 1, clause.length);
+        offsets[++size] = start + length;
+    }
+
+    /**
+     * {@return the number of entries of this stack}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@return the number of variables of the original clause list}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return the witness literal of the entry at the given index}
+     *
+     * @param index the index of the entry, in order of pushing
+     */
+    public int getWitness(int index) {
+        return literals[offsets[index]];
+    }
+
+    /**
+     * {@return a copy of the clause of the entry at the given index}
+     *
+     * @param index the index of the entry, in order of pushing
+     */
+    public int[] getClause(int index) {
+        return Arrays.copyOfRange(literals, offsets[index] + 1, offsets[index + 1]);
+    }
+
+    /**
+     * Extends a solution of the reduced clause list to a solution of the original clause list.
+     * Variables that are unassigned in the given solution are assigned false before reconstruction.
+     *
+     * @param solution the solution of the reduced clause list
+     * @return a complete solution of the original clause list
+     */
+    public BooleanSolution reconstruct(BooleanSolution solution) {
+        final int[] values = new int[variableCount];
+        final int[] solutionValues = solution.get();
+        for (int i = 0; i < variableCount; i++) {
+            values[i] = i < solutionValues.length && solutionValues[i] != 0 ? solutionValues[i] : -(i + 1);
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (!isSatisfied(values, offsets[i] + 1, offsets[i + 1])) {
+                final int witness = literals[offsets[i]];
+                values[Math.abs(witness) - 1] = witness;
+            }
+        }
+        return new BooleanSolution(values, false);
+    }
+
+    private boolean isSatisfied(int[] values, int start, int end) {
+        for (int i = start; i < end; i++) {
+            final int literal = literals[i];
+            if (values[Math.abs(literal) - 1] == literal) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
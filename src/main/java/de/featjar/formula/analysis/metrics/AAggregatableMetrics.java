@@ -21,31 +21,17 @@
 package de.featjar.formula.analysis.metrics;
 
 import de.featjar.formula.analysis.bool.BooleanSolutionList;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.function.DoubleSupplier;
 
-public abstract class AAggregatableMetrics {
-
-    public class DoubleMetric implements ISampleMetric {
-        private final String name;
-        private final DoubleSupplier aggregate;
+/**
+ * Aggregates the values of a metric, which are materialized for each sample.
+ */
+public abstract class AAggregatableMetrics implements IAggregatableMetrics {
 
+    public class DoubleMetric extends AggregateMetric {
         public DoubleMetric(String name, DoubleSupplier aggregate) {
-            this.name = name;
-            this.aggregate = aggregate;
-        }
-
-        @Override
-        public double get(BooleanSolutionList sample) {
-            setSample(sample);
-            return aggregate.getAsDouble();
-        }
-
-        @Override
-        public String getName() {
-            return name;
+            super(name, AAggregatableMetrics.this::setSample, aggregate);
         }
     }
 
@@ -53,8 +39,11 @@ public abstract class AAggregatableMetrics {
     protected static final double INVALID = -1;
 
     protected BooleanSolutionList sample;
+    private int sampleSize;
 
     private double[] values = null;
+    private double[] percentiles = new double[0];
+    private SampleStatistics statistics = null;
 
     protected double min = EMPTY;
     protected double max = EMPTY;
@@ -63,17 +52,7 @@ public abstract class AAggregatableMetrics {
     protected double variance = EMPTY;
     protected double standardDeviation = EMPTY;
 
-    public List<ISampleMetric> getAllAggregates() {
-        final List<ISampleMetric> aggregates = new ArrayList<>(6);
-        aggregates.add(getAggregate("min", this::getMin));
-        aggregates.add(getAggregate("max", this::getMax));
-        aggregates.add(getAggregate("mean", this::getMean));
-        aggregates.add(getAggregate("median", this::getMedian));
-        aggregates.add(getAggregate("variance", this::getVariance));
-        aggregates.add(getAggregate("standardDeviation", this::getStandardDeviation));
-        return aggregates;
-    }
-
+    @Override
     public abstract ISampleMetric getAggregate(String name, DoubleSupplier aggregate);
 
     public double[] getValues() {
@@ -85,15 +64,25 @@ public abstract class AAggregatableMetrics {
 
     protected abstract double[] computeValues();
 
+    /**
+     * Sets the sample to compute metrics for.
+     * Cached values are reset if the sample differs from the current sample or its size has changed since the last
+     * call.
+     *
+     * @param sample the sample
+     */
+    @Override
     public void setSample(BooleanSolutionList sample) {
-        if ((this.sample == null) || (this.sample != sample)) {
+        if ((this.sample == null) || (this.sample != sample) || (sampleSize != sample.size())) {
             this.sample = sample;
+            sampleSize = sample.size();
             reset();
         }
     }
 
     protected void reset() {
         values = null;
+        statistics = null;
         min = EMPTY;
         max = EMPTY;
         mean = EMPTY;
@@ -102,101 +91,98 @@ public abstract class AAggregatableMetrics {
         standardDeviation = EMPTY;
     }
 
-    protected double getMin() {
-        if (min == EMPTY) {
-            final double[] values = getValues();
-            if (values.length == 0) {
-                min = INVALID;
-            } else {
-                min = Double.MAX_VALUE;
-                for (final double count : values) {
-                    if (min > count) {
-                        min = count;
-                    }
-                }
+    /**
+     * {@return the summary statistics of the current values, computed at most once per sample}
+     */
+    protected SampleStatistics getStatistics() {
+        if (statistics == null) {
+            statistics = new SampleStatistics(getValues(), percentiles);
+        }
+        return statistics;
+    }
+
+    /**
+     * {@return a metric that computes the given percentile of the values}
+     * All percentiles requested before the first evaluation are computed together with the other aggregates.
+     *
+     * @param percentile the percentile, in [0, 100]
+     */
+    @Override
+    public ISampleMetric getPercentileAggregate(double percentile) {
+        addPercentile(percentile);
+        return IAggregatableMetrics.super.getPercentileAggregate(percentile);
+    }
+
+    private void addPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be in [0, 100], got " + percentile);
+        }
+        for (final double existingPercentile : percentiles) {
+            if (existingPercentile == percentile) {
+                return;
             }
         }
+        percentiles = Arrays.copyOf(percentiles, percentiles.length + 1);
+        percentiles[percentiles.length - 1] = percentile;
+    }
+
+    @Override
+    public double getMin() {
+        if (min == EMPTY) {
+            min = getValues().length == 0 ? INVALID : getStatistics().getMin();
+        }
         return min;
     }
 
-    protected double getMax() {
+    @Override
+    public double getMax() {
         if (max == EMPTY) {
-            final double[] values = getValues();
-            if (values.length == 0) {
-                max = INVALID;
-            } else {
-                max = 0;
-                for (final double count : values) {
-                    if (max < count) {
-                        max = count;
-                    }
-                }
-            }
+            max = getValues().length == 0 ? INVALID : getStatistics().getMax();
         }
         return max;
     }
 
-    protected double getMean() {
+    @Override
+    public double getMean() {
         if (mean == EMPTY) {
-            final double[] values = getValues();
-            if (values.length == 0) {
-                mean = INVALID;
-            } else {
-                double sum = 0;
-                for (final double count : values) {
-                    sum += count;
-                }
-                mean = sum / values.length;
-            }
+            mean = getValues().length == 0 ? INVALID : getStatistics().getMean();
         }
         return mean;
     }
 
-    protected double getMedian() {
+    @Override
+    public double getMedian() {
         if (median == EMPTY) {
-            final double[] values = getValues();
-            if (values.length == 0) {
-                median = INVALID;
-            } else {
-                final double[] sortedCounts = Arrays.copyOf(values, values.length);
-                Arrays.sort(sortedCounts);
-
-                final int middle = sortedCounts.length / 2;
-                median = ((sortedCounts.length % 2) != 0) //
-                        ? sortedCounts[middle] //
-                        : (sortedCounts[middle - 1] + sortedCounts[middle]) / 2.0;
-            }
+            median = getValues().length == 0 ? INVALID : getStatistics().getMedian();
         }
         return median;
     }
 
-    protected double getVariance() {
+    @Override
+    public double getVariance() {
         if (variance == EMPTY) {
-            final double[] values = getValues();
-            if (values.length == 0) {
-                variance = INVALID;
-            } else {
-                final double mean = getMean();
-                variance = 0;
-                for (final double count : values) {
-                    final double diff = count - mean;
-                    variance += diff * diff;
-                }
-                variance /= values.length;
-            }
+            variance = getValues().length == 0 ? INVALID : getStatistics().getVariance();
         }
         return variance;
     }
 
-    protected double getStandardDeviation() {
+    @Override
+    public double getStandardDeviation() {
         if (standardDeviation == EMPTY) {
-            final double[] values = getValues();
-            if (values.length == 0) {
-                standardDeviation = INVALID;
-            } else {
-                standardDeviation = Math.sqrt(getVariance());
-            }
+            standardDeviation = getValues().length == 0 ? INVALID : getStatistics().getStandardDeviation();
         }
         return standardDeviation;
     }
+
+    @Override
+    public double getPercentile(double percentile) {
+        if (getValues().length == 0) {
+            return INVALID;
+        }
+        addPercentile(percentile);
+        if (!getStatistics().hasPercentile(percentile)) {
+            statistics = null;
+        }
+        return getStatistics().getPercentile(percentile);
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import de.featjar.formula.analysis.bool.BooleanSolutionList;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A metric that passes the sample to its {@link IAggregatableMetrics} and then evaluates one of its aggregates.
+ */
+public class AggregateMetric implements ISampleMetric {
+    private final String name;
+    private final Consumer<BooleanSolutionList> sampleSetter;
+    private final DoubleSupplier aggregate;
+
+    /**
+     * Creates a new aggregate metric.
+     *
+     * @param name the name of the metric
+     * @param sampleSetter sets the sample of the aggregated metrics (e.g., {@link IAggregatableMetrics#setSample})
+     * @param aggregate the aggregate
+     */
+    public AggregateMetric(String name, Consumer<BooleanSolutionList> sampleSetter, DoubleSupplier aggregate) {
+        this.name = name;
+        this.sampleSetter = sampleSetter;
+        this.aggregate = aggregate;
+    }
+
+    @Override
+    public double get(BooleanSolutionList sample) {
+        sampleSetter.accept(sample);
+        return aggregate.getAsDouble();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
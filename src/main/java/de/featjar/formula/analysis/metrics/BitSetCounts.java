@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+
+/**
+ * Counts literals in {@link PackedBooleanSolution packed solutions} using population counts over 64-bit words.
+ * Used by {@link IDistanceFunction distance functions} to process 64 variables at once.
+ * A variable is considered selected if it is not assigned to {@code false} (i.e., unassigned variables count as selected),
+ * and deselected if it is assigned to {@code false}.
+ * This is consistent with the sign-based evaluation of literal arrays in the distance functions.
+ */
+public class BitSetCounts {
+
+    /**
+     * {@return the number of variables whose literals differ in the given solutions}
+     *
+     * @param solution1 the first solution
+     * @param solution2 the second solution
+     */
+    public static int countDifferent(PackedBooleanSolution solution1, PackedBooleanSolution solution2) {
+        final long[] assigned1 = solution1.getAssignedWords();
+        final long[] assigned2 = solution2.getAssignedWords();
+        final long[] positive1 = solution1.getPositiveWords();
+        final long[] positive2 = solution2.getPositiveWords();
+        int count = 0;
+        for (int i = 0; i < assigned1.length; i++) {
+            count += Long.bitCount((assigned1[i] ^ assigned2[i]) | (positive1[i] ^ positive2[i]));
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of selected variables in the given solution}
+     *
+     * @param solution the solution
+     */
+    public static int countSelected(PackedBooleanSolution solution) {
+        final long[] assigned = solution.getAssignedWords();
+        final long[] positive = solution.getPositiveWords();
+        final int lastWord = assigned.length - 1;
+        int count = 0;
+        for (int i = 0; i < lastWord; i++) {
+            count += Long.bitCount(positive[i] | ~assigned[i]);
+        }
+        if (lastWord >= 0) {
+            count += Long.bitCount((positive[lastWord] | ~assigned[lastWord]) & getLastWordMask(solution));
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of variables that are selected in both given solutions}
+     *
+     * @param solution1 the first solution
+     * @param solution2 the second solution
+     */
+    public static int countCommonSelected(PackedBooleanSolution solution1, PackedBooleanSolution solution2) {
+        final long[] assigned1 = solution1.getAssignedWords();
+        final long[] assigned2 = solution2.getAssignedWords();
+        final long[] positive1 = solution1.getPositiveWords();
+        final long[] positive2 = solution2.getPositiveWords();
+        final int lastWord = assigned1.length - 1;
+        int count = 0;
+        for (int i = 0; i < lastWord; i++) {
+            count += Long.bitCount((positive1[i] | ~assigned1[i]) & (positive2[i] | ~assigned2[i]));
+        }
+        if (lastWord >= 0) {
+            count += Long.bitCount((positive1[lastWord] | ~assigned1[lastWord])
+                    & (positive2[lastWord] | ~assigned2[lastWord])
+                    & getLastWordMask(solution1));
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of deselected variables in the given solution}
+     *
+     * @param solution the solution
+     */
+    public static int countDeselected(PackedBooleanSolution solution) {
+        return solution.countNegatives();
+    }
+
+    /**
+     * {@return the number of variables that are deselected in both given solutions}
+     *
+     * @param solution1 the first solution
+     * @param solution2 the second solution
+     */
+    public static int countCommonDeselected(PackedBooleanSolution solution1, PackedBooleanSolution solution2) {
+        final long[] assigned1 = solution1.getAssignedWords();
+        final long[] assigned2 = solution2.getAssignedWords();
+        final long[] positive1 = solution1.getPositiveWords();
+        final long[] positive2 = solution2.getPositiveWords();
+        int count = 0;
+        for (int i = 0; i < assigned1.length; i++) {
+            count += Long.bitCount((assigned1[i] & ~positive1[i]) & (assigned2[i] & ~positive2[i]));
+        }
+        return count;
+    }
+
+    private static long getLastWordMask(PackedBooleanSolution solution) {
+        final int remainder = solution.getVariableCount() & (Long.SIZE - 1);
+        return remainder == 0 ? -1L : (1L << remainder) - 1;
+    }
+}
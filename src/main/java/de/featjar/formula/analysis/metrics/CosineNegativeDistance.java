@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.analysis.metrics;
 
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+
 /**
  * Computes the Cosine distance between two literal arrays. Negative literals
  * are treated as negative one, positive literals as one.
@@ -38,6 +40,19 @@ public class CosineNegativeDistance implements IDistanceFunction {
         return (1 - cosineSimilarity) / 2.0;
     }
 
+    @Override
+    public double computeDistance(PackedBooleanSolution solution1, PackedBooleanSolution solution2) {
+        final int size = solution1.getVariableCount();
+        final double sum = size - 2 * BitSetCounts.countDifferent(solution1, solution2);
+        final double cosineSimilarity = sum / size;
+        return (1 - cosineSimilarity) / 2.0;
+    }
+
+    @Override
+    public boolean supportsPackedSolutions() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "CosineNegative";
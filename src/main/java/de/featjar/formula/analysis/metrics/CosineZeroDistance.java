@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.analysis.metrics;
 
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+
 /**
  * Computes the Cosine distance between two literal arrays. Negative literals
  * are treated as zero, positive literals as one.
@@ -44,6 +46,20 @@ public class CosineZeroDistance implements IDistanceFunction {
         return (1 - cosineSimilarity) / 2.0;
     }
 
+    @Override
+    public double computeDistance(PackedBooleanSolution solution1, PackedBooleanSolution solution2) {
+        final double sum = BitSetCounts.countCommonSelected(solution1, solution2);
+        final double sumA = BitSetCounts.countSelected(solution1);
+        final double sumB = BitSetCounts.countSelected(solution2);
+        final double cosineSimilarity = sum / Math.sqrt(sumA * sumB);
+        return (1 - cosineSimilarity) / 2.0;
+    }
+
+    @Override
+    public boolean supportsPackedSolutions() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "CosineZero";
@@ -20,13 +20,27 @@
  */
 package de.featjar.formula.analysis.metrics;
 
+import de.featjar.formula.analysis.bool.BooleanSolutionList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.DoubleSupplier;
+import java.util.stream.IntStream;
 
+/**
+ * Computes metrics based on the counts of all solutions in a sample.
+ * When solutions are appended to a sample, only the counts of the new solutions are computed on the next evaluation.
+ * This assumes that existing solutions in the sample are not modified.
+ */
 public class CountMetrics extends AAggregatableMetrics {
 
     private final ICountFunction function;
 
+    private BooleanSolutionList computedSample;
+    private double[] computedValues = new double[0];
+
     public CountMetrics(ICountFunction function) {
         this.function = function;
     }
@@ -35,13 +49,61 @@ public class CountMetrics extends AAggregatableMetrics {
         return new CountMetrics(function).getAllAggregates();
     }
 
+    /**
+     * Computes the {@link SizeMetric size} and all aggregates of the given count functions for each sample in a
+     * sample list.
+     * Samples are evaluated in parallel, each sample is traversed once per count function.
+     *
+     * @param sampleList the sample list
+     * @param functions the count functions
+     * @return a map from metric names to the metric's values for each sample, in the order of the sample list
+     */
+    public static Map<String, double[]> computeAll(
+            List<BooleanSolutionList> sampleList, List<? extends ICountFunction> functions) {
+        final SizeMetric sizeMetric = new SizeMetric();
+        final List<String> names = new ArrayList<>();
+        names.add(sizeMetric.getName());
+        for (final ICountFunction function : functions) {
+            for (final ISampleMetric aggregate : getAllAggregates(function)) {
+                names.add(aggregate.getName());
+            }
+        }
+
+        final double[][] sampleValues = new double[sampleList.size()][];
+        IntStream.range(0, sampleList.size()).parallel().forEach(i -> {
+            final BooleanSolutionList sample = sampleList.get(i);
+            final double[] values = new double[names.size()];
+            int index = 0;
+            values[index++] = sizeMetric.get(sample);
+            for (final ICountFunction function : functions) {
+                for (final ISampleMetric aggregate : getAllAggregates(function)) {
+                    values[index++] = aggregate.get(sample);
+                }
+            }
+            sampleValues[i] = values;
+        });
+
+        final Map<String, double[]> metrics = new LinkedHashMap<>();
+        for (int m = 0; m < names.size(); m++) {
+            final double[] values = new double[sampleValues.length];
+            for (int i = 0; i < sampleValues.length; i++) {
+                values[i] = sampleValues[i][m];
+            }
+            metrics.put(names.get(m), values);
+        }
+        return metrics;
+    }
+
     @Override
     protected double[] computeValues() {
         final int size = sample.size();
-        final double[] values = new double[size];
-        for (int i = 0; i < (size - 1); i++) {
+        final int start = (computedSample == sample && computedValues.length <= size) ? computedValues.length : 0;
+        final double[] values = Arrays.copyOf(computedValues, size);
+        for (int i = start; i < size; i++) {
             values[i] = function.compute(sample.get(i).get());
         }
+        computedSample = sample;
+        computedValues = values;
         return values;
     }
 
@@ -20,12 +20,29 @@
  */
 package de.featjar.formula.analysis.metrics;
 
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.DoubleSupplier;
+import java.util.stream.IntStream;
 
+/**
+ * Computes metrics based on the pairwise distances of all solutions in a sample.
+ * Per-solution minimum, maximum, and sum of distances are accumulated while computing the distances,
+ * so all aggregates are derived from a single pass over all pairs.
+ * In parallel mode, the pairs are processed in fixed-size tiles on the common fork-join pool.
+ * As the tiling does not depend on the number of threads, the results are deterministic.
+ */
 public class DistanceMetrics extends AAggregatableMetrics {
 
+    private static final int TILE_SIZE = 256;
+
     private final IDistanceFunction function;
+    private final boolean parallel;
+
+    private double[] rowMin;
+    private double[] rowMax;
+    private double[] rowSum;
 
     private double leastMean = EMPTY;
     private double mostMean = EMPTY;
@@ -33,11 +50,20 @@ public class DistanceMetrics extends AAggregatableMetrics {
     private double meanMax = EMPTY;
 
     public DistanceMetrics(IDistanceFunction function) {
+        this(function, false);
+    }
+
+    public DistanceMetrics(IDistanceFunction function, boolean parallel) {
         this.function = function;
+        this.parallel = parallel;
     }
 
     public static List<ISampleMetric> getAllAggregates(IDistanceFunction distanceFunction) {
-        final DistanceMetrics metrics = new DistanceMetrics(distanceFunction);
+        return getAllAggregates(distanceFunction, false);
+    }
+
+    public static List<ISampleMetric> getAllAggregates(IDistanceFunction distanceFunction, boolean parallel) {
+        final DistanceMetrics metrics = new DistanceMetrics(distanceFunction, parallel);
         final List<ISampleMetric> aggregates = metrics.getAllAggregates();
         aggregates.add(metrics.getAggregate("leastMean", metrics::getLeastMean));
         aggregates.add(metrics.getAggregate("mostMean", metrics::getMostMean));
@@ -55,20 +81,116 @@ public class DistanceMetrics extends AAggregatableMetrics {
     protected double[] computeValues() {
         final int size = sample.size();
         final double[] values = new double[(size * (size - 1)) >> 1];
-        int index = 0;
-        for (int i = 0; i < (size - 1); i++) {
-            final int[] literals1 = sample.get(i).get().get();
-            for (int j = i + 1; j < size; j++) {
-                values[index++] =
-                        function.computeDistance(literals1, sample.get(j).get().get());
+        rowMin = new double[size];
+        rowMax = new double[size];
+        rowSum = new double[size];
+        Arrays.fill(rowMin, Double.MAX_VALUE);
+
+        PackedBooleanSolution[] solutions = null;
+        int[][] literals = null;
+        if (function.supportsPackedSolutions()) {
+            solutions = new PackedBooleanSolution[size];
+            for (int i = 0; i < size; i++) {
+                solutions[i] = new PackedBooleanSolution(sample.get(i).get());
+            }
+        } else {
+            literals = new int[size][];
+            for (int i = 0; i < size; i++) {
+                literals[i] = sample.get(i).get().get();
+            }
+        }
+
+        if (parallel && size > TILE_SIZE) {
+            computeTiles(values, size, solutions, literals);
+        } else {
+            int index = 0;
+            for (int i = 0; i < (size - 1); i++) {
+                for (int j = i + 1; j < size; j++) {
+                    final double d = computeDistance(solutions, literals, i, j);
+                    values[index++] = d;
+                    addToRow(rowMin, rowMax, rowSum, i, d);
+                    addToRow(rowMin, rowMax, rowSum, j, d);
+                }
             }
         }
         return values;
     }
 
+    private void computeTiles(
+            final double[] values, final int size, PackedBooleanSolution[] solutions, int[][] literals) {
+        final int blockCount = (size + TILE_SIZE - 1) / TILE_SIZE;
+        final int tileCount = (blockCount * (blockCount + 1)) >> 1;
+        final int[] tileRows = new int[tileCount];
+        final int[] tileColumns = new int[tileCount];
+        int tile = 0;
+        for (int bi = 0; bi < blockCount; bi++) {
+            for (int bj = bi; bj < blockCount; bj++) {
+                tileRows[tile] = bi;
+                tileColumns[tile] = bj;
+                tile++;
+            }
+        }
+
+        // partial row aggregates per column block, each entry is written by exactly one tile
+        final double[][] partialMin = new double[blockCount][size];
+        final double[][] partialMax = new double[blockCount][size];
+        final double[][] partialSum = new double[blockCount][size];
+        for (int b = 0; b < blockCount; b++) {
+            Arrays.fill(partialMin[b], Double.MAX_VALUE);
+        }
+
+        IntStream.range(0, tileCount).parallel().forEach(t -> {
+            final int bi = tileRows[t];
+            final int bj = tileColumns[t];
+            final int rowEnd = Math.min(size, (bi + 1) * TILE_SIZE);
+            final int columnStart = bj * TILE_SIZE;
+            final int columnEnd = Math.min(size, columnStart + TILE_SIZE);
+            for (int i = bi * TILE_SIZE; i < rowEnd; i++) {
+                final int rowOffset = (i * size) - ((i * (i + 1)) >> 1) - i - 1;
+                for (int j = Math.max(i + 1, columnStart); j < columnEnd; j++) {
+                    final double d = computeDistance(solutions, literals, i, j);
+                    values[rowOffset + j] = d;
+                    addToRow(partialMin[bj], partialMax[bj], partialSum[bj], i, d);
+                    addToRow(partialMin[bi], partialMax[bi], partialSum[bi], j, d);
+                }
+            }
+        });
+
+        IntStream.range(0, size).parallel().forEach(i -> {
+            for (int b = 0; b < blockCount; b++) {
+                if (rowMin[i] > partialMin[b][i]) {
+                    rowMin[i] = partialMin[b][i];
+                }
+                if (rowMax[i] < partialMax[b][i]) {
+                    rowMax[i] = partialMax[b][i];
+                }
+                rowSum[i] += partialSum[b][i];
+            }
+        });
+    }
+
+    private double computeDistance(PackedBooleanSolution[] solutions, int[][] literals, int i, int j) {
+        return solutions != null
+                ? function.computeDistance(solutions[i], solutions[j])
+                : function.computeDistance(literals[i], literals[j]);
+    }
+
+    private static void addToRow(double[] min, double[] max, double[] sum, int row, double d) {
+        if (min[row] > d) {
+            min[row] = d;
+        }
+        if (max[row] < d) {
+            max[row] = d;
+        }
+        sum[row] += d;
+    }
+
     @Override
     protected void reset() {
         super.reset();
+        rowMin = null;
+        rowMax = null;
+        rowSum = null;
         leastMean = EMPTY;
         mostMean = EMPTY;
         meanMin = EMPTY;
@@ -77,26 +199,14 @@ public class DistanceMetrics extends AAggregatableMetrics {
 
     private double getLeastMean() {
         if (leastMean == EMPTY) {
-            final double[] distances = getValues();
-            if (distances.length == 0) {
+            if (getValues().length == 0) {
                 leastMean = INVALID;
             } else {
-                final int size = (((int) Math.sqrt((distances.length << 3) + 1)) >> 1) + 1;
-
                 double sum = 0;
-                for (int i = 0; i < size; i++) {
-                    double minDistance = Double.MAX_VALUE;
-                    for (int j = 0; j < size; j++) {
-                        if (i != j) {
-                            final double d = getDistance(distances, size, i, j);
-                            if (minDistance > d) {
-                                minDistance = d;
-                            }
-                        }
-                    }
+                for (final double minDistance : rowMin) {
                     sum += minDistance;
                 }
-                leastMean = sum / size;
+                leastMean = sum / rowMin.length;
             }
         }
         return leastMean;
@@ -104,26 +214,14 @@ public class DistanceMetrics extends AAggregatableMetrics {
 
     private double getMostMean() {
         if (mostMean == EMPTY) {
-            final double[] distances = getValues();
-            if (distances.length == 0) {
+            if (getValues().length == 0) {
                 mostMean = INVALID;
             } else {
-                final int size = (((int) Math.sqrt((distances.length << 3) + 1)) >> 1) + 1;
-
                 double sum = 0;
-                for (int i = 0; i < size; i++) {
-                    double maxDistance = 0;
-                    for (int j = 0; j < size; j++) {
-                        if (i != j) {
-                            final double d = getDistance(distances, size, i, j);
-                            if (maxDistance < d) {
-                                maxDistance = d;
-                            }
-                        }
-                    }
+                for (final double maxDistance : rowMax) {
                     sum += maxDistance;
                 }
-                mostMean = sum / size;
+                mostMean = sum / rowMax.length;
             }
         }
         return mostMean;
@@ -131,20 +229,12 @@ public class DistanceMetrics extends AAggregatableMetrics {
 
     private double getMeanMin() {
         if (meanMin == EMPTY) {
-            final double[] distances = getValues();
-            if (distances.length == 0) {
+            if (getValues().length == 0) {
                 meanMin = INVALID;
             } else {
-                final int size = (((int) Math.sqrt((distances.length << 3) + 1)) >> 1) + 1;
                 double minLocalMean = Double.MAX_VALUE;
-                for (int i = 0; i < size; i++) {
-                    double localMean = 0;
-                    for (int j = 0; j < size; j++) {
-                        if (i != j) {
-                            localMean += getDistance(distances, size, i, j);
-                        }
-                    }
-                    localMean /= size;
+                for (final double distanceSum : rowSum) {
+                    final double localMean = distanceSum / rowSum.length;
                     if (localMean < minLocalMean) {
                         minLocalMean = localMean;
                     }
@@ -157,20 +247,12 @@ public class DistanceMetrics extends AAggregatableMetrics {
 
     private double getMeanMax() {
         if (meanMax == EMPTY) {
-            final double[] distances = getValues();
-            if (distances.length == 0) {
+            if (getValues().length == 0) {
                 meanMax = INVALID;
             } else {
-                final int size = (((int) Math.sqrt((distances.length << 3) + 1)) >> 1) + 1;
                 double maxLocalMean = 0;
-                for (int i = 0; i < size; i++) {
-                    double localMean = 0;
-                    for (int j = 0; j < size; j++) {
-                        if (i != j) {
-                            localMean += getDistance(distances, size, i, j);
-                        }
-                    }
-                    localMean /= size;
+                for (final double distanceSum : rowSum) {
+                    final double localMean = distanceSum / rowSum.length;
                     if (localMean > maxLocalMean) {
                         maxLocalMean = localMean;
                     }
@@ -180,11 +262,4 @@ public class DistanceMetrics extends AAggregatableMetrics {
         }
         return meanMax;
     }
-
-    private double getDistance(final double[] distances, final int size, int i, int j) {
-        return distances[
-                i < j
-                        ? (distances.length + j) - ((((size - i) * (size - i - 1)) >> 1) + i + 1)
-                        : (distances.length + i) - ((((size - j) * (size - j - 1)) >> 1) + j + 1)];
-    }
 }
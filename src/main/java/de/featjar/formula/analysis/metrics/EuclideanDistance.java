@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.analysis.metrics;
 
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+
 /**
  * Computes the Euclidean distance between two literal arrays. Negative literals
  * are treated as zero, positive literals as one.
@@ -37,6 +39,16 @@ public class EuclideanDistance implements IDistanceFunction {
         return Math.sqrt(conflicts);
     }
 
+    @Override
+    public double computeDistance(PackedBooleanSolution solution1, PackedBooleanSolution solution2) {
+        return Math.sqrt(BitSetCounts.countDifferent(solution1, solution2));
+    }
+
+    @Override
+    public boolean supportsPackedSolutions() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "Euclidean";
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import de.featjar.formula.analysis.bool.BooleanSolutionList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Aggregates a metric over all elements of a sample, such as all solutions or all pairs of solutions.
+ * Aggregates are computed for the sample set last and return {@code -1} if they are undefined (e.g., for an empty
+ * sample).
+ */
+public interface IAggregatableMetrics {
+
+    /**
+     * Sets the sample to compute aggregates for.
+     *
+     * @param sample the sample
+     */
+    void setSample(BooleanSolutionList sample);
+
+    /**
+     * {@return a metric that sets its sample and then evaluates the given aggregate}
+     *
+     * @param name the name of the aggregate
+     * @param aggregate the aggregate
+     */
+    ISampleMetric getAggregate(String name, DoubleSupplier aggregate);
+
+    /**
+     * {@return a metric that computes the given percentile of the values}
+     *
+     * @param percentile the percentile, in [0, 100]
+     */
+    default ISampleMetric getPercentileAggregate(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be in [0, 100], got " + percentile);
+        }
+        final String name = percentile == Math.rint(percentile)
+                ? String.valueOf((long) percentile)
+                : String.valueOf(percentile);
+        return getAggregate("p" + name, () -> getPercentile(percentile));
+    }
+
+    /**
+     * {@return metrics for the minimum, maximum, mean, median, variance, and standard deviation}
+     */
+    default List<ISampleMetric> getAllAggregates() {
+        final List<ISampleMetric> aggregates = new ArrayList<>(6);
+        aggregates.add(getAggregate("min", this::getMin));
+        aggregates.add(getAggregate("max", this::getMax));
+        aggregates.add(getAggregate("mean", this::getMean));
+        aggregates.add(getAggregate("median", this::getMedian));
+        aggregates.add(getAggregate("variance", this::getVariance));
+        aggregates.add(getAggregate("standardDeviation", this::getStandardDeviation));
+        return aggregates;
+    }
+
+    double getMin();
+
+    double getMax();
+
+    double getMean();
+
+    double getMedian();
+
+    double getVariance();
+
+    double getStandardDeviation();
+
+    /**
+     * {@return the given percentile of the values}
+     *
+     * @param percentile the percentile, in [0, 100]
+     */
+    double getPercentile(double percentile);
+}
@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.analysis.metrics;
 
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+
 /**
  * Computes the distance between to literal arrays (e.g., configurations).
  *
@@ -29,5 +31,26 @@ public interface IDistanceFunction {
 
     double computeDistance(final int[] literals1, final int[] literals2);
 
+    /**
+     * Computes the distance between two packed solutions.
+     * Must return the same value as {@link #computeDistance(int[], int[])} for the unpacked literal arrays.
+     * The default implementation unpacks both solutions.
+     *
+     * @param solution1 the first solution
+     * @param solution2 the second solution
+     * @return the distance
+     */
+    default double computeDistance(PackedBooleanSolution solution1, PackedBooleanSolution solution2) {
+        return computeDistance(solution1.toSolution().get(), solution2.toSolution().get());
+    }
+
+    /**
+     * {@return whether this function efficiently computes distances of packed solutions}
+     * If so, {@link DistanceMetrics} packs all solutions of a sample once and compares them word-wise.
+     */
+    default boolean supportsPackedSolutions() {
+        return false;
+    }
+
     String getName();
 }
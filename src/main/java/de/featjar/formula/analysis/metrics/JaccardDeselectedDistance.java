@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.analysis.metrics;
 
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+
 /**
  * Computes the Jaccard distance between two literal arrays. Considers only
  * negative literals.
@@ -44,6 +46,20 @@ public class JaccardDeselectedDistance implements IDistanceFunction {
         return 1 - similarity;
     }
 
+    @Override
+    public double computeDistance(PackedBooleanSolution solution1, PackedBooleanSolution solution2) {
+        final double sum = BitSetCounts.countCommonDeselected(solution1, solution2);
+        final double sumA = BitSetCounts.countDeselected(solution1);
+        final double sumB = BitSetCounts.countDeselected(solution2);
+        final double similarity = sum / ((sumA + sumB) - sum);
+        return 1 - similarity;
+    }
+
+    @Override
+    public boolean supportsPackedSolutions() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "JaccardDeselected";
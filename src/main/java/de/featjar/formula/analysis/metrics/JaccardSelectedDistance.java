@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.analysis.metrics;
 
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+
 /**
  * Computes the Jaccard distance between two literal arrays. Considers only
  * positive literals.
@@ -44,6 +46,20 @@ public class JaccardSelectedDistance implements IDistanceFunction {
         return 1 - similarity;
     }
 
+    @Override
+    public double computeDistance(PackedBooleanSolution solution1, PackedBooleanSolution solution2) {
+        final double sum = BitSetCounts.countCommonSelected(solution1, solution2);
+        final double sumA = BitSetCounts.countSelected(solution1);
+        final double sumB = BitSetCounts.countSelected(solution2);
+        final double similarity = sum / ((sumA + sumB) - sum);
+        return 1 - similarity;
+    }
+
+    @Override
+    public boolean supportsPackedSolutions() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "JaccardSelected";
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Approximates quantiles of a stream of values in bounded memory.
+ * Values are counted in logarithmically sized buckets, such that any returned quantile is within a given relative
+ * error of a value with the requested rank (as in DDSketch).
+ * The number of buckets grows with the logarithm of the value range, not with the number of values.
+ * Zero is tracked exactly, {@link Double#NaN} values are ignored.
+ */
+public class QuantileSketch {
+
+    /**
+     * Logarithmic buckets for values of one sign.
+     */
+    private static class Buckets {
+        private long[] counts = new long[0];
+        private int offset;
+
+        private void add(int index) {
+            if (counts.length == 0) {
+                counts = new long[16];
+                offset = index - 8;
+            } else if (index < offset) {
+                final int shift = Math.max(offset - index, counts.length);
+                final long[] newCounts = new long[counts.length + shift];
+                System.arraycopy(counts, 0, newCounts, shift, counts.length);
+                counts = newCounts;
+                offset -= shift;
+            } else if (index - offset >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length << 1));
+            }
+            counts[index - offset]++;
+        }
+
+        private void addAll(Buckets other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                final long count = other.counts[i];
+                if (count > 0) {
+                    add(other.offset + i);
+                    counts[other.offset + i - offset] += count - 1;
+                }
+            }
+        }
+    }
+
+    private final double relativeAccuracy;
+    private final double logGamma;
+    private final Buckets positives = new Buckets();
+    private final Buckets negatives = new Buckets();
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param relativeAccuracy the maximum relative error of returned quantiles, must be in (0, 1)
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("relative accuracy must be in (0, 1), got " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    /**
+     * {@return the maximum relative error of returned quantiles}
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * {@return the number of values added to this sketch}
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Adds a value to this sketch.
+     *
+     * @param value the value
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value > 0) {
+            positives.add(getIndex(value));
+        } else if (value < 0) {
+            negatives.add(getIndex(-value));
+        } else {
+            zeroCount++;
+        }
+        count++;
+    }
+
+    /**
+     * Adds all values of another sketch with the same relative accuracy to this sketch.
+     *
+     * @param other the other sketch
+     */
+    public void addAll(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("cannot merge sketches with different relative accuracy");
+        }
+        positives.addAll(other.positives);
+        negatives.addAll(other.negatives);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * {@return the approximate quantile of all added values, or {@link Double#NaN} if no values were added}
+     *
+     * @param quantile the quantile, must be in [0, 1]
+     */
+    public double getQuantile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("quantile must be in [0, 1], got " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int i = negatives.counts.length - 1; i >= 0; i--) {
+            seen += negatives.counts[i];
+            if (seen > rank) {
+                return -getValue(negatives.offset + i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < positives.counts.length; i++) {
+            seen += positives.counts[i];
+            if (seen > rank) {
+                return getValue(positives.offset + i);
+            }
+        }
+        return getValue(positives.offset + positives.counts.length - 1);
+    }
+
+    private int getIndex(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    private double getValue(int index) {
+        return 2 * Math.exp(index * logGamma) / (1 + Math.exp(logGamma));
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Immutable summary statistics of an array of values.
+ * Minimum, maximum, mean, and variance are computed in a single pass (using Welford's algorithm for the variance).
+ * The median and requested percentiles are determined by selection on a copy of the values, which takes expected
+ * linear time instead of sorting.
+ * Percentiles are linearly interpolated between the closest ranks.
+ */
+public class SampleStatistics {
+
+    private final int count;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double variance;
+    private final double median;
+    private final double[] percentiles;
+    private final double[] percentileValues;
+
+    /**
+     * Computes summary statistics for the given values.
+     *
+     * @param values the values, must not be empty
+     * @param percentiles the percentiles to compute, each in [0, 100]
+     */
+    public SampleStatistics(double[] values, double... percentiles) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("cannot summarize empty values");
+        }
+        count = values.length;
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double mean = 0;
+        double squaredDeviations = 0;
+        for (int i = 0; i < values.length; i++) {
+            final double value = values[i];
+            if (min > value) {
+                min = value;
+            }
+            if (max < value) {
+                max = value;
+            }
+            final double delta = value - mean;
+            mean += delta / (i + 1);
+            squaredDeviations += delta * (value - mean);
+        }
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        variance = squaredDeviations / count;
+
+        final double[] selection = Arrays.copyOf(values, values.length);
+        final int middle = count / 2;
+        final double upperMedian = select(selection, middle);
+        median = ((count % 2) != 0) ? upperMedian : (maxBelow(selection, middle) + upperMedian) / 2.0;
+
+        this.percentiles = Arrays.copyOf(percentiles, percentiles.length);
+        percentileValues = new double[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            final double percentile = percentiles[i];
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile must be in [0, 100], got " + percentile);
+            }
+            final double rank = (count - 1) * (percentile / 100);
+            final int lowerRank = (int) rank;
+            final double lower = select(selection, lowerRank);
+            percentileValues[i] = lowerRank + 1 < count
+                    ? lower + (rank - lowerRank) * (minAbove(selection, lowerRank) - lower)
+                    : lower;
+        }
+    }
+
+    /**
+     * Moves the element with the given rank to its sorted position and partitions the array around it.
+     * Uses a three-way partition, so that many duplicate values do not degrade performance.
+     */
+    private static double select(double[] values, int rank) {
+        int low = 0;
+        int high = values.length - 1;
+        while (low < high) {
+            final double pivot = medianOfThree(values[low], values[(low + high) >>> 1], values[high]);
+            int lessEnd = low;
+            int i = low;
+            int greaterStart = high;
+            while (i <= greaterStart) {
+                final int comparison = Double.compare(values[i], pivot);
+                if (comparison < 0) {
+                    swap(values, lessEnd++, i++);
+                } else if (comparison > 0) {
+                    swap(values, i, greaterStart--);
+                } else {
+                    i++;
+                }
+            }
+            if (rank < lessEnd) {
+                high = lessEnd - 1;
+            } else if (rank > greaterStart) {
+                low = greaterStart + 1;
+            } else {
+                return values[rank];
+            }
+        }
+        return values[rank];
+    }
+
+    private static double maxBelow(double[] partitionedValues, int rank) {
+        double max = partitionedValues[0];
+        for (int i = 1; i < rank; i++) {
+            if (Double.compare(max, partitionedValues[i]) < 0) {
+                max = partitionedValues[i];
+            }
+        }
+        return max;
+    }
+
+    private static double minAbove(double[] partitionedValues, int rank) {
+        double min = partitionedValues[rank + 1];
+        for (int i = rank + 2; i < partitionedValues.length; i++) {
+            if (Double.compare(min, partitionedValues[i]) > 0) {
+                min = partitionedValues[i];
+            }
+        }
+        return min;
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        if (Double.compare(a, b) > 0) {
+            final double temp = a;
+            a = b;
+            b = temp;
+        }
+        if (Double.compare(b, c) > 0) {
+            b = c;
+        }
+        return Double.compare(a, b) > 0 ? a : b;
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        final double temp = values[i];
+        values[i] = values[j];
+        values[j] = temp;
+    }
+
+    /**
+     * {@return the number of summarized values}
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * {@return the minimum value}
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * {@return the maximum value}
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * {@return the arithmetic mean}
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * {@return the median}
+     * For an even number of values, this is the mean of the two middle values.
+     */
+    public double getMedian() {
+        return median;
+    }
+
+    /**
+     * {@return the population variance}
+     */
+    public double getVariance() {
+        return variance;
+    }
+
+    /**
+     * {@return the population standard deviation}
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * {@return whether the given percentile was computed for this summary}
+     *
+     * @param percentile the percentile
+     */
+    public boolean hasPercentile(double percentile) {
+        return indexOfPercentile(percentile) >= 0;
+    }
+
+    /**
+     * {@return the given percentile}
+     *
+     * @param percentile the percentile, must have been passed to the constructor
+     */
+    public double getPercentile(double percentile) {
+        final int index = indexOfPercentile(percentile);
+        if (index < 0) {
+            throw new IllegalArgumentException("percentile " + percentile + " was not computed");
+        }
+        return percentileValues[index];
+    }
+
+    /**
+     * {@return the computed percentiles}
+     */
+    public double[] getPercentiles() {
+        return Arrays.copyOf(percentiles, percentiles.length);
+    }
+
+    private int indexOfPercentile(double percentile) {
+        for (int i = 0; i < percentiles.length; i++) {
+            if (percentiles[i] == percentile) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
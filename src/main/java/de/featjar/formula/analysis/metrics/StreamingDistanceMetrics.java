@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import de.featjar.formula.analysis.bool.BooleanSolutionList;
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Computes the same metrics as {@link DistanceMetrics} without materializing the pairwise distances.
+ * All distances are computed in a single pass and fed into online accumulators, which require memory linear in the
+ * sample size.
+ * Mean and variance are computed with Welford's algorithm, the median and percentiles are approximated with a
+ * {@link QuantileSketch}.
+ * Thus, unlike {@link DistanceMetrics}, these metrics are not an {@link AAggregatableMetrics} and do not provide the
+ * individual distances.
+ */
+public class StreamingDistanceMetrics implements IAggregatableMetrics {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private static final double EMPTY = -2;
+    private static final double INVALID = -1;
+
+    private final IDistanceFunction function;
+    private final double relativeAccuracy;
+
+    private BooleanSolutionList sample;
+    private int sampleSize;
+
+    private double min = EMPTY;
+    private double max = EMPTY;
+    private double mean = EMPTY;
+    private double median = EMPTY;
+    private double variance = EMPTY;
+    private double standardDeviation = EMPTY;
+    private double leastMean = EMPTY;
+    private double mostMean = EMPTY;
+    private double meanMin = EMPTY;
+    private double meanMax = EMPTY;
+    private QuantileSketch sketch;
+
+    public StreamingDistanceMetrics(IDistanceFunction function) {
+        this(function, DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * Creates streaming distance metrics.
+     *
+     * @param function the distance function
+     * @param relativeAccuracy the maximum relative error of the median
+     */
+    public StreamingDistanceMetrics(IDistanceFunction function, double relativeAccuracy) {
+        this.function = function;
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    public static List<ISampleMetric> getAllAggregates(IDistanceFunction distanceFunction) {
+        return getAllAggregates(distanceFunction, DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public static List<ISampleMetric> getAllAggregates(IDistanceFunction distanceFunction, double relativeAccuracy) {
+        final StreamingDistanceMetrics metrics = new StreamingDistanceMetrics(distanceFunction, relativeAccuracy);
+        final List<ISampleMetric> aggregates = metrics.getAllAggregates();
+        aggregates.add(metrics.getAggregate("leastMean", metrics::getLeastMean));
+        aggregates.add(metrics.getAggregate("mostMean", metrics::getMostMean));
+        aggregates.add(metrics.getAggregate("meanMin", metrics::getMeanMin));
+        aggregates.add(metrics.getAggregate("meanMax", metrics::getMeanMax));
+        return aggregates;
+    }
+
+    @Override
+    public ISampleMetric getAggregate(String name, DoubleSupplier aggregate) {
+        return new AggregateMetric(function.getName() + "_distance_" + name, this::setSample, aggregate);
+    }
+
+    /**
+     * Sets the sample to compute metrics for.
+     * Cached aggregates are reset if the sample differs from the current sample or its size has changed since the
+     * last call.
+     *
+     * @param sample the sample
+     */
+    @Override
+    public void setSample(BooleanSolutionList sample) {
+        if ((this.sample == null) || (this.sample != sample) || (sampleSize != sample.size())) {
+            this.sample = sample;
+            sampleSize = sample.size();
+            reset();
+        }
+    }
+
+    private void reset() {
+        min = EMPTY;
+        max = EMPTY;
+        mean = EMPTY;
+        median = EMPTY;
+        variance = EMPTY;
+        standardDeviation = EMPTY;
+        leastMean = EMPTY;
+        mostMean = EMPTY;
+        meanMin = EMPTY;
+        meanMax = EMPTY;
+        sketch = null;
+    }
+
+    private void computeAggregates() {
+        final int size = sample.size();
+        if (size < 2) {
+            min = INVALID;
+            max = INVALID;
+            mean = INVALID;
+            median = INVALID;
+            variance = INVALID;
+            standardDeviation = INVALID;
+            leastMean = INVALID;
+            mostMean = INVALID;
+            meanMin = INVALID;
+            meanMax = INVALID;
+            return;
+        }
+
+        PackedBooleanSolution[] solutions = null;
+        int[][] literals = null;
+        if (function.supportsPackedSolutions()) {
+            solutions = new PackedBooleanSolution[size];
+            for (int i = 0; i < size; i++) {
+                solutions[i] = new PackedBooleanSolution(sample.get(i).get());
+            }
+        } else {
+            literals = new int[size][];
+            for (int i = 0; i < size; i++) {
+                literals[i] = sample.get(i).get().get();
+            }
+        }
+
+        final double[] rowMin = new double[size];
+        final double[] rowMax = new double[size];
+        final double[] rowSum = new double[size];
+        Arrays.fill(rowMin, Double.MAX_VALUE);
+        sketch = new QuantileSketch(relativeAccuracy);
+
+        long count = 0;
+        double globalMin = Double.MAX_VALUE;
+        double globalMax = 0;
+        double globalMean = 0;
+        double squaredDeviations = 0;
+        for (int i = 0; i < (size - 1); i++) {
+            for (int j = i + 1; j < size; j++) {
+                final double d = solutions != null
+                        ? function.computeDistance(solutions[i], solutions[j])
+                        : function.computeDistance(literals[i], literals[j]);
+                count++;
+                final double delta = d - globalMean;
+                globalMean += delta / count;
+                squaredDeviations += delta * (d - globalMean);
+                if (globalMin > d) {
+                    globalMin = d;
+                }
+                if (globalMax < d) {
+                    globalMax = d;
+                }
+                sketch.add(d);
+                if (rowMin[i] > d) {
+                    rowMin[i] = d;
+                }
+                if (rowMax[i] < d) {
+                    rowMax[i] = d;
+                }
+                rowSum[i] += d;
+                if (rowMin[j] > d) {
+                    rowMin[j] = d;
+                }
+                if (rowMax[j] < d) {
+                    rowMax[j] = d;
+                }
+                rowSum[j] += d;
+            }
+        }
+
+        min = globalMin;
+        max = globalMax;
+        mean = globalMean;
+        median = sketch.getQuantile(0.5);
+        variance = squaredDeviations / count;
+        standardDeviation = Math.sqrt(variance);
+
+        double minSum = 0;
+        double maxSum = 0;
+        double minLocalMean = Double.MAX_VALUE;
+        double maxLocalMean = 0;
+        for (int i = 0; i < size; i++) {
+            minSum += rowMin[i];
+            maxSum += rowMax[i];
+            final double localMean = rowSum[i] / size;
+            if (localMean < minLocalMean) {
+                minLocalMean = localMean;
+            }
+            if (localMean > maxLocalMean) {
+                maxLocalMean = localMean;
+            }
+        }
+        leastMean = minSum / size;
+        mostMean = maxSum / size;
+        meanMin = minLocalMean;
+        meanMax = maxLocalMean;
+    }
+
+    @Override
+    public double getMin() {
+        if (min == EMPTY) {
+            computeAggregates();
+        }
+        return min;
+    }
+
+    @Override
+    public double getMax() {
+        if (max == EMPTY) {
+            computeAggregates();
+        }
+        return max;
+    }
+
+    @Override
+    public double getMean() {
+        if (mean == EMPTY) {
+            computeAggregates();
+        }
+        return mean;
+    }
+
+    @Override
+    public double getMedian() {
+        if (median == EMPTY) {
+            computeAggregates();
+        }
+        return median;
+    }
+
+    @Override
+    public double getVariance() {
+        if (variance == EMPTY) {
+            computeAggregates();
+        }
+        return variance;
+    }
+
+    @Override
+    public double getStandardDeviation() {
+        if (standardDeviation == EMPTY) {
+            computeAggregates();
+        }
+        return standardDeviation;
+    }
+
+    @Override
+    public double getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be in [0, 100], got " + percentile);
+        }
+        if (median == EMPTY) {
+            computeAggregates();
+        }
+        return sketch == null ? INVALID : sketch.getQuantile(percentile / 100);
+    }
+
+    private double getLeastMean() {
+        if (leastMean == EMPTY) {
+            computeAggregates();
+        }
+        return leastMean;
+    }
+
+    private double getMostMean() {
+        if (mostMean == EMPTY) {
+            computeAggregates();
+        }
+        return mostMean;
+    }
+
+    private double getMeanMin() {
+        if (meanMin == EMPTY) {
+            computeAggregates();
+        }
+        return meanMin;
+    }
+
+    private double getMeanMax() {
+        if (meanMax == EMPTY) {
+            computeAggregates();
+        }
+        return meanMax;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.io.binary;
+
+import de.featjar.base.data.Pair;
+import de.featjar.base.data.Problem.Severity;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.binary.ABinaryFormat;
+import de.featjar.base.io.format.ParseProblem;
+import de.featjar.base.io.input.AInputMapper;
+import de.featjar.base.io.output.AOutputMapper;
+import de.featjar.formula.analysis.VariableMap;
+import de.featjar.formula.analysis.bool.BooleanClause;
+import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.analysis.bool.CompactBooleanClauseList;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Reads / Writes a list of clauses together with the names of its variables.
+ * The variable names are stored in a string table, followed by the clauses.
+ * The literals of each clause are stored in ascending order as variable-length deltas,
+ * so clauses over nearby variables take only few bytes per literal.
+ * A CRC-32 checksum over the whole document detects truncated or corrupted files.
+ * Parsed clause lists are {@link CompactBooleanClauseList compact}.
+ */
+public class BooleanClauseListBinaryFormat extends ABinaryFormat<Pair<BooleanClauseList, VariableMap>> {
+
+    private static final byte[] MAGIC_NUMBER = {'F', 'J', 'C', 'N'};
+    private static final byte VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAXIMUM_INITIAL_CLAUSE_CAPACITY = 1 << 20;
+    private static final int MAXIMUM_INITIAL_LITERAL_CAPACITY = 1 << 22;
+
+    @Override
+    public void write(Pair<BooleanClauseList, VariableMap> cnf, AOutputMapper outputMapper) throws IOException {
+        final BooleanClauseList clauseList = cnf.getKey();
+        final VariableMap variableMap = cnf.getValue();
+        final Writer writer = new Writer(outputMapper.get().getOutputStream());
+        writer.writeBytes(MAGIC_NUMBER);
+        writer.writeBytes(new byte[] {VERSION});
+
+        final int maxIndex = variableMap.maxIndex();
+        writer.writeUnsigned(maxIndex);
+        for (int i = 1; i <= maxIndex; i++) {
+            final byte[] name = variableMap.get(i).orElse("").getBytes(StandardCharsets.UTF_8);
+            writer.writeUnsigned(name.length);
+            writer.writeBytes(name);
+        }
+
+        writer.writeUnsigned(clauseList.getVariableCount());
+        writer.writeUnsigned(clauseList.size());
+        if (clauseList instanceof CompactBooleanClauseList) {
+            final CompactBooleanClauseList compactClauseList = (CompactBooleanClauseList) clauseList;
+            final int[] literals = compactClauseList.getLiteralArray();
+            writer.writeUnsigned(compactClauseList.getLiteralCount());
+            for (int i = 0; i < compactClauseList.size(); i++) {
+                writer.writeClause(
+                        literals, compactClauseList.getClauseStart(i), compactClauseList.getClauseEnd(i));
+            }
+        } else {
+            long literalCount = 0;
+            for (final BooleanClause clause : clauseList.getAll()) {
+                literalCount += clause.size();
+            }
+            writer.writeUnsigned(literalCount);
+            for (final BooleanClause clause : clauseList.getAll()) {
+                final int[] literals = clause.get();
+                writer.writeClause(literals, 0, literals.length);
+            }
+        }
+        writer.writeChecksum();
+    }
+
+    @Override
+    public Result<Pair<BooleanClauseList, VariableMap>> parse(AInputMapper inputMapper) {
+        final Reader reader = new Reader(inputMapper.get().getInputStream());
+        try {
+            final byte[] magicNumber = new byte[MAGIC_NUMBER.length];
+            for (int i = 0; i < magicNumber.length; i++) {
+                magicNumber[i] = (byte) reader.readByte();
+            }
+            if (!Arrays.equals(MAGIC_NUMBER, magicNumber)) {
+                return Result.empty(new ParseProblem("Not a binary clause list", Severity.ERROR, 0));
+            }
+            final int version = reader.readByte();
+            if (version != VERSION) {
+                return Result.empty(new ParseProblem("Unsupported version " + version, Severity.ERROR, 0));
+            }
+
+            final VariableMap variableMap = new VariableMap();
+            final int maxIndex = reader.readInt();
+            byte[] name = new byte[0];
+            for (int i = 1; i <= maxIndex; i++) {
+                final int length = reader.readInt();
+                if (length > name.length) {
+                    name = new byte[Math.max(length, 2 * name.length)];
+                }
+                for (int j = 0; j < length; j++) {
+                    name[j] = (byte) reader.readByte();
+                }
+                if (length > 0) {
+                    variableMap.add(i, new String(name, 0, length, StandardCharsets.UTF_8));
+                }
+            }
+
+            final int variableCount = reader.readInt();
+            final int clauseCount = reader.readInt();
+            final int literalCount = reader.readInt();
+            final CompactBooleanClauseList clauseList = new CompactBooleanClauseList(
+                    Math.min(clauseCount, MAXIMUM_INITIAL_CLAUSE_CAPACITY),
+                    Math.min(literalCount, MAXIMUM_INITIAL_LITERAL_CAPACITY),
+                    variableCount);
+            int[] literals = new int[16];
+            for (int i = 0; i < clauseCount; i++) {
+                final int length = reader.readInt();
+                if (length > literalCount - clauseList.getLiteralCount()) {
+                    return Result.empty(new ParseProblem(
+                            String.format("Found more than %d literals", literalCount), Severity.ERROR, 0));
+                }
+                if (length > literals.length) {
+                    literals = new int[Math.max(length, 2 * literals.length)];
+                }
+                long literal = 0;
+                for (int j = 0; j < length; j++) {
+                    literal = j == 0 ? decodeZigZag(reader.readUnsigned()) : literal + reader.readUnsigned();
+                    if (literal == 0 || literal < Integer.MIN_VALUE || literal > Integer.MAX_VALUE) {
+                        return Result.empty(new ParseProblem("Illegal literal " + literal, Severity.ERROR, 0));
+                    }
+                    literals[j] = (int) literal;
+                }
+                clauseList.addClause(literals, length);
+            }
+            if (clauseList.getLiteralCount() != literalCount) {
+                return Result.empty(new ParseProblem(
+                        String.format("Found %d instead of %d literals", clauseList.getLiteralCount(), literalCount),
+                        Severity.ERROR,
+                        0));
+            }
+            if (!reader.readChecksum()) {
+                return Result.empty(new ParseProblem("Checksum mismatch", Severity.ERROR, 0));
+            }
+            return Result.of(new Pair<>(clauseList, variableMap));
+        } catch (final IOException e) {
+            return Result.empty(e);
+        }
+    }
+
+    private static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Buffers written bytes and computes their checksum.
+     */
+    private static class Writer {
+        private final OutputStream outputStream;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final CRC32 checksum = new CRC32();
+        private int position;
+        private int[] sortedLiterals = new int[16];
+
+        private Writer(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        private void writeClause(int[] literals, int start, int end) throws IOException {
+            final int length = end - start;
+            if (length > sortedLiterals.length) {
+                sortedLiterals = new int[Math.max(length, 2 * sortedLiterals.length)];
+            }
+            System.arraycopy(literals, start, sortedLiterals, 0, length);
+            Arrays.sort(sortedLiterals, 0, length);
+            writeUnsigned(length);
+            for (int i = 0; i < length; i++) {
+                writeUnsigned(
+                        i == 0
+                                ? encodeZigZag(sortedLiterals[0])
+                                : (long) sortedLiterals[i] - sortedLiterals[i - 1]);
+            }
+        }
+
+        private void writeUnsigned(long value) throws IOException {
+            if (position + 10 > buffer.length) {
+                flushBuffer();
+            }
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            flushBuffer();
+            checksum.update(bytes);
+            outputStream.write(bytes);
+        }
+
+        private void writeChecksum() throws IOException {
+            flushBuffer();
+            final long value = checksum.getValue();
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                outputStream.write((int) (value >>> shift) & 0xFF);
+            }
+            outputStream.flush();
+        }
+
+        private void flushBuffer() throws IOException {
+            checksum.update(buffer, 0, position);
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * Buffers read bytes and computes their checksum.
+     */
+    private static class Reader {
+        private final InputStream inputStream;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final CRC32 checksum = new CRC32();
+        private int position;
+        private int limit;
+
+        private Reader(InputStream inputStream) {
+            this.inputStream = inputStream;
+        }
+
+        private int readByte() throws IOException {
+            if (position == limit) {
+                checksum.update(buffer, 0, limit);
+                limit = inputStream.readNBytes(buffer, 0, buffer.length);
+                position = 0;
+                if (limit == 0) {
+                    throw new EOFException();
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private long readUnsigned() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable-length integer");
+        }
+
+        private int readInt() throws IOException {
+            final long value = readUnsigned();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Integer out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        private boolean readChecksum() throws IOException {
+            checksum.update(buffer, 0, position);
+            final long expectedValue = checksum.getValue();
+            long value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | readByteUnchecked();
+            }
+            return value == expectedValue;
+        }
+
+        private int readByteUnchecked() throws IOException {
+            if (position == limit) {
+                limit = inputStream.readNBytes(buffer, 0, buffer.length);
+                position = 0;
+                if (limit == 0) {
+                    throw new EOFException();
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+    }
+
+    @Override
+    public boolean supportsSerialize() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsParse() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "BooleanClauseListBinary";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "bin";
+    }
+}
@@ -22,12 +22,23 @@ package de.featjar.formula.io.dimacs;
 
 import de.featjar.base.data.Result;
 import de.featjar.base.io.format.IFormat;
+import de.featjar.base.io.format.ParseProblem;
+import de.featjar.base.io.input.AInputMapper;
+import de.featjar.base.io.output.AOutputMapper;
 import de.featjar.formula.analysis.bool.BooleanClause;
 import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.analysis.bool.CompactBooleanClauseList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
 import java.util.Objects;
 
 /**
- * Serializes a {@link BooleanClauseList} to a String in DIMACS format.
+ * Reads and writes a {@link BooleanClauseList} in DIMACS format.
+ * Parsed clause lists are {@link CompactBooleanClauseList compact} (see {@link CnfDimacsParser}).
+ * Clause lists are written incrementally, so writing to a stream does not hold the document in memory.
  *
  * @author Sebastian Krieter
  */
@@ -36,30 +47,50 @@ public class CnfDimacsFormat implements IFormat<BooleanClauseList> {
     @Override
     public Result<String> serialize(BooleanClauseList cnf) {
         Objects.requireNonNull(cnf);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            write(cnf, outputStream);
+        } catch (final IOException e) {
+            return Result.empty(e);
+        }
+        return Result.of(outputStream.toString(StandardCharsets.UTF_8));
+    }
 
-        final StringBuilder sb = new StringBuilder();
-
-        // Problem
-        sb.append(DimacsConstants.PROBLEM);
-        sb.append(' ');
-        sb.append(DimacsConstants.CNF);
-        sb.append(' ');
-        sb.append(cnf.getVariableCount());
-        sb.append(' ');
-        sb.append(cnf.size());
-        sb.append(System.lineSeparator());
+    @Override
+    public void write(BooleanClauseList cnf, AOutputMapper outputMapper) throws IOException {
+        Objects.requireNonNull(cnf);
+        write(cnf, outputMapper.get().getOutputStream());
+    }
 
-        // Clauses
-        for (final BooleanClause clause : cnf.getAll()) {
-            for (final int l : clause.get()) {
-                sb.append(l);
-                sb.append(' ');
+    private static void write(BooleanClauseList cnf, OutputStream outputStream) throws IOException {
+        final DimacsWriter writer = new DimacsWriter(outputStream);
+        writer.writeProblem(cnf.getVariableCount(), cnf.size());
+        if (cnf instanceof CompactBooleanClauseList) {
+            final CompactBooleanClauseList compactCnf = (CompactBooleanClauseList) cnf;
+            final int[] literals = compactCnf.getLiteralArray();
+            for (int i = 0; i < compactCnf.size(); i++) {
+                writer.writeClause(literals, compactCnf.getClauseStart(i), compactCnf.getClauseEnd(i));
+            }
+        } else {
+            for (final BooleanClause clause : cnf.getAll()) {
+                final int[] literals = clause.get();
+                writer.writeClause(literals, 0, literals.length);
             }
-            sb.append(DimacsConstants.CLAUSE_END);
-            sb.append(System.lineSeparator());
         }
+        writer.flush();
+    }
 
-        return Result.of(sb.toString());
+    @Override
+    public Result<BooleanClauseList> parse(AInputMapper inputMapper) {
+        final CnfDimacsParser parser = new CnfDimacsParser();
+        parser.setReadingVariableDirectory(true);
+        try {
+            return Result.of(parser.parse(inputMapper.get().getInputStream()).getKey());
+        } catch (final ParseException e) {
+            return Result.empty(new ParseProblem(e, e.getErrorOffset()));
+        } catch (final Exception e) {
+            return Result.empty(e);
+        }
     }
 
     @Override
@@ -67,6 +98,11 @@ public class CnfDimacsFormat implements IFormat<BooleanClauseList> {
         return true;
     }
 
+    @Override
+    public boolean supportsParse() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "DIMACS";
@@ -0,0 +1,605 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.io.dimacs;
+
+import de.featjar.base.data.Pair;
+import de.featjar.formula.analysis.VariableMap;
+import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.analysis.bool.CompactBooleanClauseList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parses a DIMACS CNF file directly into a {@link CompactBooleanClauseList} and a {@link VariableMap}.
+ * In contrast to {@link FormulaDimacsParser}, this parser tokenizes the raw bytes of the input,
+ * so it does not allocate any objects per line, clause, or literal.
+ * Variable and clause counts are validated in the same way as by {@link FormulaDimacsParser} with a variable
+ * directory, so variables that do not occur in any clause are allowed.
+ * Files can also be {@link #parse(Path) memory-mapped and parsed in parallel}.
+ */
+public class CnfDimacsParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAXIMUM_INITIAL_CLAUSE_CAPACITY = 1 << 20;
+    private static final int MINIMUM_CHUNK_SIZE = 1 << 22;
+    private static final int MAXIMUM_CHUNK_SIZE = 1 << 30;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int CHUNK_BOUNDARY_WINDOW_SIZE = 1 << 16;
+
+    private boolean readVariableDirectory = false;
+
+    private InputStream inputStream;
+    private ByteBuffer source;
+    private long filledByteCount;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private int lineCount;
+    private boolean isLineStart;
+    private byte[] commentBytes;
+
+    private int variableCount;
+    private int clauseCount;
+    private int maximumClauseCount;
+    private String[] variableNames;
+    private LinkedHashSet<Integer> excessVariables;
+
+    /**
+     * Sets the reading variable directory flag.
+     * If true, the parser will look for a variable directory in the comments before the first clause.
+     * This contains names for the variables which would otherwise just be numbers.
+     * Defaults to false.
+     *
+     * @param readVariableDirectory whether to read the variable directory
+     */
+    public void setReadingVariableDirectory(boolean readVariableDirectory) {
+        this.readVariableDirectory = readVariableDirectory;
+    }
+
+    /**
+     * Reads the input.
+     *
+     * @param inputStream the source to read from
+     * @return a clause list and the variable map for its variables; not null
+     * @throws IOException    if the reader encounters a problem
+     * @throws ParseException if the input does not conform to the DIMACS CNF file format
+     */
+    public Pair<BooleanClauseList, VariableMap> parse(InputStream inputStream) throws ParseException, IOException {
+        try {
+            open(inputStream, null);
+            readHeader();
+            maximumClauseCount = clauseCount;
+            return createResult(readClauses(Math.min(clauseCount, MAXIMUM_INITIAL_CLAUSE_CAPACITY)));
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Reads a file by memory-mapping it.
+     * After reading the header, the clause section is split into chunks that end with a clause,
+     * which are parsed in parallel and concatenated in file order.
+     *
+     * @param path the file to read from
+     * @return a clause list and the variable map for its variables; not null
+     * @throws IOException    if the reader encounters a problem
+     * @throws ParseException if the input does not conform to the DIMACS CNF file format
+     */
+    @SuppressWarnings("unchecked")
+    public Pair<BooleanClauseList, VariableMap> parse(Path path) throws ParseException, IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long clauseSectionStart;
+            try {
+                open(null, channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), MAXIMUM_CHUNK_SIZE)));
+                readHeader();
+                clauseSectionStart = filledByteCount - (limit - position);
+            } finally {
+                close();
+            }
+
+            final long[] chunkStarts = splitIntoChunks(channel, clauseSectionStart);
+            final int chunkCount = chunkStarts.length - 1;
+            final CompactBooleanClauseList[] chunkClauseLists = new CompactBooleanClauseList[chunkCount];
+            final Exception[] chunkExceptions = new Exception[chunkCount];
+            final LinkedHashSet<Integer>[] chunkExcessVariables = new LinkedHashSet[chunkCount];
+            IntStream.range(0, chunkCount).parallel().forEach(i -> {
+                final CnfDimacsParser chunkParser = new CnfDimacsParser();
+                chunkParser.variableCount = variableCount;
+                chunkParser.maximumClauseCount = Integer.MAX_VALUE;
+                chunkParser.excessVariables = new LinkedHashSet<>();
+                chunkParser.commentBytes = new byte[0];
+                try {
+                    final long chunkSize = chunkStarts[i + 1] - chunkStarts[i];
+                    chunkParser.open(null, channel.map(FileChannel.MapMode.READ_ONLY, chunkStarts[i], chunkSize));
+                    chunkClauseLists[i] = chunkParser.readClauses((int) Math.min(chunkSize / 16, Integer.MAX_VALUE));
+                    chunkExcessVariables[i] = chunkParser.excessVariables;
+                } catch (ParseException | IOException | RuntimeException e) {
+                    chunkExceptions[i] = e;
+                } finally {
+                    chunkParser.close();
+                }
+            });
+
+            int totalClauseCount = 0;
+            long totalLiteralCount = 0;
+            for (int i = 0; i < chunkCount; i++) {
+                if (chunkExceptions[i] instanceof ParseException) {
+                    final ParseException e = (ParseException) chunkExceptions[i];
+                    throw new ParseException(
+                            e.getMessage(), e.getErrorOffset() - 1 + countLines(channel, chunkStarts[i]));
+                } else if (chunkExceptions[i] instanceof IOException) {
+                    throw (IOException) chunkExceptions[i];
+                } else if (chunkExceptions[i] != null) {
+                    throw (RuntimeException) chunkExceptions[i];
+                }
+                totalClauseCount += chunkClauseLists[i].size();
+                totalLiteralCount += chunkClauseLists[i].getLiteralCount();
+                excessVariables.addAll(chunkExcessVariables[i]);
+            }
+            if (totalClauseCount > clauseCount) {
+                throw new ParseException(String.format("Found more than %d clauses", clauseCount), 1);
+            }
+            final CompactBooleanClauseList clauses =
+                    new CompactBooleanClauseList(totalClauseCount, (int) totalLiteralCount, variableCount);
+            for (int i = 0; i < chunkCount; i++) {
+                clauses.addClauses(chunkClauseLists[i]);
+                chunkClauseLists[i] = null;
+            }
+            return createResult(clauses);
+        }
+    }
+
+    private void open(InputStream inputStream, ByteBuffer source) {
+        this.inputStream = inputStream;
+        this.source = source;
+        filledByteCount = 0;
+        buffer = new byte[BUFFER_SIZE];
+        position = 0;
+        limit = 0;
+        lineCount = 1;
+        isLineStart = true;
+    }
+
+    private void close() {
+        inputStream = null;
+        source = null;
+        buffer = null;
+    }
+
+    /**
+     * Reads the comments and problem definition before the first clause.
+     *
+     * @throws ParseException if the input does not conform to the DIMACS CNF file format
+     */
+    private void readHeader() throws ParseException, IOException {
+        commentBytes = new byte[256];
+        variableCount = -1;
+        clauseCount = -1;
+        variableNames = new String[16];
+        excessVariables = new LinkedHashSet<>();
+
+        readComments(readVariableDirectory);
+        readProblem();
+        readComments(readVariableDirectory);
+        for (int i = variableCount + 1; i < variableNames.length; i++) {
+            if (variableNames[i] != null) {
+                excessVariables.add(i);
+            }
+        }
+    }
+
+    private Pair<BooleanClauseList, VariableMap> createResult(CompactBooleanClauseList clauses) throws ParseException {
+        final VariableMap variableMap = createVariableMap();
+        final int actualVariableCount = variableCount + excessVariables.size();
+        if (variableCount != actualVariableCount) {
+            throw new ParseException(
+                    String.format("Found %d instead of %d variables", actualVariableCount, variableCount), 1);
+        }
+        if (clauseCount != clauses.size()) {
+            throw new ParseException(String.format("Found %d instead of %d clauses", clauses.size(), clauseCount), 1);
+        }
+        return new Pair<>(clauses, variableMap);
+    }
+
+    /**
+     * {@return the start of each chunk of the clause section, followed by the end of the file}
+     * Each chunk except the last one ends with a line that is no comment and whose last token is a clause end.
+     *
+     * @param channel the file
+     * @param clauseSectionStart the start of the first clause in the file
+     */
+    private static long[] splitIntoChunks(FileChannel channel, long clauseSectionStart) throws IOException {
+        final long size = channel.size();
+        final long clauseSectionSize = size - clauseSectionStart;
+        final long targetChunkCount = (long) ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+        final long chunkSize = Math.min(
+                Math.max(MINIMUM_CHUNK_SIZE, (clauseSectionSize + targetChunkCount - 1) / targetChunkCount),
+                MAXIMUM_CHUNK_SIZE);
+        final List<Long> chunkStarts = new ArrayList<>();
+        chunkStarts.add(clauseSectionStart);
+        long chunkStart = clauseSectionStart;
+        while (size - chunkStart > chunkSize) {
+            chunkStart = findChunkStart(channel, clauseSectionStart, chunkStart + chunkSize);
+            if (chunkStart >= size) {
+                break;
+            }
+            chunkStarts.add(chunkStart);
+        }
+        chunkStarts.add(size);
+        return chunkStarts.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * {@return the first possible chunk start at or after the given position, or the end of the file}
+     *
+     * @param channel the file
+     * @param clauseSectionStart the start of the first clause in the file
+     * @param start the position to search from
+     */
+    private static long findChunkStart(FileChannel channel, long clauseSectionStart, long start) throws IOException {
+        final long size = channel.size();
+        while (start < size) {
+            final long windowStart = Math.max(clauseSectionStart, start - CHUNK_BOUNDARY_WINDOW_SIZE);
+            final long windowEnd = Math.min(size, start + CHUNK_BOUNDARY_WINDOW_SIZE);
+            final ByteBuffer window =
+                    channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+            for (int i = (int) (start - windowStart); i < window.limit(); i++) {
+                if (window.get(i) == '\n' && endsWithClause(window, i, windowStart == clauseSectionStart)) {
+                    return windowStart + i + 1;
+                }
+            }
+            start = windowEnd;
+        }
+        return size;
+    }
+
+    /**
+     * {@return whether the line before the given line end is no comment and ends with a clause end}
+     *
+     * @param window the bytes around the line
+     * @param lineEnd the index of the line end in the window
+     * @param isClauseSectionStart whether the window starts at the start of the clause section
+     */
+    private static boolean endsWithClause(ByteBuffer window, int lineEnd, boolean isClauseSectionStart) {
+        int i = lineEnd - 1;
+        while (i >= 0 && isWhitespace(window.get(i)) && window.get(i) != '\n') {
+            i--;
+        }
+        if (i < 0 || window.get(i) != '0' || (i > 0 && !isWhitespace(window.get(i - 1)))) {
+            return false;
+        }
+        if (i == 0 && !isClauseSectionStart) {
+            return false;
+        }
+        while (i >= 0 && window.get(i) != '\n') {
+            i--;
+        }
+        if (i < 0 && !isClauseSectionStart) {
+            return false;
+        }
+        for (i++; isWhitespace(window.get(i)); i++) {}
+        return window.get(i) != 'c';
+    }
+
+    /**
+     * {@return the number of the line containing the given position}
+     *
+     * @param channel the file
+     * @param end the position
+     */
+    private static int countLines(FileChannel channel, long end) throws IOException {
+        final ByteBuffer lineBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        int lineCount = 1;
+        for (long position = 0; position < end; ) {
+            lineBuffer.clear();
+            lineBuffer.limit((int) Math.min(lineBuffer.capacity(), end - position));
+            final int count = channel.read(lineBuffer, position);
+            if (count <= 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                if (lineBuffer.get(i) == '\n') {
+                    lineCount++;
+                }
+            }
+            position += count;
+        }
+        return lineCount;
+    }
+
+    private void readComments(boolean readingVariables) throws IOException {
+        while (skipWhitespace() == 'c') {
+            readComment(readingVariables);
+        }
+    }
+
+    /**
+     * Reads the problem definition.
+     *
+     * @throws ParseException if the input does not conform to the DIMACS CNF file format
+     */
+    private void readProblem() throws ParseException, IOException {
+        isLineStart = false;
+        if (next() != 'p' || !skipBlanks() || next() != 'c' || next() != 'n' || next() != 'f' || !skipBlanks()) {
+            throw new ParseException("Invalid problem format", lineCount);
+        }
+        variableCount = readCount("Variable count is not an integer");
+        if (!skipBlanks()) {
+            throw new ParseException("Invalid problem format", lineCount);
+        }
+        clauseCount = readCount("Clause count is not an integer");
+        final int c = peek();
+        if (c >= 0 && !isWhitespace(c)) {
+            throw new ParseException("Invalid problem format", lineCount);
+        }
+    }
+
+    private int readCount(String message) throws ParseException, IOException {
+        int c = peek();
+        if (c < '0' || c > '9') {
+            throw new ParseException("Invalid problem format", lineCount);
+        }
+        long count = 0;
+        while (c >= '0' && c <= '9') {
+            next();
+            count = count * 10 + (c - '0');
+            if (count > Integer.MAX_VALUE) {
+                throw new ParseException(message, lineCount);
+            }
+            c = peek();
+        }
+        return (int) count;
+    }
+
+    /**
+     * Reads all clauses.
+     *
+     * @return all clauses; not null
+     * @throws ParseException if the input does not conform to the DIMACS CNF file format
+     */
+    private CompactBooleanClauseList readClauses(int clauseCapacity) throws ParseException, IOException {
+        clauseCapacity = Math.min(clauseCapacity, MAXIMUM_INITIAL_CLAUSE_CAPACITY);
+        final CompactBooleanClauseList clauses =
+                new CompactBooleanClauseList(clauseCapacity, 4 * clauseCapacity, variableCount);
+        int[] literals = new int[16];
+        int literalCount = 0;
+        for (int c = skipWhitespace(); c >= 0; c = skipWhitespace()) {
+            if (c == 'c' && isLineStart) {
+                readComment(false);
+                continue;
+            }
+            final int literal = readLiteral();
+            if (literal == 0) {
+                addClause(clauses, literals, literalCount);
+                literalCount = 0;
+            } else {
+                if (literalCount == literals.length) {
+                    literals = Arrays.copyOf(literals, 2 * literals.length);
+                }
+                literals[literalCount++] = literal;
+                final int variable = Math.abs(literal);
+                if (variable > variableCount) {
+                    excessVariables.add(variable);
+                }
+            }
+        }
+        if (literalCount > 0) {
+            addClause(clauses, literals, literalCount);
+        }
+        return clauses;
+    }
+
+    private void addClause(CompactBooleanClauseList clauses, int[] literals, int literalCount)
+            throws ParseException {
+        if (clauses.size() == maximumClauseCount) {
+            throw new ParseException(String.format("Found more than %d clauses", clauseCount), 1);
+        }
+        clauses.addClause(literals, literalCount);
+    }
+
+    private int readLiteral() throws ParseException, IOException {
+        isLineStart = false;
+        int c = next();
+        final boolean isNegative = c == '-';
+        if (isNegative) {
+            c = next();
+        }
+        if (c < '0' || c > '9') {
+            throw new ParseException("Illegal literal", lineCount);
+        }
+        long value = c - '0';
+        while (true) {
+            if (position == limit && !fill()) {
+                c = -1;
+                break;
+            }
+            c = buffer[position];
+            if (c < '0' || c > '9') {
+                break;
+            }
+            position++;
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new ParseException("Illegal literal", lineCount);
+            }
+        }
+        if ((c >= 0 && !isWhitespace(c)) || (isNegative && value == 0)) {
+            throw new ParseException("Illegal literal", lineCount);
+        }
+        return isNegative ? (int) -value : (int) value;
+    }
+
+    /**
+     * Reads a comment up to the end of the current line.
+     *
+     * @param readingVariables whether to read the comment as an entry of the variable directory
+     */
+    private void readComment(boolean readingVariables) throws IOException {
+        next();
+        int length = 0;
+        for (int c = peek(); c >= 0 && c != '\n'; c = peek()) {
+            next();
+            if (readingVariables) {
+                if (length == commentBytes.length) {
+                    commentBytes = Arrays.copyOf(commentBytes, 2 * length);
+                }
+                commentBytes[length++] = (byte) c;
+            }
+        }
+        if (readingVariables) {
+            if (length > 0 && commentBytes[length - 1] == '\r') {
+                length--;
+            }
+            readVariableDirectoryEntry(length);
+        }
+    }
+
+    /**
+     * Reads an entry of the variable directory of the form {@code <index> <name>}.
+     *
+     * @param length the number of bytes in the comment
+     */
+    private void readVariableDirectoryEntry(int length) {
+        int start = 0;
+        while (start < length && isWhitespace(commentBytes[start])) {
+            start++;
+        }
+        int separator = start;
+        final boolean isNegative = separator < length && commentBytes[separator] == '-';
+        if (isNegative) {
+            separator++;
+        }
+        long index = 0;
+        final int digitStart = separator;
+        while (separator < length && commentBytes[separator] >= '0' && commentBytes[separator] <= '9') {
+            index = index * 10 + (commentBytes[separator++] - '0');
+            if (index > Integer.MAX_VALUE) {
+                return;
+            }
+        }
+        if (separator == digitStart || separator + 1 >= length || commentBytes[separator] != ' ') {
+            return;
+        }
+        final String name = new String(commentBytes, separator + 1, length - separator - 1, StandardCharsets.UTF_8);
+        if (isNegative || index == 0) {
+            excessVariables.add(isNegative ? (int) -index : 0);
+            return;
+        }
+        if (index >= variableNames.length) {
+            variableNames = Arrays.copyOf(variableNames, Math.max(2 * variableNames.length, (int) index + 1));
+        }
+        if (variableNames[(int) index] == null) {
+            variableNames[(int) index] = name;
+        }
+    }
+
+    private VariableMap createVariableMap() throws ParseException {
+        final VariableMap variableMap = new VariableMap();
+        for (int i = 1; i <= variableCount; i++) {
+            final String name = i < variableNames.length && variableNames[i] != null ? variableNames[i] : null;
+            if (name != null && variableMap.get(name).isPresent()) {
+                throw new ParseException(String.format("Duplicate variable name %s", name), 1);
+            }
+            variableMap.add(i, name != null ? name : Integer.toString(i));
+        }
+        return variableMap;
+    }
+
+    /**
+     * Skips all whitespace and {@return the next character, or -1 if the input is exhausted}
+     */
+    private int skipWhitespace() throws IOException {
+        while (position < limit || fill()) {
+            final int c = buffer[position] & 0xFF;
+            if (c == '\n') {
+                lineCount++;
+                isLineStart = true;
+            } else if (!isWhitespace(c)) {
+                return c;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * Skips all whitespace in the current line and {@return whether any whitespace was skipped}
+     */
+    private boolean skipBlanks() throws IOException {
+        boolean isSkipped = false;
+        for (int c = peek(); c == ' ' || c == '\t'; c = peek()) {
+            next();
+            isSkipped = true;
+        }
+        return isSkipped;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        final int c = buffer[position++] & 0xFF;
+        if (c == '\n') {
+            lineCount++;
+            isLineStart = true;
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        if (inputStream == null && source == null) {
+            return false;
+        }
+        final int count;
+        if (source != null) {
+            count = Math.min(source.remaining(), buffer.length);
+            source.get(buffer, 0, count);
+        } else {
+            count = inputStream.read(buffer, 0, buffer.length);
+        }
+        position = 0;
+        limit = Math.max(count, 0);
+        filledByteCount += limit;
+        return count > 0;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.io.dimacs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a DIMACS CNF document to an output stream through a byte buffer.
+ * Integers are formatted directly into the buffer, so writing clauses does not allocate any objects.
+ * Writes all remaining bytes on {@link #flush()}, but does not close the underlying stream.
+ */
+class DimacsWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMMENT_START = DimacsConstants.COMMENT_START.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PROBLEM_START = (DimacsConstants.PROBLEM + " " + DimacsConstants.CNF + " ")
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLAUSE_END = DimacsConstants.CLAUSE_END.getBytes(StandardCharsets.US_ASCII);
+    private static final int MAXIMUM_INTEGER_LENGTH = 11;
+
+    private final OutputStream outputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[MAXIMUM_INTEGER_LENGTH];
+    private int position;
+
+    /**
+     * Creates a new DIMACS writer.
+     *
+     * @param outputStream the output stream
+     */
+    DimacsWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Writes an entry of the variable directory.
+     *
+     * @param index the index of the variable
+     * @param name the name of the variable
+     */
+    void writeVariableDirectoryEntry(int index, String name) throws IOException {
+        writeBytes(COMMENT_START);
+        writeInteger(index);
+        writeByte(' ');
+        writeBytes(name.getBytes(StandardCharsets.UTF_8));
+        writeBytes(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes the problem definition.
+     *
+     * @param variableCount the number of variables
+     * @param clauseCount the number of clauses
+     */
+    void writeProblem(int variableCount, int clauseCount) throws IOException {
+        writeBytes(PROBLEM_START);
+        writeInteger(variableCount);
+        writeByte(' ');
+        writeInteger(clauseCount);
+        writeBytes(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes a clause.
+     *
+     * @param literals the array containing the literals of the clause
+     * @param start the index of the first literal of the clause
+     * @param end the index after the last literal of the clause
+     */
+    void writeClause(int[] literals, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            writeLiteral(literals[i]);
+        }
+        writeClauseEnd();
+    }
+
+    /**
+     * Writes a literal of the current clause.
+     *
+     * @param literal the literal
+     */
+    void writeLiteral(int literal) throws IOException {
+        writeInteger(literal);
+        writeByte(' ');
+    }
+
+    /**
+     * Ends the current clause.
+     */
+    void writeClauseEnd() throws IOException {
+        writeBytes(CLAUSE_END);
+        writeBytes(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes all buffered bytes to the output stream and flushes it.
+     */
+    void flush() throws IOException {
+        outputStream.write(buffer, 0, position);
+        position = 0;
+        outputStream.flush();
+    }
+
+    private void writeInteger(int value) throws IOException {
+        long remainder = Math.abs((long) value);
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + remainder % 10);
+            remainder /= 10;
+        } while (remainder != 0);
+        ensureCapacity(MAXIMUM_INTEGER_LENGTH);
+        if (value < 0) {
+            buffer[position++] = '-';
+        }
+        System.arraycopy(digits, start, buffer, position, digits.length - start);
+        position += digits.length - start;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length) {
+            ensureCapacity(buffer.length);
+            outputStream.write(bytes);
+        } else {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    private void writeByte(char c) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (position + length > buffer.length) {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -20,16 +20,23 @@
  */
 package de.featjar.formula.io.dimacs;
 
+import de.featjar.base.data.Pair;
 import de.featjar.base.data.Result;
 import de.featjar.base.io.format.IFormat;
 import de.featjar.base.io.format.ParseProblem;
 import de.featjar.base.io.input.AInputMapper;
+import de.featjar.base.io.output.AOutputMapper;
 import de.featjar.formula.analysis.VariableMap;
 import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.formula.IFormula;
-import de.featjar.formula.structure.formula.connective.Or;
 import de.featjar.formula.structure.formula.predicate.Literal;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.stream.Collectors;
 
 /**
  * Reads and writes feature models in the DIMACS CNF format.
@@ -41,82 +48,58 @@ public class FormulaDimacsFormat implements IFormat<IFormula> {
 
     @Override
     public Result<String> serialize(IFormula formula) {
-        if (!formula.isCNF()) {
-            return Result.empty(new IllegalArgumentException("Formula is not in CNF"));
-        }
-        VariableMap variableMap = VariableMap.of(formula);
-        final StringBuilder sb = new StringBuilder();
-        writeVariableDirectory(sb, variableMap);
-        writeProblem(sb, formula);
-        writeClauses(sb, formula, variableMap);
-        return Result.of(sb.toString());
-    }
-
-    /**
-     * Writes the variable directory.
-     *
-     * @param sb the string builder that builds the document
-     */
-    private void writeVariableDirectory(StringBuilder sb, VariableMap variableMap) {
-        variableMap.stream().forEach(p -> writeVariableDirectoryEntry(sb, p.getKey(), p.getValue()));
-    }
-
-    /**
-     * Writes an entry of the variable directory.
-     *
-     * @param sb       the string builder that builds the document
-     * @param index    index of the variable
-     */
-    private void writeVariableDirectoryEntry(StringBuilder sb, int index, String name) {
-        sb.append(DimacsConstants.COMMENT_START);
-        sb.append(index);
-        sb.append(' ');
-        sb.append(name);
-        sb.append(System.lineSeparator());
+        return getVariableMap(formula).map(variableMap -> {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try {
+                write(formula, variableMap, outputStream);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return outputStream.toString(StandardCharsets.UTF_8);
+        });
     }
 
-    /**
-     * Writes the problem description.
-     *
-     * @param sb the string builder that builds the document
-     */
-    private void writeProblem(StringBuilder sb, IFormula formula) {
-        sb.append(DimacsConstants.PROBLEM);
-        sb.append(' ');
-        sb.append(DimacsConstants.CNF);
-        sb.append(' ');
-        sb.append(formula.getVariables().size());
-        sb.append(' ');
-        sb.append(formula.getChildrenCount());
-        sb.append(System.lineSeparator());
+    @Override
+    public void write(IFormula formula, AOutputMapper outputMapper) throws IOException {
+        write(formula, getVariableMap(formula).orElseThrow(), outputMapper.get().getOutputStream());
     }
 
     /**
-     * Writes the given clause.
+     * {@return the variable map for the given formula, or a problem if it is not in CNF}
      *
-     * @param sb     the string builder that builds the document
-     * @param clause clause to transform; not null
+     * @param formula the formula
      */
-    private void writeClause(StringBuilder sb, Or clause, VariableMap variableMap) {
-        for (final IExpression child : clause.getChildren()) {
-            final Literal l = (Literal) child;
-            final Integer index = variableMap.get(l.getExpression().getName()).orElseThrow();
-            sb.append(l.isPositive() ? index : -index);
-            sb.append(' ');
+    private static Result<VariableMap> getVariableMap(IFormula formula) {
+        if (!formula.isCNF()) {
+            return Result.empty(new IllegalArgumentException("Formula is not in CNF"));
         }
-        sb.append(DimacsConstants.CLAUSE_END);
-        sb.append(System.lineSeparator());
+        return Result.of(VariableMap.of(formula));
     }
 
     /**
-     * Writes all clauses.
+     * Writes the variable directory, the problem description, and all clauses.
+     * The number of variables is taken from the variable map, so the formula is not traversed again.
      *
-     * @param sb the string builder that builds the document
+     * @param formula the formula in CNF
+     * @param variableMap the variable map of the formula
+     * @param outputStream the output stream
      */
-    private void writeClauses(StringBuilder sb, IFormula formula, VariableMap variableMap) {
+    private static void write(IFormula formula, VariableMap variableMap, OutputStream outputStream)
+            throws IOException {
+        final DimacsWriter writer = new DimacsWriter(outputStream);
+        for (final Pair<Integer, String> entry : variableMap.stream().collect(Collectors.toList())) {
+            writer.writeVariableDirectoryEntry(entry.getKey(), entry.getValue());
+        }
+        writer.writeProblem(variableMap.getVariableCount(), formula.getChildrenCount());
         for (final IExpression clause : formula.getChildren()) {
-            writeClause(sb, (Or) clause, variableMap);
+            for (final IExpression child : clause.getChildren()) {
+                final Literal l = (Literal) child;
+                final int index = variableMap.get(l.getExpression().getName()).orElseThrow();
+                writer.writeLiteral(l.isPositive() ? index : -index);
+            }
+            writer.writeClauseEnd();
         }
+        writer.flush();
     }
 
     @Override
@@ -28,31 +28,91 @@ import de.featjar.base.tree.Trees;
 import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.formula.IFormula;
 import de.featjar.formula.structure.formula.connective.And;
+import de.featjar.formula.structure.formula.connective.AtMost;
+import de.featjar.formula.structure.formula.connective.AtMostOneEncoding;
 import de.featjar.formula.structure.formula.connective.Not;
 import de.featjar.formula.structure.formula.connective.Or;
 import de.featjar.formula.structure.formula.predicate.Literal;
+import de.featjar.formula.transformer.CNFCache;
 import de.featjar.formula.transformer.ComputeCNFFormula;
 import de.featjar.formula.transformer.ComputeNNFFormula;
 import de.featjar.formula.visitor.AndOrSimplifier;
-import de.featjar.formula.visitor.ConnectiveSimplifier;
+import de.featjar.formula.visitor.CardinalityEncoder;
 import de.featjar.formula.visitor.DeMorganApplier;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 /**
  * Parses feature model CNF formulas from FeatureIDE XML files. Returns a
  * formula that is already partially in CNF, except for cross-tree constraints. TODO: actually, this actively transforms...?
+ * Alternative groups and cross-tree constraints that consist of a single at-most-one constraint over features are
+ * encoded with a configurable {@link AtMostOneEncoding}, other at-most-one constraints are encoded pairwise.
+ * By default, all at-most-one constraints are encoded pairwise, so the returned formula is equivalent to the feature
+ * model and has the same solutions.
+ * Encodings with auxiliary variables (see {@link CardinalityEncoder#AUXILIARY_VARIABLE_NAME_PREFIX}) must be enabled
+ * explicitly, as they only preserve satisfiability: the auxiliary variables are not functionally determined by the
+ * features, so they appear in the variable map and may multiply the number of solutions of the returned formula.
+ * Auxiliary variables of the n-th transformed cross-tree constraint are placed in scope n
+ * (see {@link CardinalityEncoder#setScope(IFormula, String)}), so their names only depend on the parsed model.
+ * The CNF transformations of cross-tree constraints are cached in a bounded {@link CNFCache}, which is shared by all
+ * instances created with {@link #getInstance()}, so reloading a model only transforms changed constraints.
  *
  * @author Sebastian Krieter
  * @author Elias Kuiter
  */
 public class XMLFeatureModelCNFFormulaFormat extends XMLFeatureModelFormulaFormat {
+    protected AtMostOneEncoding atMostOneEncoding = AtMostOneEncoding.PAIRWISE;
+    protected CardinalityEncoder cardinalityEncoder = new CardinalityEncoder();
+    protected int constraintIndex = 0;
+    protected CNFCache cnfCache = new CNFCache();
+
     @Override
     public XMLFeatureModelCNFFormulaFormat getInstance() {
-        return new XMLFeatureModelCNFFormulaFormat();
+        XMLFeatureModelCNFFormulaFormat format = new XMLFeatureModelCNFFormulaFormat();
+        format.setAtMostOneEncoding(atMostOneEncoding);
+        format.setCNFCache(cnfCache);
+        return format;
+    }
+
+    /**
+     * {@return the encoding for alternative groups and at-most-one constraints}
+     */
+    public AtMostOneEncoding getAtMostOneEncoding() {
+        return atMostOneEncoding;
+    }
+
+    /**
+     * Sets the encoding for alternative groups and at-most-one constraints.
+     * By default, groups are encoded pairwise (see {@link AtMostOneEncoding#PAIRWISE}), which introduces no
+     * auxiliary variables.
+     * Other encodings (e.g., {@link AtMostOneEncoding#AUTOMATIC}) require fewer clauses for large groups, but change
+     * the number of solutions, so they should not be used for counting or sampling configurations.
+     * Does not apply to at-most-one constraints nested in other cross-tree constraints, which are always encoded
+     * pairwise, as they may occur negated.
+     *
+     * @param atMostOneEncoding the at-most-one encoding
+     */
+    public void setAtMostOneEncoding(AtMostOneEncoding atMostOneEncoding) {
+        this.atMostOneEncoding = atMostOneEncoding;
+    }
+
+    /**
+     * {@return the cache for the CNF transformations of cross-tree constraints}
+     */
+    public CNFCache getCNFCache() {
+        return cnfCache;
+    }
+
+    /**
+     * Sets the cache for the CNF transformations of cross-tree constraints.
+     * Use {@link CNFCache#NONE} to disable caching.
+     *
+     * @param cnfCache the CNF cache
+     */
+    public void setCNFCache(CNFCache cnfCache) {
+        this.cnfCache = cnfCache;
     }
 
     @Override
@@ -62,6 +122,8 @@ public class XMLFeatureModelCNFFormulaFormat extends XMLFeatureModelFormulaForma
 
     @Override
     protected IExpression parseDocument(Document document) throws ParseException {
+        cardinalityEncoder = new CardinalityEncoder();
+        constraintIndex = 0;
         final Element featureModelElement = getDocumentElement(document, FEATURE_MODEL);
         parseFeatureTree(getElement(featureModelElement, STRUCT));
         Result<Element> constraintsElement = getElementResult(featureModelElement, CONSTRAINTS);
@@ -72,19 +134,39 @@ public class XMLFeatureModelCNFFormulaFormat extends XMLFeatureModelFormulaForma
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     protected void addConstraint(Boolean constraintLabel, IFormula formula) throws ParseException {
+        if (isAtMostOneOfLiterals(formula)) {
+            super.addConstraint(constraintLabel, encodeAtMostOne((List<? extends IFormula>) formula.getChildren()));
+            return;
+        }
         IFormula transformedExpression = async(formula)
                 .map(ComputeNNFFormula::new)
                 .map(ComputeCNFFormula::new)
+                .set(ComputeCNFFormula.CNF_CACHE, cnfCache)
                 .computeUncachedResult()
                 .orElseThrow(p -> new ParseException("failed to transform " + formula));
+        CardinalityEncoder.setScope(transformedExpression, String.valueOf(++constraintIndex));
         super.addConstraint(constraintLabel, transformedExpression);
     }
 
     @Override
-    protected IFormula atMostOne(List<? extends IFormula> parseFeatures) {
-        return new And(ConnectiveSimplifier.groupElements(
-                parseFeatures.stream().map(Not::new).collect(Collectors.toList()), 1, parseFeatures.size()));
+    protected void addAlternativeGroup(Literal featureLabel, List<Literal> childFeatureLabels) {
+        if (childFeatureLabels.size() == 1) {
+            constraints.add(implies(featureLabel, childFeatureLabels.get(0)));
+        } else {
+            constraints.add(new And(implies(featureLabel, childFeatureLabels), encodeAtMostOne(childFeatureLabels)));
+        }
+    }
+
+    private IFormula encodeAtMostOne(List<? extends IFormula> elements) {
+        return new And(cardinalityEncoder.atMostOne(elements, atMostOneEncoding));
+    }
+
+    private static boolean isAtMostOneOfLiterals(IFormula formula) {
+        return formula instanceof AtMost
+                && ((AtMost) formula).getMaximum() == 1
+                && formula.getChildren().stream().allMatch(child -> child instanceof Literal);
     }
 
     @Override
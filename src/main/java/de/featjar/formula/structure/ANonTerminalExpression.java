@@ -32,6 +32,9 @@ import java.util.Objects;
  * @author Elias Kuiter
  */
 public abstract class ANonTerminalExpression extends ATree<IExpression> implements IExpression {
+    private volatile long hashCodeEpoch = HashCodeCache.INVALID_EPOCH;
+    private int hashCode;
+
     protected ANonTerminalExpression(IExpression... children) {
         if (children.length > 0) super.setChildren(Arrays.asList(children));
     }
@@ -52,6 +55,100 @@ public abstract class ANonTerminalExpression extends ATree<IExpression> implemen
         return Objects.hash(getClass(), getName(), getType());
     }
 
+    /**
+     * {@return the structural hash code of this expression}
+     * The hash code is cached and combines the cached hash codes of the children, so it is computed bottom-up in
+     * linear time once, and afterwards returned in constant time until this expression or any of its descendants
+     * is modified (see {@link HashCodeCache}).
+     */
+    @Override
+    public int hashCode() {
+        final long epoch = HashCodeCache.getEpoch();
+        if (hashCodeEpoch != epoch) {
+            int hashCode = hashCodeNode();
+            for (final IExpression child : getChildren()) {
+                hashCode = 31 * hashCode + child.hashCode();
+            }
+            this.hashCode = hashCode;
+            hashCodeEpoch = epoch;
+        }
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof IExpression)) {
+            return false;
+        }
+        if (other instanceof ANonTerminalExpression) {
+            // only compare hash codes that are already cached, which are never stale
+            final long epoch = HashCodeCache.getEpoch();
+            final ANonTerminalExpression otherExpression = (ANonTerminalExpression) other;
+            if (hashCodeEpoch == epoch
+                    && otherExpression.hashCodeEpoch == epoch
+                    && hashCode != otherExpression.hashCode) {
+                return false;
+            }
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public void setChildren(List<? extends IExpression> children) {
+        super.setChildren(children);
+        invalidateHashCode();
+    }
+
+    @Override
+    public void addChild(IExpression newChild) {
+        super.addChild(newChild);
+        invalidateHashCode();
+    }
+
+    @Override
+    public void addChild(int index, IExpression newChild) {
+        super.addChild(index, newChild);
+        invalidateHashCode();
+    }
+
+    @Override
+    public void removeChild(IExpression child) {
+        super.removeChild(child);
+        invalidateHashCode();
+    }
+
+    @Override
+    public IExpression removeChild(int index) {
+        final IExpression child = super.removeChild(index);
+        invalidateHashCode();
+        return child;
+    }
+
+    @Override
+    public void replaceChild(IExpression oldChild, IExpression newChild) {
+        super.replaceChild(oldChild, newChild);
+        invalidateHashCode();
+    }
+
+    @Override
+    public void clearChildren() {
+        super.clearChildren();
+        invalidateHashCode();
+    }
+
+    /**
+     * Invalidates the cached hash code of this expression and, if necessary, of all expressions containing it.
+     * Must be called after any modification that affects {@link #equalsNode(IExpression)}.
+     * All methods that modify the children of this expression already call this.
+     */
+    protected void invalidateHashCode() {
+        HashCodeCache.invalidate(hashCodeEpoch);
+        hashCodeEpoch = HashCodeCache.INVALID_EPOCH;
+    }
+
     @Override
     public String toString() {
         if (hasChildren()) {
@@ -30,6 +30,8 @@ import java.util.Objects;
  * @author Elias Kuiter
  */
 public abstract class ATerminalExpression extends ALeafNode<IExpression> implements IExpression {
+    private volatile long hashCodeEpoch = HashCodeCache.INVALID_EPOCH;
+
     @Override
     public boolean equalsNode(IExpression other) {
         return (getClass() == other.getClass())
@@ -42,6 +44,24 @@ public abstract class ATerminalExpression extends ALeafNode<IExpression> impleme
         return Objects.hash(getClass(), getName(), getType());
     }
 
+    @Override
+    public int hashCode() {
+        final long epoch = HashCodeCache.getEpoch();
+        if (hashCodeEpoch != epoch) {
+            hashCodeEpoch = epoch;
+        }
+        return hashCodeNode();
+    }
+
+    /**
+     * Invalidates the cached hash codes of all expressions containing this expression, if necessary.
+     * Must be called after any modification that affects {@link #equalsNode(IExpression)}.
+     */
+    protected void invalidateHashCode() {
+        HashCodeCache.invalidate(hashCodeEpoch);
+        hashCodeEpoch = HashCodeCache.INVALID_EPOCH;
+    }
+
     @Override
     public String toString() {
         return getName();
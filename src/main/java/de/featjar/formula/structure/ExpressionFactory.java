@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.structure;
+
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.connective.And;
+import de.featjar.formula.structure.formula.connective.AtLeast;
+import de.featjar.formula.structure.formula.connective.AtMost;
+import de.featjar.formula.structure.formula.connective.Between;
+import de.featjar.formula.structure.formula.connective.BiImplies;
+import de.featjar.formula.structure.formula.connective.Choose;
+import de.featjar.formula.structure.formula.connective.Implies;
+import de.featjar.formula.structure.formula.connective.Not;
+import de.featjar.formula.structure.formula.connective.Or;
+import de.featjar.formula.structure.formula.predicate.False;
+import de.featjar.formula.structure.formula.predicate.Literal;
+import de.featjar.formula.structure.formula.predicate.True;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates hash-consed expressions.
+ * That is, all expressions created or {@link #intern(IExpression) interned} by a factory are canonical:
+ * structurally equal expressions are represented by the same object, so they can be compared by identity and
+ * common subexpressions are shared instead of duplicated.
+ * Lookups only consider a node and the identities of its (already canonical) children,
+ * so each node is hashed once in time linear to its number of children, regardless of the size of its subtree.
+ * Canonical expressions may be shared by several parents and must therefore not be mutated.
+ * Unlike {@link Expressions}, a factory is stateful and not thread-safe.
+ */
+public class ExpressionFactory {
+
+    /**
+     * Identifies a node by its own attributes and the identities of its children.
+     */
+    private static final class Key {
+        private final IExpression node;
+        private final List<? extends IExpression> children;
+        private final int hashCode;
+
+        private Key(IExpression node, List<? extends IExpression> children) {
+            this.node = node;
+            this.children = children;
+            int hashCode = node.hashCodeNode();
+            for (final IExpression child : children) {
+                hashCode = 31 * hashCode + System.identityHashCode(child);
+            }
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            if (hashCode != other.hashCode || children.size() != other.children.size()) {
+                return false;
+            }
+            for (int i = 0; i < children.size(); i++) {
+                if (children.get(i) != other.children.get(i)) {
+                    return false;
+                }
+            }
+            return node.equalsNode(other.node);
+        }
+    }
+
+    private final HashMap<Key, IExpression> expressions = new HashMap<>();
+    private final Set<IExpression> canonicalExpressions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * {@return the canonical expression structurally equal to the given expression}
+     * Does not modify the given expression.
+     * If no such canonical expression exists yet, a copy of the given expression is made canonical.
+     *
+     * @param expression the expression
+     * @param <T> the type of the expression
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends IExpression> T intern(T expression) {
+        if (canonicalExpressions.contains(expression)) {
+            return expression;
+        }
+        // iterative post-order traversal, as expressions may be too deep for recursion
+        final ArrayList<IExpression> expressionStack = new ArrayList<>();
+        final ArrayList<IExpression> internedStack = new ArrayList<>();
+        int[] childIndexStack = new int[16];
+        expressionStack.add(expression);
+        while (!expressionStack.isEmpty()) {
+            final int depth = expressionStack.size() - 1;
+            final IExpression current = expressionStack.get(depth);
+            final List<? extends IExpression> children = current.getChildren();
+            if (depth + 1 >= childIndexStack.length) {
+                childIndexStack = Arrays.copyOf(childIndexStack, childIndexStack.length << 1);
+            }
+            final int childIndex = childIndexStack[depth];
+            if (childIndex < children.size()) {
+                childIndexStack[depth] = childIndex + 1;
+                final IExpression child = children.get(childIndex);
+                if (canonicalExpressions.contains(child)) {
+                    internedStack.add(child);
+                } else {
+                    childIndexStack[depth + 1] = 0;
+                    expressionStack.add(child);
+                }
+                continue;
+            }
+            expressionStack.remove(depth);
+            final int childrenStart = internedStack.size() - children.size();
+            final List<IExpression> internedChildren =
+                    new ArrayList<>(internedStack.subList(childrenStart, internedStack.size()));
+            internedStack.subList(childrenStart, internedStack.size()).clear();
+            internedStack.add(lookup(current, internedChildren));
+        }
+        return (T) internedStack.get(0);
+    }
+
+    private IExpression lookup(IExpression node, List<IExpression> internedChildren) {
+        IExpression expression = expressions.get(new Key(node, internedChildren));
+        if (expression == null) {
+            expression = node.cloneNode();
+            if (!internedChildren.isEmpty()) {
+                expression.setChildren(internedChildren);
+            }
+            expressions.put(new Key(expression, expression.getChildren()), expression);
+            canonicalExpressions.add(expression);
+        }
+        return expression;
+    }
+
+    /**
+     * {@return whether the given expression is canonical for this factory}
+     *
+     * @param expression the expression
+     */
+    public boolean isCanonical(IExpression expression) {
+        return canonicalExpressions.contains(expression);
+    }
+
+    /**
+     * {@return the number of canonical expressions of this factory}
+     */
+    public int size() {
+        return expressions.size();
+    }
+
+    /**
+     * Removes all canonical expressions from this factory.
+     * Previously created expressions remain valid, but are no longer shared with newly created expressions.
+     */
+    public void clear() {
+        expressions.clear();
+        canonicalExpressions.clear();
+    }
+
+    private IFormula[] internAll(IFormula[] formulas) {
+        final IFormula[] internedFormulas = new IFormula[formulas.length];
+        for (int i = 0; i < formulas.length; i++) {
+            internedFormulas[i] = intern(formulas[i]);
+        }
+        return internedFormulas;
+    }
+
+    /**
+     * {@return the canonical tautology}
+     */
+    public True trueFormula() {
+        return intern(True.INSTANCE);
+    }
+
+    /**
+     * {@return the canonical contradiction}
+     */
+    public False falseFormula() {
+        return intern(False.INSTANCE);
+    }
+
+    /**
+     * {@return a canonical formula that evaluates to {@code true} iff all of the given formulas evaluate to {@code true}}
+     *
+     * @param formulas the formulas
+     * @see Expressions#and(IFormula...)
+     */
+    public And and(IFormula... formulas) {
+        return intern(new And(internAll(formulas)));
+    }
+
+    /**
+     * {@return a canonical formula that evaluates to {@code true} iff at least one of the given formulas evaluate to {@code true}}
+     *
+     * @param formulas the formulas
+     * @see Expressions#or(IFormula...)
+     */
+    public Or or(IFormula... formulas) {
+        return intern(new Or(internAll(formulas)));
+    }
+
+    /**
+     * {@return a canonical formula that evaluates to {@code true} iff the given formula evaluates to {@code false}}
+     *
+     * @param formula the formula
+     * @see Expressions#not(IFormula)
+     */
+    public Not not(IFormula formula) {
+        return intern(new Not(intern(formula)));
+    }
+
+    /**
+     * {@return a canonical formula that evaluates to {@code true} iff the given left formula evaluates to {@code false} or
+     * the given right formula evaluates to {@code true}}
+     *
+     * @param leftFormula the left formula
+     * @param rightFormula the right formula
+     * @see Expressions#implies(IFormula, IFormula)
+     */
+    public Implies implies(IFormula leftFormula, IFormula rightFormula) {
+        return intern(new Implies(intern(leftFormula), intern(rightFormula)));
+    }
+
+    /**
+     * {@return a canonical formula that evaluates to {@code true} iff both given formulas evaluate to the same value}
+     *
+     * @param leftFormula the left formula
+     * @param rightFormula the right formula
+     * @see Expressions#biImplies(IFormula, IFormula)
+     */
+    public BiImplies biImplies(IFormula leftFormula, IFormula rightFormula) {
+        return intern(new BiImplies(intern(leftFormula), intern(rightFormula)));
+    }
+
+    /**
+     * {@return a canonical formula that evaluates to {@code true} iff at least a given number of the given formulas evaluate to {@code true}}
+     *
+     * @param minimum the minimum
+     * @param formulas the formulas
+     * @see Expressions#atLeast(int, IFormula...)
+     */
+    public AtLeast atLeast(int minimum, IFormula... formulas) {
+        return intern(new AtLeast(minimum, internAll(formulas)));
+    }
+
+    /**
+     * {@return a canonical formula that evaluates to {@code true} iff at most a given number of the given formulas evaluate to {@code true}}
+     *
+     * @param maximum the maximum
+     * @param formulas the formulas
+     * @see Expressions#atMost(int, IFormula...)
+     */
+    public AtMost atMost(int maximum, IFormula... formulas) {
+        return intern(new AtMost(maximum, internAll(formulas)));
+    }
+
+    /**
+     * {@return a canonical formula that evaluates to {@code true} iff the number of the given formulas that evaluate to {@code true} is in a given range}
+     *
+     * @param minimum the minimum
+     * @param maximum the maximum
+     * @param formulas the formulas
+     * @see Expressions#between(int, int, IFormula...)
+     */
+    public Between between(int minimum, int maximum, IFormula... formulas) {
+        return intern(new Between(minimum, maximum, internAll(formulas)));
+    }
+
+    /**
+     * {@return a canonical formula that evaluates to {@code true} iff the number of the given formulas that evaluate to {@code true} is equal to a given number}
+     *
+     * @param bound the bound
+     * @param formulas the formulas
+     * @see Expressions#choose(int, IFormula...)
+     */
+    public Choose choose(int bound, IFormula... formulas) {
+        return intern(new Choose(bound, internAll(formulas)));
+    }
+
+    /**
+     * {@return a canonical literal that evaluates to {@code true} iff the given variable has the given truth value}
+     *
+     * @param isPositive whether the literal is positive
+     * @param variableName the variable name
+     * @see Expressions#literal(boolean, String)
+     */
+    public Literal literal(boolean isPositive, String variableName) {
+        return intern(new Literal(isPositive, variable(variableName)));
+    }
+
+    /**
+     * {@return a canonical positive literal that evaluates to {@code true} iff the given variable is {@code true}}
+     *
+     * @param variableName the variable name
+     * @see Expressions#literal(String)
+     */
+    public Literal literal(String variableName) {
+        return literal(true, variableName);
+    }
+
+    /**
+     * {@return a canonical Boolean variable}
+     *
+     * @param variableName the variable name
+     * @see Expressions#variable(String)
+     */
+    public Variable variable(String variableName) {
+        return intern(new Variable(variableName));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.structure;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the validity of cached hash codes of expressions.
+ * Each expression caches its own hash code, which is invalidated by its own modifications.
+ * Expressions do not know their parents, so if an expression whose hash code may be part of another valid cached
+ * hash code is modified, the epoch is advanced, which invalidates all cached hash codes.
+ * Expressions that are created and modified before being hashed, as is common in transformations, never advance
+ * the epoch.
+ */
+final class HashCodeCache {
+    /**
+     * Epoch of a hash code that is not cached.
+     */
+    static final long INVALID_EPOCH = -1;
+
+    private static final AtomicLong epoch = new AtomicLong();
+
+    private HashCodeCache() {}
+
+    /**
+     * {@return the current epoch}
+     * A cached hash code is only valid if it was computed in the current epoch.
+     */
+    static long getEpoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Invalidates cached hash codes after an expression hashed in the given epoch has been modified.
+     * If the expression was hashed in the current epoch, its hash code may be part of other cached hash codes,
+     * so the epoch is advanced.
+     *
+     * @param hashCodeEpoch the epoch in which the modified expression was last hashed
+     */
+    static void invalidate(long hashCodeEpoch) {
+        if (hashCodeEpoch == epoch.get()) {
+            epoch.compareAndSet(hashCodeEpoch, hashCodeEpoch + 1);
+        }
+    }
+}
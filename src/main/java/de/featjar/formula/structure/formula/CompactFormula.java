@@ -0,0 +1,654 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.structure.formula;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.analysis.value.ValueAssignment;
+import de.featjar.formula.structure.ExpressionKind;
+import de.featjar.formula.structure.ExpressionKindNotSupportedException;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.formula.connective.And;
+import de.featjar.formula.structure.formula.connective.AtLeast;
+import de.featjar.formula.structure.formula.connective.AtMost;
+import de.featjar.formula.structure.formula.connective.Between;
+import de.featjar.formula.structure.formula.connective.BiImplies;
+import de.featjar.formula.structure.formula.connective.Choose;
+import de.featjar.formula.structure.formula.connective.Implies;
+import de.featjar.formula.structure.formula.connective.Not;
+import de.featjar.formula.structure.formula.connective.Or;
+import de.featjar.formula.structure.formula.connective.Reference;
+import de.featjar.formula.structure.formula.predicate.False;
+import de.featjar.formula.structure.formula.predicate.Literal;
+import de.featjar.formula.structure.formula.predicate.True;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A compact, immutable encoding of a Boolean {@link IFormula}.
+ * Instead of one object per node, all nodes are stored in primitive arrays in post-order (i.e., children precede
+ * their parent and the root is the last node).
+ * For each node, the arrays store its kind, a value (a signed variable index for literals, a bound index for
+ * cardinality constraints), and the offset of its children in a shared child index array.
+ * Variable names are interned, so each variable name is stored only once.
+ * This requires roughly an order of magnitude less memory than an {@link IExpression} tree, which allows to
+ * load and analyze large formulas.
+ * Supports all expressions of {@link ExpressionKind#BOOLEAN} and {@link Reference}.
+ *
+ * @see #toFormula()
+ */
+public class CompactFormula {
+
+    public static final byte TRUE = 0;
+    public static final byte FALSE = 1;
+    public static final byte LITERAL = 2;
+    public static final byte NOT = 3;
+    public static final byte AND = 4;
+    public static final byte OR = 5;
+    public static final byte IMPLIES = 6;
+    public static final byte BI_IMPLIES = 7;
+    public static final byte AT_LEAST = 8;
+    public static final byte AT_MOST = 9;
+    public static final byte BETWEEN = 10;
+    public static final byte CHOOSE = 11;
+    public static final byte REFERENCE = 12;
+
+    private static final byte VALUE_FALSE = 0;
+    private static final byte VALUE_TRUE = 1;
+    private static final byte VALUE_UNKNOWN = 2;
+
+    private final byte[] kinds;
+    private final int[] values;
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int[] bounds;
+    private final String[] variableNames;
+    private final HashMap<String, Integer> variableIndices;
+
+    /**
+     * Creates a compact encoding of a given formula.
+     *
+     * @param formula the formula
+     * @throws ExpressionKindNotSupportedException if the formula contains non-Boolean expressions
+     */
+    public CompactFormula(IFormula formula) {
+        final int expectedSize = 16;
+        byte[] kinds = new byte[expectedSize];
+        int[] values = new int[expectedSize];
+        int[] childOffsets = new int[expectedSize + 1];
+        int[] children = new int[expectedSize];
+        int[] bounds = new int[0];
+        int nodeCount = 0;
+        int childCount = 0;
+        int boundCount = 0;
+        final ArrayList<String> variableNames = new ArrayList<>();
+        final HashMap<String, Integer> variableIndices = new HashMap<>();
+
+        // iterative post-order traversal, as formulas may be too deep for recursion
+        final ArrayList<IExpression> expressionStack = new ArrayList<>();
+        int[] childIndexStack = new int[expectedSize];
+        int[] nodeStack = new int[expectedSize];
+        int nodeStackSize = 0;
+        expressionStack.add(formula);
+        while (!expressionStack.isEmpty()) {
+            final int depth = expressionStack.size() - 1;
+            final IExpression expression = expressionStack.get(depth);
+            final byte kind = getKind(expression);
+            final List<? extends IExpression> expressionChildren =
+                    kind == LITERAL ? List.of() : expression.getChildren();
+            if (depth >= childIndexStack.length) {
+                childIndexStack = Arrays.copyOf(childIndexStack, childIndexStack.length << 1);
+            }
+            final int childIndex = childIndexStack[depth];
+            if (childIndex < expressionChildren.size()) {
+                childIndexStack[depth] = childIndex + 1;
+                if (depth + 1 >= childIndexStack.length) {
+                    childIndexStack = Arrays.copyOf(childIndexStack, childIndexStack.length << 1);
+                }
+                childIndexStack[depth + 1] = 0;
+                expressionStack.add(expressionChildren.get(childIndex));
+                continue;
+            }
+            expressionStack.remove(depth);
+
+            if (nodeCount == kinds.length) {
+                final int newLength = kinds.length << 1;
+                kinds = Arrays.copyOf(kinds, newLength);
+                values = Arrays.copyOf(values, newLength);
+                childOffsets = Arrays.copyOf(childOffsets, newLength + 1);
+            }
+            final int node = nodeCount++;
+            kinds[node] = kind;
+            final int nodeChildCount = expressionChildren.size();
+            if (childCount + nodeChildCount > children.length) {
+                children = Arrays.copyOf(children, Math.max(children.length << 1, childCount + nodeChildCount));
+            }
+            nodeStackSize -= nodeChildCount;
+            System.arraycopy(nodeStack, nodeStackSize, children, childCount, nodeChildCount);
+            childCount += nodeChildCount;
+            childOffsets[node + 1] = childCount;
+
+            switch (kind) {
+                case LITERAL:
+                    final Literal literal = (Literal) expression;
+                    final String name = ((Variable) literal.getExpression()).getName();
+                    Integer variable = variableIndices.get(name);
+                    if (variable == null) {
+                        variableNames.add(name);
+                        variable = variableNames.size();
+                        variableIndices.put(name, variable);
+                    }
+                    values[node] = literal.isPositive() ? variable : -variable;
+                    break;
+                case AT_LEAST:
+                case AT_MOST:
+                case BETWEEN:
+                case CHOOSE:
+                    if (boundCount + 2 > bounds.length) {
+                        bounds = Arrays.copyOf(bounds, Math.max(8, bounds.length << 1));
+                    }
+                    setBounds(expression, kind, bounds, boundCount);
+                    values[node] = boundCount;
+                    boundCount += 2;
+                    break;
+                default:
+                    break;
+            }
+
+            if (nodeStackSize == nodeStack.length) {
+                nodeStack = Arrays.copyOf(nodeStack, nodeStack.length << 1);
+            }
+            nodeStack[nodeStackSize++] = node;
+        }
+
+        this.kinds = Arrays.copyOf(kinds, nodeCount);
+        this.values = Arrays.copyOf(values, nodeCount);
+        this.childOffsets = Arrays.copyOf(childOffsets, nodeCount + 1);
+        this.children = Arrays.copyOf(children, childCount);
+        this.bounds = Arrays.copyOf(bounds, boundCount);
+        this.variableNames = variableNames.toArray(new String[0]);
+        this.variableIndices = variableIndices;
+    }
+
+    private static byte getKind(IExpression expression) {
+        if (expression instanceof Literal) {
+            if (!(((Literal) expression).getExpression() instanceof Variable)) {
+                throw new ExpressionKindNotSupportedException(ExpressionKind.BOOLEAN);
+            }
+            return LITERAL;
+        } else if (expression instanceof And) {
+            return AND;
+        } else if (expression instanceof Or) {
+            return OR;
+        } else if (expression instanceof Not) {
+            return NOT;
+        } else if (expression instanceof True) {
+            return TRUE;
+        } else if (expression instanceof False) {
+            return FALSE;
+        } else if (expression instanceof Implies) {
+            return IMPLIES;
+        } else if (expression instanceof BiImplies) {
+            return BI_IMPLIES;
+        } else if (expression instanceof AtLeast) {
+            return AT_LEAST;
+        } else if (expression instanceof AtMost) {
+            return AT_MOST;
+        } else if (expression instanceof Between) {
+            return BETWEEN;
+        } else if (expression instanceof Choose) {
+            return CHOOSE;
+        } else if (expression instanceof Reference) {
+            return REFERENCE;
+        } else {
+            throw new ExpressionKindNotSupportedException(ExpressionKind.BOOLEAN);
+        }
+    }
+
+    private static void setBounds(IExpression expression, byte kind, int[] bounds, int index) {
+        switch (kind) {
+            case AT_LEAST:
+                bounds[index] = ((AtLeast) expression).getMinimum();
+                bounds[index + 1] = Integer.MAX_VALUE;
+                break;
+            case AT_MOST:
+                bounds[index] = 0;
+                bounds[index + 1] = ((AtMost) expression).getMaximum();
+                break;
+            case BETWEEN:
+                bounds[index] = ((Between) expression).getMinimum();
+                bounds[index + 1] = ((Between) expression).getMaximum();
+                break;
+            case CHOOSE:
+                bounds[index] = ((Choose) expression).getBound();
+                bounds[index + 1] = bounds[index];
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * {@return a new expression tree equal to the encoded formula}
+     */
+    public IFormula toFormula() {
+        final IFormula[] formulas = new IFormula[kinds.length];
+        for (int node = 0; node < kinds.length; node++) {
+            final int start = childOffsets[node];
+            final int end = childOffsets[node + 1];
+            final List<IFormula> nodeChildren = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                nodeChildren.add(formulas[children[i]]);
+                formulas[children[i]] = null;
+            }
+            final IFormula formula;
+            switch (kinds[node]) {
+                case TRUE:
+                    formula = True.INSTANCE;
+                    break;
+                case FALSE:
+                    formula = False.INSTANCE;
+                    break;
+                case LITERAL:
+                    formula = new Literal(values[node] > 0, variableNames[Math.abs(values[node]) - 1]);
+                    break;
+                case NOT:
+                    formula = new Not(nodeChildren);
+                    break;
+                case AND:
+                    formula = new And(nodeChildren);
+                    break;
+                case OR:
+                    formula = new Or(nodeChildren);
+                    break;
+                case IMPLIES:
+                    formula = new Implies(nodeChildren);
+                    break;
+                case BI_IMPLIES:
+                    formula = new BiImplies(nodeChildren);
+                    break;
+                case AT_LEAST:
+                    formula = new AtLeast(bounds[values[node]], nodeChildren);
+                    break;
+                case AT_MOST:
+                    formula = new AtMost(bounds[values[node] + 1], nodeChildren);
+                    break;
+                case BETWEEN:
+                    formula = new Between(bounds[values[node]], bounds[values[node] + 1], nodeChildren);
+                    break;
+                case CHOOSE:
+                    formula = new Choose(bounds[values[node]], nodeChildren);
+                    break;
+                case REFERENCE:
+                    formula = new Reference(nodeChildren);
+                    break;
+                default:
+                    throw new IllegalStateException(String.valueOf(kinds[node]));
+            }
+            formulas[node] = formula;
+        }
+        return formulas[getRoot()];
+    }
+
+    /**
+     * {@return the number of nodes}
+     */
+    public int getNodeCount() {
+        return kinds.length;
+    }
+
+    /**
+     * {@return the index of the root node}
+     */
+    public int getRoot() {
+        return kinds.length - 1;
+    }
+
+    /**
+     * {@return the kind of the given node (e.g., {@link #AND})}
+     *
+     * @param node the node index
+     */
+    public byte getKind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * {@return the signed variable index of the given literal node}
+     *
+     * @param node the node index
+     */
+    public int getLiteral(int node) {
+        if (kinds[node] != LITERAL) {
+            throw new IllegalArgumentException("node " + node + " is not a literal");
+        }
+        return values[node];
+    }
+
+    /**
+     * {@return the lower bound of the given cardinality node}
+     *
+     * @param node the node index
+     */
+    public int getLowerBound(int node) {
+        assertCardinal(node);
+        return bounds[values[node]];
+    }
+
+    /**
+     * {@return the upper bound of the given cardinality node, {@link Integer#MAX_VALUE} if it is unbounded}
+     *
+     * @param node the node index
+     */
+    public int getUpperBound(int node) {
+        assertCardinal(node);
+        return bounds[values[node] + 1];
+    }
+
+    private void assertCardinal(int node) {
+        if (kinds[node] < AT_LEAST || kinds[node] > CHOOSE) {
+            throw new IllegalArgumentException("node " + node + " is not a cardinality constraint");
+        }
+    }
+
+    /**
+     * {@return the number of children of the given node}
+     *
+     * @param node the node index
+     */
+    public int getChildCount(int node) {
+        return childOffsets[node + 1] - childOffsets[node];
+    }
+
+    /**
+     * {@return the index of a child of the given node}
+     *
+     * @param node the node index
+     * @param childIndex the index of the child among the node's children
+     */
+    public int getChild(int node, int childIndex) {
+        return children[childOffsets[node] + Objects.checkIndex(childIndex, getChildCount(node))];
+    }
+
+    /**
+     * {@return the index of the first node in the subtree of the given node}
+     * As nodes are stored in post-order, the subtree of a node consists of all nodes from this index to the node.
+     *
+     * @param node the node index
+     */
+    public int getSubtreeStart(int node) {
+        while (childOffsets[node + 1] > childOffsets[node]) {
+            node = children[childOffsets[node]];
+        }
+        return node;
+    }
+
+    /**
+     * {@return the number of variables}
+     */
+    public int getVariableCount() {
+        return variableNames.length;
+    }
+
+    /**
+     * {@return the name of the variable with the given index}
+     *
+     * @param variable the variable index, starting at one
+     */
+    public String getVariableName(int variable) {
+        return variableNames[variable - 1];
+    }
+
+    /**
+     * {@return the index of the variable with the given name, if any}
+     *
+     * @param name the variable name
+     */
+    public Result<Integer> getVariableIndex(String name) {
+        return Result.ofNullable(variableIndices.get(name));
+    }
+
+    /**
+     * {@return the names of all variables, in order of their first occurrence}
+     */
+    public LinkedHashSet<String> getVariableNames() {
+        return new LinkedHashSet<>(Arrays.asList(variableNames));
+    }
+
+    /**
+     * {@return the indices of all variables occurring in the subtree of the given node, in ascending order}
+     *
+     * @param node the node index
+     */
+    public int[] getVariables(int node) {
+        final boolean[] occurs = new boolean[variableNames.length + 1];
+        int count = 0;
+        for (int i = getSubtreeStart(node); i <= node; i++) {
+            if (kinds[i] == LITERAL) {
+                final int variable = Math.abs(values[i]);
+                if (!occurs[variable]) {
+                    occurs[variable] = true;
+                    count++;
+                }
+            }
+        }
+        final int[] variables = new int[count];
+        int index = 0;
+        for (int variable = 1; variable < occurs.length; variable++) {
+            if (occurs[variable]) {
+                variables[index++] = variable;
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * {@return whether this formula is in negation normal form}
+     * Equivalent to {@link IFormula#isNNF()}.
+     */
+    public boolean isNNF() {
+        for (int node = 0; node < kinds.length; node++) {
+            switch (kinds[node]) {
+                case NOT:
+                    if (!isPredicate(children[childOffsets[node]])) {
+                        return false;
+                    }
+                    break;
+                case TRUE:
+                case FALSE:
+                case LITERAL:
+                case AND:
+                case OR:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@return whether this formula is in strict negation normal form}
+     * Equivalent to {@link IFormula#isStrictNormalForm(FormulaNormalForm)} for {@link FormulaNormalForm#NNF}.
+     */
+    public boolean isStrictNNF() {
+        for (int node = 0; node < kinds.length; node++) {
+            switch (kinds[node]) {
+                case TRUE:
+                case FALSE:
+                case LITERAL:
+                case AND:
+                case OR:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPredicate(int node) {
+        return kinds[node] == LITERAL || kinds[node] == TRUE || kinds[node] == FALSE;
+    }
+
+    /**
+     * Evaluates this formula under a given assignment.
+     * Unassigned and non-Boolean variables are considered unknown.
+     *
+     * @param valueAssignment the assignment
+     * @return the value of this formula, {@code null} if it is unknown
+     */
+    public Boolean evaluate(ValueAssignment valueAssignment) {
+        final byte[] variableValues = new byte[variableNames.length + 1];
+        for (int variable = 1; variable < variableValues.length; variable++) {
+            final Object value = valueAssignment.getValue(variableNames[variable - 1]).orElse(null);
+            variableValues[variable] =
+                    value instanceof Boolean ? ((Boolean) value ? VALUE_TRUE : VALUE_FALSE) : VALUE_UNKNOWN;
+        }
+        return evaluate(variableValues);
+    }
+
+    /**
+     * Evaluates this formula under a given assignment.
+     * Variables that do not occur in the given literals are considered unknown.
+     *
+     * @param literals the assignment, given as literals of this formula's variable indices
+     * @return the value of this formula, {@code null} if it is unknown
+     */
+    public Boolean evaluate(int... literals) {
+        final byte[] variableValues = new byte[variableNames.length + 1];
+        Arrays.fill(variableValues, VALUE_UNKNOWN);
+        for (final int literal : literals) {
+            if (literal != 0) {
+                variableValues[Math.abs(literal)] = literal > 0 ? VALUE_TRUE : VALUE_FALSE;
+            }
+        }
+        return evaluate(variableValues);
+    }
+
+    private Boolean evaluate(byte[] variableValues) {
+        final byte[] nodeValues = new byte[kinds.length];
+        for (int node = 0; node < kinds.length; node++) {
+            final int start = childOffsets[node];
+            final int end = childOffsets[node + 1];
+            byte value;
+            switch (kinds[node]) {
+                case TRUE:
+                    value = VALUE_TRUE;
+                    break;
+                case FALSE:
+                    value = VALUE_FALSE;
+                    break;
+                case LITERAL: {
+                    final int literal = values[node];
+                    value = variableValues[Math.abs(literal)];
+                    if (literal < 0 && value != VALUE_UNKNOWN) {
+                        value = value == VALUE_TRUE ? VALUE_FALSE : VALUE_TRUE;
+                    }
+                    break;
+                }
+                case NOT:
+                    value = nodeValues[children[start]];
+                    if (value != VALUE_UNKNOWN) {
+                        value = value == VALUE_TRUE ? VALUE_FALSE : VALUE_TRUE;
+                    }
+                    break;
+                case AND:
+                    value = VALUE_TRUE;
+                    for (int i = start; i < end; i++) {
+                        final byte childValue = nodeValues[children[i]];
+                        if (childValue == VALUE_FALSE) {
+                            value = VALUE_FALSE;
+                            break;
+                        } else if (childValue == VALUE_UNKNOWN) {
+                            value = VALUE_UNKNOWN;
+                        }
+                    }
+                    break;
+                case OR:
+                    value = VALUE_FALSE;
+                    for (int i = start; i < end; i++) {
+                        final byte childValue = nodeValues[children[i]];
+                        if (childValue == VALUE_TRUE) {
+                            value = VALUE_TRUE;
+                            break;
+                        } else if (childValue == VALUE_UNKNOWN) {
+                            value = VALUE_UNKNOWN;
+                        }
+                    }
+                    break;
+                case IMPLIES: {
+                    final byte left = nodeValues[children[start]];
+                    final byte right = nodeValues[children[start + 1]];
+                    value = left == VALUE_FALSE || right == VALUE_TRUE
+                            ? VALUE_TRUE
+                            : left == VALUE_TRUE && right == VALUE_FALSE ? VALUE_FALSE : VALUE_UNKNOWN;
+                    break;
+                }
+                case BI_IMPLIES: {
+                    final byte left = nodeValues[children[start]];
+                    final byte right = nodeValues[children[start + 1]];
+                    value = left == VALUE_UNKNOWN || right == VALUE_UNKNOWN
+                            ? VALUE_UNKNOWN
+                            : left == right ? VALUE_TRUE : VALUE_FALSE;
+                    break;
+                }
+                case AT_LEAST:
+                case AT_MOST:
+                case BETWEEN:
+                case CHOOSE: {
+                    int trueCount = 0;
+                    int unknownCount = 0;
+                    for (int i = start; i < end; i++) {
+                        final byte childValue = nodeValues[children[i]];
+                        if (childValue == VALUE_TRUE) {
+                            trueCount++;
+                        } else if (childValue == VALUE_UNKNOWN) {
+                            unknownCount++;
+                        }
+                    }
+                    final int lowerBound = bounds[values[node]];
+                    final int upperBound = bounds[values[node] + 1];
+                    if (trueCount + unknownCount < lowerBound || trueCount > upperBound) {
+                        value = VALUE_FALSE;
+                    } else if (trueCount >= lowerBound && trueCount + unknownCount <= upperBound) {
+                        value = VALUE_TRUE;
+                    } else {
+                        value = VALUE_UNKNOWN;
+                    }
+                    break;
+                }
+                case REFERENCE:
+                    value = nodeValues[children[start]];
+                    break;
+                default:
+                    throw new IllegalStateException(String.valueOf(kinds[node]));
+            }
+            nodeValues[node] = value;
+        }
+        final byte value = nodeValues[getRoot()];
+        return value == VALUE_UNKNOWN ? null : value == VALUE_TRUE;
+    }
+}
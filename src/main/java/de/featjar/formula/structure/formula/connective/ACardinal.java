@@ -21,6 +21,7 @@
 package de.featjar.formula.structure.formula.connective;
 
 import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
 import de.featjar.formula.structure.ANonTerminalExpression;
 import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.formula.IFormula;
@@ -37,6 +38,7 @@ import java.util.Objects;
  */
 public abstract class ACardinal extends ANonTerminalExpression implements IConnective {
     protected Range range;
+    protected CardinalityEncoding cardinalityEncoding;
 
     protected ACardinal(Range range, IFormula... formulas) {
         super();
@@ -52,6 +54,7 @@ public abstract class ACardinal extends ANonTerminalExpression implements IConne
 
     protected ACardinal(ACardinal cardinal) {
         this.range = cardinal.range;
+        this.cardinalityEncoding = cardinal.cardinalityEncoding;
     }
 
     protected Range getRange() {
@@ -61,6 +64,25 @@ public abstract class ACardinal extends ANonTerminalExpression implements IConne
     protected void setRange(Range range) {
         assertChildrenCountInRange(getChildrenCount(), atLeastTheLargerBound(range));
         this.range = range;
+        invalidateHashCode();
+    }
+
+    /**
+     * {@return the encoding to use when transforming this cardinality constraint into clauses, if any}
+     * If no encoding is set, the transformation's default encoding is used.
+     */
+    public Result<CardinalityEncoding> getCardinalityEncoding() {
+        return Result.ofNullable(cardinalityEncoding);
+    }
+
+    /**
+     * Sets the encoding to use when transforming this cardinality constraint into clauses.
+     * Does not affect the semantics of this cardinality constraint, so it is not considered by {@link #equalsNode}.
+     *
+     * @param cardinalityEncoding the cardinality encoding, or {@code null} to use the transformation's default
+     */
+    public void setCardinalityEncoding(CardinalityEncoding cardinalityEncoding) {
+        this.cardinalityEncoding = cardinalityEncoding;
     }
 
     private Range atLeastTheLargerBound(Range range) {
@@ -53,6 +53,7 @@ public abstract class AQuantifier extends ANonTerminalExpression implements ICon
     public void setBoundVariable(Variable boundVariable) {
         Objects.requireNonNull(boundVariable);
         this.boundVariable = boundVariable;
+        invalidateHashCode();
     }
 
     @Override
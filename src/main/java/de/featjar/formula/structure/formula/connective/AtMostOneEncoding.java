@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.structure.formula.connective;
+
+/**
+ * Encodings for transforming at-most-one constraints (e.g., alternative groups in feature models) into clauses.
+ * Except for {@link #PAIRWISE}, all encodings introduce auxiliary variables, so the resulting formula is only
+ * equisatisfiable (not equivalent) to the original formula.
+ */
+public enum AtMostOneEncoding {
+    /**
+     * Excludes each pair of elements, without auxiliary variables.
+     * Requires n * (n - 1) / 2 clauses.
+     */
+    PAIRWISE,
+    /**
+     * Ladder (or sequential) encoding.
+     * Requires n - 1 auxiliary variables and 3 * n - 4 clauses.
+     */
+    LADDER,
+    /**
+     * Commander encoding (Klieber and Kwon 2007) with groups of three elements, applied recursively.
+     * Requires about n / 2 auxiliary variables and 3 * n clauses.
+     */
+    COMMANDER,
+    /**
+     * Product encoding (Chen 2010), which arranges the elements in a grid, applied recursively.
+     * Requires about 2 * sqrt(n) auxiliary variables and 2 * n clauses.
+     */
+    PRODUCT,
+    /**
+     * Bimander encoding (Nguyen and Mai 2015) with groups of two elements and binary-encoded commanders.
+     * Requires about log(n) auxiliary variables and n * log(n) clauses.
+     */
+    BIMANDER,
+    /**
+     * Uses {@link #PAIRWISE} for small numbers of elements and {@link #PRODUCT} otherwise.
+     */
+    AUTOMATIC
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.structure.formula.connective;
+
+/**
+ * Encodings for transforming cardinality constraints (i.e., {@link ACardinal} formulas) into clauses.
+ * Except for {@link #BINOMIAL}, all encodings introduce auxiliary variables, so the resulting formula is only
+ * equisatisfiable (not equivalent) to the original formula.
+ */
+public enum CardinalityEncoding {
+    /**
+     * Enumerates all binomial combinations of children, without auxiliary variables.
+     * Requires C(n, k + 1) clauses, which is only feasible for small cardinality constraints.
+     */
+    BINOMIAL,
+    /**
+     * Sequential counter encoding (Sinz 2005).
+     * Requires O(n * k) clauses and auxiliary variables.
+     */
+    SEQUENTIAL_COUNTER,
+    /**
+     * Totalizer encoding (Bailleux and Boufkhad 2003), with unary counters truncated to k + 1.
+     * Requires O(n * k) auxiliary variables and O(n * k) clauses.
+     */
+    TOTALIZER,
+    /**
+     * Sorting network encoding based on Batcher's odd-even merge sort.
+     * Requires O(n * log(n)^2) clauses and auxiliary variables, independent of k.
+     */
+    SORTING_NETWORK,
+    /**
+     * Chooses the encoding with the fewest estimated clauses for the given number of children and bound.
+     */
+    AUTOMATIC
+}
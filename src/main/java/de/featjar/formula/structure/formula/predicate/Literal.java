@@ -67,6 +67,7 @@ public class Literal extends ANonTerminalExpression implements IUnaryExpression,
 
     public void setPositive(boolean isPositive) {
         this.isPositive = isPositive;
+        invalidateHashCode();
     }
 
     @Override
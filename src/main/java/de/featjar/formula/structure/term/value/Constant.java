@@ -60,6 +60,7 @@ public class Constant extends ATerminalExpression implements IValue {
 
     public void setValue(Object value) {
         this.value = value;
+        invalidateHashCode();
     }
 
     @Override
@@ -74,6 +75,7 @@ public class Constant extends ATerminalExpression implements IValue {
 
     public void setType(Class<?> type) {
         this.type = type;
+        invalidateHashCode();
     }
 
     @Override
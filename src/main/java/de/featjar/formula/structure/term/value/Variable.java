@@ -55,6 +55,7 @@ public class Variable extends ATerminalExpression implements IValue {
 
     public void setName(String name) {
         this.name = name;
+        invalidateHashCode();
     }
 
     @Override
@@ -64,6 +65,7 @@ public class Variable extends ATerminalExpression implements IValue {
 
     public void setType(Class<?> type) {
         this.type = type;
+        invalidateHashCode();
     }
 
     @Override
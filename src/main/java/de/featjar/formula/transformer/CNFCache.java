@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.transformer;
+
+import de.featjar.base.data.Pair;
+import de.featjar.base.data.Result;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the CNF transformations of the children of a top-level conjunction (i.e., of single constraints)
+ * across several {@link ComputeCNFFormula} computations.
+ * Entries are addressed by the content of the transformed formula; that is, by its structural hash and equality,
+ * together with the transformation parameters.
+ * Thus, after a constraint has been edited or a model has been reloaded, only changed constraints are transformed
+ * again.
+ * Entries are stored and returned as deep copies with fresh auxiliary variables,
+ * so they are not affected when auxiliary variables are renamed during unification.
+ * The number of entries is bounded; when the bound is reached, the least recently used entry is evicted.
+ * This class is thread-safe.
+ */
+public class CNFCache {
+    /**
+     * A cache that never stores any entry.
+     */
+    public static final CNFCache NONE = new CNFCache(0);
+
+    /**
+     * The default maximum number of entries.
+     */
+    public static final int DEFAULT_MAXIMUM_NUMBER_OF_ENTRIES = 10_000;
+
+    private static class Key {
+        private final IFormula formula;
+        private final boolean isPlaistedGreenbaum;
+        private final int maximumNumberOfLiterals;
+        private final int hashCode;
+
+        private Key(IFormula formula, boolean isPlaistedGreenbaum, int maximumNumberOfLiterals) {
+            this.formula = formula;
+            this.isPlaistedGreenbaum = isPlaistedGreenbaum;
+            this.maximumNumberOfLiterals = maximumNumberOfLiterals;
+            hashCode = Objects.hash(formula, isPlaistedGreenbaum, maximumNumberOfLiterals);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            Key other = (Key) obj;
+            return isPlaistedGreenbaum == other.isPlaistedGreenbaum
+                    && maximumNumberOfLiterals == other.maximumNumberOfLiterals
+                    && Objects.equals(formula, other.formula);
+        }
+    }
+
+    private static class Entry {
+        private final List<IFormula> clauseFormulas;
+        private final List<TseitinTransformer.Substitution> substitutions;
+
+        private Entry(List<IFormula> clauseFormulas, List<TseitinTransformer.Substitution> substitutions) {
+            this.clauseFormulas = clauseFormulas;
+            this.substitutions = substitutions;
+        }
+
+        /**
+         * {@return a deep copy of this entry}
+         * All auxiliary variables are replaced with new variable objects, but each auxiliary variable is still
+         * shared by all literals that refer to it.
+         */
+        private Entry copy() {
+            Map<Variable, Variable> auxiliaryVariables = new IdentityHashMap<>();
+            for (TseitinTransformer.Substitution substitution : substitutions) {
+                Variable auxiliaryVariable = substitution.getAuxiliaryVariable();
+                if (auxiliaryVariable != null) {
+                    auxiliaryVariables.put(auxiliaryVariable, new Variable(auxiliaryVariable.getName()));
+                }
+            }
+            List<IFormula> newClauseFormulas = copy(clauseFormulas, auxiliaryVariables);
+            List<TseitinTransformer.Substitution> newSubstitutions = new ArrayList<>(substitutions.size());
+            for (TseitinTransformer.Substitution substitution : substitutions) {
+                newSubstitutions.add(new TseitinTransformer.Substitution(
+                        (IFormula) copy(substitution.originalFormula, auxiliaryVariables),
+                        substitution.auxiliaryVariable != null
+                                ? auxiliaryVariables.get(substitution.auxiliaryVariable)
+                                : null,
+                        copy(substitution.clauseFormulas, auxiliaryVariables)));
+            }
+            return new Entry(newClauseFormulas, newSubstitutions);
+        }
+
+        private static List<IFormula> copy(List<IFormula> formulas, Map<Variable, Variable> auxiliaryVariables) {
+            List<IFormula> newFormulas = new ArrayList<>(formulas.size());
+            for (IFormula formula : formulas) {
+                newFormulas.add((IFormula) copy(formula, auxiliaryVariables));
+            }
+            return newFormulas;
+        }
+
+        private static IExpression copy(IExpression expression, Map<Variable, Variable> auxiliaryVariables) {
+            if (expression == null) {
+                return null;
+            }
+            Variable auxiliaryVariable = auxiliaryVariables.get(expression);
+            if (auxiliaryVariable != null) {
+                return auxiliaryVariable;
+            }
+            IExpression newExpression = (IExpression) expression.cloneNode();
+            List<? extends IExpression> children = expression.getChildren();
+            if (!children.isEmpty()) {
+                List<IExpression> newChildren = new ArrayList<>(children.size());
+                for (IExpression child : children) {
+                    newChildren.add(copy(child, auxiliaryVariables));
+                }
+                newExpression.setChildren(newChildren);
+            }
+            return newExpression;
+        }
+    }
+
+    private static class LeastRecentlyUsedMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+
+        private LeastRecentlyUsedMap(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maximumSize;
+        }
+    }
+
+    private final Map<Key, Entry> entries;
+    private final int maximumNumberOfEntries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates a CNF cache with at most {@link #DEFAULT_MAXIMUM_NUMBER_OF_ENTRIES} entries.
+     */
+    public CNFCache() {
+        this(DEFAULT_MAXIMUM_NUMBER_OF_ENTRIES);
+    }
+
+    /**
+     * Creates a CNF cache.
+     * When the given number of entries is exceeded, the least recently used entry is evicted.
+     *
+     * @param maximumNumberOfEntries the maximum number of entries
+     */
+    public CNFCache(int maximumNumberOfEntries) {
+        this.maximumNumberOfEntries = maximumNumberOfEntries;
+        entries = Collections.synchronizedMap(new LeastRecentlyUsedMap<>(maximumNumberOfEntries));
+    }
+
+    /**
+     * {@return the cached transformation of the given formula, if any}
+     * The result is a pair of clause formulas and substitutions, which are owned by the caller.
+     *
+     * @param formula the formula
+     * @param isPlaistedGreenbaum whether the Plaisted-Greenbaum optimization was used
+     * @param maximumNumberOfLiterals the maximum number of literals for distributive transformation
+     */
+    Result<Pair<List<IFormula>, List<TseitinTransformer.Substitution>>> get(
+            IFormula formula, boolean isPlaistedGreenbaum, int maximumNumberOfLiterals) {
+        if (maximumNumberOfEntries <= 0) {
+            return Result.empty();
+        }
+        Entry entry = entries.get(new Key(formula, isPlaistedGreenbaum, maximumNumberOfLiterals));
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return Result.empty();
+        }
+        hitCount.incrementAndGet();
+        Entry copiedEntry = entry.copy();
+        return Result.of(new Pair<>(copiedEntry.clauseFormulas, copiedEntry.substitutions));
+    }
+
+    /**
+     * Stores the transformation of the given formula.
+     * Copies the formula and its transformation, so the caller may continue to modify them.
+     *
+     * @param formula the formula
+     * @param isPlaistedGreenbaum whether the Plaisted-Greenbaum optimization was used
+     * @param maximumNumberOfLiterals the maximum number of literals for distributive transformation
+     * @param clauseFormulas the clause formulas
+     * @param substitutions the substitutions
+     */
+    void put(
+            IFormula formula,
+            boolean isPlaistedGreenbaum,
+            int maximumNumberOfLiterals,
+            List<IFormula> clauseFormulas,
+            List<TseitinTransformer.Substitution> substitutions) {
+        if (maximumNumberOfEntries <= 0) {
+            return;
+        }
+        entries.put(
+                new Key((IFormula) formula.cloneTree(), isPlaistedGreenbaum, maximumNumberOfLiterals),
+                new Entry(clauseFormulas, substitutions).copy());
+    }
+
+    /**
+     * {@return the number of cached transformations}
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * {@return the number of transformations that were found in this cache}
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * {@return the number of transformations that were not found in this cache}
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Removes all cached transformations.
+     */
+    public void clear() {
+        entries.clear();
+    }
+}
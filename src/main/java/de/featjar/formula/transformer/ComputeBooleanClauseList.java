@@ -0,0 +1,394 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.transformer;
+
+import de.featjar.base.computation.AComputation;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.Dependency;
+import de.featjar.base.computation.IComputation;
+import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Pair;
+import de.featjar.base.data.Result;
+import de.featjar.base.tree.structure.ITree;
+import de.featjar.formula.analysis.VariableMap;
+import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.analysis.bool.BooleanRepresentationComputation;
+import de.featjar.formula.analysis.bool.CompactBooleanClauseList;
+import de.featjar.formula.structure.ExpressionKind;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.formula.FormulaNormalForm;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.connective.And;
+import de.featjar.formula.structure.formula.connective.Or;
+import de.featjar.formula.structure.formula.predicate.False;
+import de.featjar.formula.structure.formula.predicate.Literal;
+import de.featjar.formula.structure.formula.predicate.True;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Transforms a formula into an indexed CNF representation.
+ * Yields an equivalent (or, if auxiliary variables are introduced, equisatisfiable) CNF as {@link ComputeCNFFormula}
+ * followed by {@link BooleanRepresentationComputation}, but emits clauses as integer arrays directly into a
+ * {@link CompactBooleanClauseList} and builds the {@link VariableMap} on the fly.
+ * Thus, no intermediate {@link Or} and {@link Literal} objects are created.
+ * Variables are numbered in order of their first occurrence in the formula,
+ * auxiliary variables introduced by the Tseitin transformation are numbered after all other variables.
+ * Equal subformulas share the same auxiliary variable.
+ */
+public class ComputeBooleanClauseList extends AComputation<Pair<BooleanClauseList, VariableMap>> {
+    public static final Dependency<IFormula> NNF_FORMULA = Dependency.newDependency(IFormula.class);
+    /**
+     * Determines whether this computation uses the Plaisted-Greenbaum optimization.
+     */
+    public static final Dependency<Boolean> IS_PLAISTED_GREENBAUM = Dependency.newDependency(Boolean.class);
+    /**
+     * Determines the maximum number of literals available for distributive
+     * transformation of each child of a top-level conjunction.
+     * Children exceeding this limit are transformed by introducing auxiliary variables.
+     */
+    public static final Dependency<Integer> MAXIMUM_NUMBER_OF_LITERALS = Dependency.newDependency(Integer.class);
+
+    /**
+     * Creates a new Boolean clause list computation.
+     *
+     * @param nnfFormula the input NNF formula computation
+     */
+    public ComputeBooleanClauseList(IComputation<IFormula> nnfFormula) {
+        super(
+                nnfFormula, //
+                Computations.of(Boolean.FALSE), //
+                Computations.of(Integer.MAX_VALUE));
+    }
+
+    protected ComputeBooleanClauseList(ComputeBooleanClauseList other) {
+        super(other);
+    }
+
+    @Override
+    public Result<Pair<BooleanClauseList, VariableMap>> compute(List<Object> dependencyList, Progress progress) {
+        IFormula nnfFormula = NNF_FORMULA.get(dependencyList);
+        if (!ExpressionKind.NNF.test(nnfFormula)) {
+            throw new IllegalArgumentException("Formula is not in NNF");
+        }
+        List<? extends IExpression> children =
+                nnfFormula instanceof And ? nnfFormula.getChildren() : List.of(nnfFormula);
+        Encoder encoder = new Encoder(
+                children, IS_PLAISTED_GREENBAUM.get(dependencyList), MAXIMUM_NUMBER_OF_LITERALS.get(dependencyList));
+        progress.setTotalSteps(children.size());
+        for (IExpression child : children) {
+            encoder.encode((IFormula) child);
+            progress.incrementCurrentStep();
+        }
+        return Result.of(encoder.getResult());
+    }
+
+    @Override
+    public ITree<IComputation<?>> cloneNode() {
+        return new ComputeBooleanClauseList(this);
+    }
+
+    private static class Encoder {
+        private final HashMap<String, Integer> variableIndices = new HashMap<>();
+        private final HashMap<IFormula, Integer> auxiliaryLiterals = new HashMap<>();
+        private final VariableMap variableMap = new VariableMap();
+        private final CompactBooleanClauseList clauseList;
+        private final boolean isPlaistedGreenbaum;
+        private final int maximumNumberOfLiterals;
+
+        private int[] buffer = new int[16];
+        private long remainingLiterals;
+        private int auxiliaryVariableIndex = 0;
+
+        private Encoder(
+                List<? extends IExpression> children, boolean isPlaistedGreenbaum, int maximumNumberOfLiterals) {
+            this.isPlaistedGreenbaum = isPlaistedGreenbaum;
+            this.maximumNumberOfLiterals = maximumNumberOfLiterals;
+            ArrayDeque<IExpression> stack = new ArrayDeque<>();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+            while (!stack.isEmpty()) {
+                IExpression expression = stack.pop();
+                if (expression instanceof Literal) {
+                    String name = ((Literal) expression).getExpression().getName();
+                    if (!variableIndices.containsKey(name)) {
+                        addVariable(name);
+                    }
+                } else {
+                    List<? extends IExpression> grandChildren = expression.getChildren();
+                    for (int i = grandChildren.size() - 1; i >= 0; i--) {
+                        stack.push(grandChildren.get(i));
+                    }
+                }
+            }
+            clauseList = new CompactBooleanClauseList(children.size(), children.size() * 2, variableIndices.size());
+        }
+
+        private Pair<BooleanClauseList, VariableMap> getResult() {
+            clauseList.setVariableCount(variableIndices.size());
+            return new Pair<>(clauseList, variableMap);
+        }
+
+        private void encode(IFormula formula) {
+            if (formula instanceof Literal || formula instanceof True || formula instanceof False) {
+                addClause(formula);
+            } else if (formula.isNormalForm(FormulaNormalForm.CNF)) {
+                if (formula instanceof And) {
+                    for (IExpression child : formula.getChildren()) {
+                        addClause((IFormula) child);
+                    }
+                } else {
+                    addClause(formula);
+                }
+            } else {
+                remainingLiterals = maximumNumberOfLiterals;
+                List<int[]> clauses = distribute(formula);
+                if (clauses != null) {
+                    for (int[] clause : clauses) {
+                        clauseList.addClause(clause);
+                    }
+                } else {
+                    tseitin(formula);
+                }
+            }
+        }
+
+        private void addClause(IFormula clause) {
+            if (clause instanceof Literal) {
+                clauseList.addClause(getLiteral((Literal) clause));
+            } else if (clause instanceof False) {
+                clauseList.addClause();
+            } else if (!(clause instanceof True)) {
+                List<? extends IExpression> children = clause.getChildren();
+                if (buffer.length < children.size()) {
+                    buffer = new int[children.size()];
+                }
+                int length = 0;
+                for (IExpression child : children) {
+                    if (child instanceof True) {
+                        return;
+                    } else if (child instanceof Literal) {
+                        buffer[length++] = getLiteral((Literal) child);
+                    }
+                }
+                clauseList.addClause(buffer, length);
+            }
+        }
+
+        /**
+         * {@return the clauses of the given formula according to the distributive law}
+         * Each clause is sorted and contains no duplicate or complementary literals.
+         * Returns {@code null} if the remaining number of literals has been exceeded.
+         *
+         * @param formula the formula
+         */
+        private List<int[]> distribute(IFormula formula) {
+            List<int[]> clauses = new ArrayList<>();
+            if (formula instanceof Literal) {
+                if (--remainingLiterals < 0) {
+                    return null;
+                }
+                clauses.add(new int[] {getLiteral((Literal) formula)});
+            } else if (formula instanceof False) {
+                clauses.add(new int[0]);
+            } else if (formula instanceof And) {
+                for (IExpression child : formula.getChildren()) {
+                    List<int[]> childClauses = distribute((IFormula) child);
+                    if (childClauses == null) {
+                        return null;
+                    }
+                    clauses.addAll(childClauses);
+                }
+            } else if (formula instanceof Or) {
+                clauses.add(new int[0]);
+                for (IExpression child : formula.getChildren()) {
+                    List<int[]> childClauses = distribute((IFormula) child);
+                    if (childClauses == null) {
+                        return null;
+                    } else if (childClauses.isEmpty()) {
+                        return childClauses;
+                    }
+                    List<int[]> newClauses = new ArrayList<>(clauses.size() * childClauses.size());
+                    for (int[] clause : clauses) {
+                        for (int[] childClause : childClauses) {
+                            int[] newClause = merge(clause, childClause);
+                            if (newClause != null) {
+                                remainingLiterals -= newClause.length;
+                                if (remainingLiterals < 0) {
+                                    return null;
+                                }
+                                newClauses.add(newClause);
+                            }
+                        }
+                    }
+                    clauses = newClauses;
+                }
+                clauses = removeSubsumed(clauses);
+            }
+            return clauses;
+        }
+
+        private void tseitin(IFormula formula) {
+            List<? extends IExpression> children = formula.getChildren();
+            if (formula instanceof And) {
+                for (IExpression child : children) {
+                    clauseList.addClause(getAuxiliaryLiteral((IFormula) child));
+                }
+            } else {
+                int[] literals = new int[children.size()];
+                for (int i = 0; i < literals.length; i++) {
+                    literals[i] = getAuxiliaryLiteral((IFormula) children.get(i));
+                }
+                clauseList.addClause(literals);
+            }
+        }
+
+        private int getAuxiliaryLiteral(IFormula formula) {
+            if (formula instanceof Literal) {
+                return getLiteral((Literal) formula);
+            } else if (formula instanceof True || formula instanceof False) {
+                int constantLiteral = auxiliaryLiterals.computeIfAbsent(True.INSTANCE, key -> {
+                    int variable = addAuxiliaryVariable();
+                    clauseList.addClause(variable);
+                    return variable;
+                });
+                return formula instanceof True ? constantLiteral : -constantLiteral;
+            }
+            Integer auxiliaryLiteral = auxiliaryLiterals.get(formula);
+            if (auxiliaryLiteral != null) {
+                return auxiliaryLiteral;
+            }
+            List<? extends IExpression> children = formula.getChildren();
+            int[] childLiterals = new int[children.size()];
+            for (int i = 0; i < childLiterals.length; i++) {
+                childLiterals[i] = getAuxiliaryLiteral((IFormula) children.get(i));
+            }
+            int variable = addAuxiliaryVariable();
+            int[] literals = new int[childLiterals.length + 1];
+            if (formula instanceof And) {
+                for (int i = 0; i < childLiterals.length; i++) {
+                    clauseList.addClause(-variable, childLiterals[i]);
+                    literals[i] = -childLiterals[i];
+                }
+                if (!isPlaistedGreenbaum) {
+                    literals[childLiterals.length] = variable;
+                    clauseList.addClause(literals);
+                }
+            } else {
+                for (int i = 0; i < childLiterals.length; i++) {
+                    if (!isPlaistedGreenbaum) clauseList.addClause(variable, -childLiterals[i]);
+                    literals[i] = childLiterals[i];
+                }
+                literals[childLiterals.length] = -variable;
+                clauseList.addClause(literals);
+            }
+            auxiliaryLiterals.put(formula, variable);
+            return variable;
+        }
+
+        private int getLiteral(Literal literal) {
+            int index = variableIndices.get(literal.getExpression().getName());
+            return literal.isPositive() ? index : -index;
+        }
+
+        private int addVariable(String name) {
+            int index = variableIndices.size() + 1;
+            variableIndices.put(name, index);
+            variableMap.add(index, name);
+            return index;
+        }
+
+        private int addAuxiliaryVariable() {
+            String name;
+            do {
+                name = TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX + (++auxiliaryVariableIndex);
+            } while (variableIndices.containsKey(name));
+            return addVariable(name);
+        }
+
+        /**
+         * {@return the union of two sorted clauses, or {@code null} if the union is a tautology}
+         */
+        private static int[] merge(int[] clause1, int[] clause2) {
+            int[] union = new int[clause1.length + clause2.length];
+            int i = 0, j = 0, length = 0;
+            while (i < clause1.length && j < clause2.length) {
+                if (clause1[i] < clause2[j]) {
+                    union[length++] = clause1[i++];
+                } else if (clause1[i] > clause2[j]) {
+                    union[length++] = clause2[j++];
+                } else {
+                    union[length++] = clause1[i++];
+                    j++;
+                }
+            }
+            while (i < clause1.length) {
+                union[length++] = clause1[i++];
+            }
+            while (j < clause2.length) {
+                union[length++] = clause2[j++];
+            }
+            for (int k = 0; k < length && union[k] < 0; k++) {
+                if (Arrays.binarySearch(union, 0, length, -union[k]) >= 0) {
+                    return null;
+                }
+            }
+            return length == union.length ? union : Arrays.copyOf(union, length);
+        }
+
+        private static List<int[]> removeSubsumed(List<int[]> clauses) {
+            clauses.sort(Comparator.comparingInt(clause -> clause.length));
+            List<int[]> filteredClauses = new ArrayList<>(clauses.size());
+            for (int[] clause : clauses) {
+                boolean isSubsumed = false;
+                for (int[] filteredClause : filteredClauses) {
+                    if (containsAll(clause, filteredClause)) {
+                        isSubsumed = true;
+                        break;
+                    }
+                }
+                if (!isSubsumed) {
+                    filteredClauses.add(clause);
+                }
+            }
+            return filteredClauses;
+        }
+
+        private static boolean containsAll(int[] clause, int[] subClause) {
+            int i = 0;
+            for (int literal : subClause) {
+                while (i < clause.length && clause[i] < literal) {
+                    i++;
+                }
+                if (i == clause.length || clause[i] != literal) {
+                    return false;
+                }
+                i++;
+            }
+            return true;
+        }
+    }
+}
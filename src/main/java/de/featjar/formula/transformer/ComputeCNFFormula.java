@@ -25,21 +25,33 @@ import de.featjar.base.computation.Computations;
 import de.featjar.base.computation.Dependency;
 import de.featjar.base.computation.IComputation;
 import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Pair;
 import de.featjar.base.data.Result;
 import de.featjar.base.tree.structure.ITree;
 import de.featjar.formula.structure.ExpressionKind;
+import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.formula.FormulaNormalForm;
 import de.featjar.formula.structure.formula.IFormula;
 import de.featjar.formula.structure.formula.connective.And;
+import de.featjar.formula.structure.formula.connective.IConnective;
 import de.featjar.formula.structure.formula.connective.Or;
+import de.featjar.formula.structure.formula.predicate.False;
 import de.featjar.formula.structure.formula.predicate.Literal;
+import de.featjar.formula.structure.formula.predicate.True;
+import de.featjar.formula.structure.term.value.Variable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 /**
  * Transforms a formula into strict conjunctive normal form.
+ * For each child of a top-level conjunction, the size of its distributive transformation is estimated upfront
+ * (see {@link DistributiveSizeEstimate}).
+ * If it exceeds the maximum number of literals, only the subformulas responsible for the blowup are replaced with
+ * auxiliary variables, and the remaining formula is still transformed with the distributive law.
  *
  * @author Sebastian Krieter
  * @author Elias Kuiter
@@ -52,12 +64,14 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
     public static final Dependency<Boolean> IS_PLAISTED_GREENBAUM = Dependency.newDependency(Boolean.class);
     /**
      * Determines the maximum number of literals available for distributive
-     * transformation.
+     * transformation of each child of a top-level conjunction.
      */
     public static final Dependency<Integer> MAXIMUM_NUMBER_OF_LITERALS = Dependency.newDependency(Integer.class);
     /**
-     * Determines whether this computation is parallel. Use with care! Enabling
-     * parallel computation makes the result of this computation indeterministic.
+     * Determines whether this computation is parallel.
+     * If so, the children of a top-level conjunction are transformed in parallel.
+     * Their results are collected in separate slots and merged in order, so the result is identical to the
+     * result of a sequential computation.
      */
     public static final Dependency<Boolean> IS_PARALLEL = Dependency.newDependency(Boolean.class);
 
@@ -66,6 +80,12 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
      */
     public static final Dependency<Boolean> IS_STRICT = Dependency.newDependency(Boolean.class);
 
+    /**
+     * Determines the cache for the transformations of the children of a top-level conjunction.
+     * By default, no transformations are cached.
+     */
+    public static final Dependency<CNFCache> CNF_CACHE = Dependency.newDependency(CNFCache.class);
+
     /**
      * Creates a new CNF formula computation.
      *
@@ -77,7 +97,8 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
                 Computations.of(Boolean.FALSE), //
                 Computations.of(Integer.MAX_VALUE), //
                 Computations.of(Boolean.FALSE), //
-                Computations.of(Boolean.TRUE));
+                Computations.of(Boolean.TRUE), //
+                Computations.of(CNFCache.NONE));
     }
 
     protected ComputeCNFFormula(ComputeCNFFormula other) {
@@ -106,27 +127,61 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
         boolean isPlaistedGreenbaum = IS_PLAISTED_GREENBAUM.get(dependencyList);
         boolean isParallel = IS_PARALLEL.get(dependencyList);
         boolean isStrict = IS_STRICT.get(dependencyList);
+        CNFCache cnfCache = CNF_CACHE.get(dependencyList);
 
-        List<IFormula> clauseFormulas =
-                isParallel ? Collections.synchronizedList(new ArrayList<>()) : new ArrayList<>();
-        List<TseitinTransformer.Substitution> substitutions =
-                isParallel ? Collections.synchronizedList(new ArrayList<>()) : new ArrayList<>();
-        Consumer<IFormula> transformer = formula -> {
-            transform(formula, clauseFormulas, substitutions, isPlaistedGreenbaum, maximumNumberOfLiterals);
-            progress.incrementCurrentStep();
-        };
+        List<IFormula> clauseFormulas = new ArrayList<>();
+        List<TseitinTransformer.Substitution> substitutions = new ArrayList<>();
+        AuxiliaryVariables auxiliaryVariables = new AuxiliaryVariables();
 
         if (nnfFormula instanceof And) {
             List<IFormula> children = (List<IFormula>) nnfFormula.getChildren();
             progress.setTotalSteps(children.size());
             if (isParallel) {
-                children.parallelStream().forEach(transformer);
+                List<IFormula>[] clauseFormulaSlots = new List[children.size()];
+                List<TseitinTransformer.Substitution>[] substitutionSlots = new List[children.size()];
+                IntStream.range(0, children.size()).parallel().forEach(i -> {
+                    List<IFormula> childClauseFormulas = new ArrayList<>();
+                    List<TseitinTransformer.Substitution> childSubstitutions = new ArrayList<>();
+                    transform(
+                            children.get(i),
+                            childClauseFormulas,
+                            childSubstitutions,
+                            isPlaistedGreenbaum,
+                            maximumNumberOfLiterals,
+                            auxiliaryVariables,
+                            cnfCache);
+                    clauseFormulaSlots[i] = childClauseFormulas;
+                    substitutionSlots[i] = childSubstitutions;
+                    progress.incrementCurrentStep();
+                });
+                for (int i = 0; i < children.size(); i++) {
+                    clauseFormulas.addAll(clauseFormulaSlots[i]);
+                    substitutions.addAll(substitutionSlots[i]);
+                }
             } else {
-                children.forEach(transformer);
+                for (IFormula child : children) {
+                    transform(
+                            child,
+                            clauseFormulas,
+                            substitutions,
+                            isPlaistedGreenbaum,
+                            maximumNumberOfLiterals,
+                            auxiliaryVariables,
+                            cnfCache);
+                    progress.incrementCurrentStep();
+                }
             }
         } else {
             progress.setTotalSteps(1);
-            transformer.accept(nnfFormula);
+            transform(
+                    nnfFormula,
+                    clauseFormulas,
+                    substitutions,
+                    isPlaistedGreenbaum,
+                    maximumNumberOfLiterals,
+                    auxiliaryVariables,
+                    cnfCache);
+            progress.incrementCurrentStep();
         }
 
         TseitinTransformer.unify(substitutions);
@@ -136,29 +191,191 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
         return Result.of(isStrict ? toStrictForm(cnf) : cnf);
     }
 
+    /**
+     * Transforms a child of a top-level conjunction, reusing its cached transformation if available.
+     * Children that already are in CNF are not cached, as they are not transformed anyway.
+     */
+    private void transform(
+            IFormula formula,
+            List<IFormula> clauseFormulas,
+            List<TseitinTransformer.Substitution> substitutions,
+            boolean isPlaistedGreenbaum,
+            int maximumNumberOfLiterals,
+            AuxiliaryVariables auxiliaryVariables,
+            CNFCache cnfCache) {
+        if (formula.isNormalForm(FormulaNormalForm.CNF)) {
+            transform(
+                    formula,
+                    clauseFormulas,
+                    substitutions,
+                    isPlaistedGreenbaum,
+                    maximumNumberOfLiterals,
+                    auxiliaryVariables);
+            return;
+        }
+        Result<Pair<List<IFormula>, List<TseitinTransformer.Substitution>>> cachedTransformation =
+                cnfCache.get(formula, isPlaistedGreenbaum, maximumNumberOfLiterals);
+        if (cachedTransformation.isPresent()) {
+            clauseFormulas.addAll(cachedTransformation.get().getKey());
+            substitutions.addAll(cachedTransformation.get().getValue());
+            return;
+        }
+        List<IFormula> newClauseFormulas = new ArrayList<>();
+        List<TseitinTransformer.Substitution> newSubstitutions = new ArrayList<>();
+        transform(
+                formula,
+                newClauseFormulas,
+                newSubstitutions,
+                isPlaistedGreenbaum,
+                maximumNumberOfLiterals,
+                auxiliaryVariables);
+        cnfCache.put(formula, isPlaistedGreenbaum, maximumNumberOfLiterals, newClauseFormulas, newSubstitutions);
+        clauseFormulas.addAll(newClauseFormulas);
+        substitutions.addAll(newSubstitutions);
+    }
+
     @SuppressWarnings("unchecked")
     private void transform(
             IFormula formula,
             List<IFormula> clauseFormulas,
             List<TseitinTransformer.Substitution> substitutions,
             boolean isPlaistedGreenbaum,
-            int maximumNumberOfLiterals) {
+            int maximumNumberOfLiterals,
+            AuxiliaryVariables auxiliaryVariables) {
         if (formula.isStrictNormalForm(FormulaNormalForm.CNF)) {
             clauseFormulas.addAll((List<? extends IFormula>) formula.getChildren());
         } else if (formula.isNormalForm(FormulaNormalForm.CNF)) {
             clauseFormulas.addAll(
                     (List<? extends IFormula>) toStrictForm(formula).getChildren());
+        } else if (DistributiveSizeEstimate.of(formula).fits(maximumNumberOfLiterals)) {
+            if (!addDistributiveTransformation(formula, clauseFormulas, maximumNumberOfLiterals, auxiliaryVariables)) {
+                substitutions.addAll(tseitinTransform(formula, isPlaistedGreenbaum));
+            }
         } else {
-            Result<IFormula> transformationResult = distributiveTransform(
+            hybridTransform(
                     formula,
-                    new DistributiveTransformer.MaximumNumberOfLiteralsCancelPredicate(maximumNumberOfLiterals));
-            if (transformationResult.isPresent()) {
-                clauseFormulas.addAll(
-                        (List<? extends IFormula>) transformationResult.get().getChildren());
-                return;
-            }
+                    clauseFormulas,
+                    substitutions,
+                    isPlaistedGreenbaum,
+                    maximumNumberOfLiterals,
+                    auxiliaryVariables);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean addDistributiveTransformation(
+            IFormula formula,
+            List<IFormula> clauseFormulas,
+            int maximumNumberOfLiterals,
+            AuxiliaryVariables auxiliaryVariables) {
+        Result<IFormula> transformationResult = distributiveTransform(
+                formula, new DistributiveTransformer.MaximumNumberOfLiteralsCancelPredicate(maximumNumberOfLiterals));
+        if (transformationResult.isPresent()) {
+            List<? extends IFormula> newClauseFormulas =
+                    (List<? extends IFormula>) transformationResult.get().getChildren();
+            auxiliaryVariables.rebind(newClauseFormulas);
+            clauseFormulas.addAll(newClauseFormulas);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replaces those subformulas with auxiliary variables that would exceed the maximum number of literals in a
+     * distributive transformation, and transforms the resulting formula with the distributive law.
+     * The replaced subformulas are defined recursively in the same way.
+     * Falls back to a Tseitin transformation of the entire formula if this does not suffice.
+     */
+    private void hybridTransform(
+            IFormula formula,
+            List<IFormula> clauseFormulas,
+            List<TseitinTransformer.Substitution> substitutions,
+            boolean isPlaistedGreenbaum,
+            int maximumNumberOfLiterals,
+            AuxiliaryVariables auxiliaryVariables) {
+        List<Abstraction> abstractions = new ArrayList<>();
+        Pair<IFormula, DistributiveSizeEstimate> abstractedFormula =
+                abstractSubformulas(formula, maximumNumberOfLiterals, abstractions, auxiliaryVariables);
+        if (!abstractedFormula.getValue().fits(maximumNumberOfLiterals)
+                || !addDistributiveTransformation(
+                        abstractedFormula.getKey(), clauseFormulas, maximumNumberOfLiterals, auxiliaryVariables)) {
             substitutions.addAll(tseitinTransform(formula, isPlaistedGreenbaum));
+            return;
+        }
+        for (Abstraction abstraction : abstractions) {
+            List<IFormula> definitionClauseFormulas = new ArrayList<>();
+            for (IFormula definition : abstraction.getDefinitions(isPlaistedGreenbaum)) {
+                transform(
+                        definition,
+                        definitionClauseFormulas,
+                        substitutions,
+                        isPlaistedGreenbaum,
+                        maximumNumberOfLiterals,
+                        auxiliaryVariables);
+            }
+            substitutions.add(new TseitinTransformer.Substitution(
+                    abstraction.originalFormula, abstraction.auxiliaryVariable, definitionClauseFormulas));
+        }
+    }
+
+    private Pair<IFormula, DistributiveSizeEstimate> abstractSubformulas(
+            IFormula formula,
+            int maximumNumberOfLiterals,
+            List<Abstraction> abstractions,
+            AuxiliaryVariables auxiliaryVariables) {
+        if (!(formula instanceof IConnective)) {
+            return new Pair<>(formula, DistributiveSizeEstimate.of(formula));
+        }
+        List<? extends IExpression> children = formula.getChildren();
+        List<IFormula> newChildren = new ArrayList<>(children.size());
+        List<DistributiveSizeEstimate> childEstimates = new ArrayList<>(children.size());
+        for (IExpression child : children) {
+            Pair<IFormula, DistributiveSizeEstimate> abstractedChild =
+                    abstractSubformulas((IFormula) child, maximumNumberOfLiterals, abstractions, auxiliaryVariables);
+            newChildren.add(abstractedChild.getKey());
+            childEstimates.add(abstractedChild.getValue());
+        }
+        DistributiveSizeEstimate estimate =
+                DistributiveSizeEstimate.of(formula, childEstimates, hasNonLiteral(newChildren));
+        while (!estimate.fits(maximumNumberOfLiterals)) {
+            // in a disjunction, the child with the most clauses causes the largest blowup
+            int largestChildIndex = -1;
+            double largestChildSize = -1;
+            for (int i = 0; i < newChildren.size(); i++) {
+                if (newChildren.get(i) instanceof IConnective) {
+                    DistributiveSizeEstimate childEstimate = childEstimates.get(i);
+                    double childSize = formula instanceof Or
+                            ? childEstimate.getClauseCount()
+                            : childEstimate.getCost() + childEstimate.getLiteralCount();
+                    if (!(childSize <= largestChildSize)) {
+                        largestChildIndex = i;
+                        largestChildSize = childSize;
+                    }
+                }
+            }
+            if (largestChildIndex < 0) {
+                break;
+            }
+            Variable auxiliaryVariable = auxiliaryVariables.newVariable();
+            abstractions.add(new Abstraction(
+                    (IFormula) children.get(largestChildIndex), newChildren.get(largestChildIndex), auxiliaryVariable));
+            Literal auxiliaryLiteral = new Literal(auxiliaryVariable);
+            newChildren.set(largestChildIndex, auxiliaryLiteral);
+            childEstimates.set(largestChildIndex, DistributiveSizeEstimate.of(auxiliaryLiteral));
+            estimate = DistributiveSizeEstimate.of(formula, childEstimates, hasNonLiteral(newChildren));
         }
+        IFormula newFormula = (IFormula) formula.cloneNode();
+        newFormula.setChildren(newChildren);
+        return new Pair<>(newFormula, estimate);
+    }
+
+    private static boolean hasNonLiteral(List<IFormula> formulas) {
+        for (IFormula formula : formulas) {
+            if (!(formula instanceof Literal)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     protected Result<IFormula> distributiveTransform(
@@ -175,6 +392,133 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
         return new ComputeCNFFormula(this);
     }
 
+    /**
+     * A subformula that has been replaced with an auxiliary variable.
+     */
+    private static class Abstraction {
+        private final IFormula originalFormula;
+        private final IFormula abstractedFormula;
+        private final Variable auxiliaryVariable;
+
+        private Abstraction(IFormula originalFormula, IFormula abstractedFormula, Variable auxiliaryVariable) {
+            this.originalFormula = originalFormula;
+            this.abstractedFormula = abstractedFormula;
+            this.auxiliaryVariable = auxiliaryVariable;
+        }
+
+        /**
+         * {@return formulas that define the auxiliary variable as the abstracted formula}
+         * Each formula is strictly shallower than the abstracted formula, so the recursive transformation terminates.
+         *
+         * @param isPlaistedGreenbaum whether to only define that the auxiliary variable implies the formula
+         */
+        @SuppressWarnings("unchecked")
+        private List<IFormula> getDefinitions(boolean isPlaistedGreenbaum) {
+            List<IFormula> children = (List<IFormula>) abstractedFormula.getChildren();
+            Literal auxiliaryLiteral = new Literal(auxiliaryVariable);
+            List<IFormula> definitions = new ArrayList<>();
+            if (abstractedFormula instanceof And) {
+                for (IFormula child : children) {
+                    definitions.add(newClause(auxiliaryLiteral.invert(), List.of(child)));
+                }
+                if (!isPlaistedGreenbaum) {
+                    List<IFormula> negatedChildren = new ArrayList<>(children.size());
+                    for (IFormula child : children) {
+                        negatedChildren.add(negate(child));
+                    }
+                    definitions.add(newClause(auxiliaryLiteral, negatedChildren));
+                }
+            } else {
+                definitions.add(newClause(auxiliaryLiteral.invert(), children));
+                if (!isPlaistedGreenbaum) {
+                    for (IFormula child : children) {
+                        definitions.add(newClause(auxiliaryLiteral, List.of(negate(child))));
+                    }
+                }
+            }
+            return definitions;
+        }
+
+        /**
+         * {@return a disjunction of a literal and the given formulas}
+         * Nested disjunctions are flattened, as the distributive transformer requires.
+         */
+        private static IFormula newClause(Literal literal, List<IFormula> formulas) {
+            List<IFormula> children = new ArrayList<>(formulas.size() + 1);
+            children.add(literal);
+            for (IFormula formula : formulas) {
+                if (formula instanceof Or) {
+                    for (IExpression child : formula.getChildren()) {
+                        children.add((IFormula) child);
+                    }
+                } else {
+                    children.add(formula);
+                }
+            }
+            return new Or(children);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static IFormula negate(IFormula formula) {
+            if (formula instanceof Literal) {
+                return ((Literal) formula).invert();
+            } else if (formula instanceof True) {
+                return False.INSTANCE;
+            } else if (formula instanceof False) {
+                return True.INSTANCE;
+            }
+            List<IFormula> negatedChildren = new ArrayList<>();
+            for (IFormula child : (List<IFormula>) formula.getChildren()) {
+                negatedChildren.add(negate(child));
+            }
+            return formula instanceof And ? new Or(negatedChildren) : new And(negatedChildren);
+        }
+    }
+
+    /**
+     * Auxiliary variables introduced by hybrid transformations.
+     * They are renamed when unifying substitutions, so all literals must refer to the same variable objects.
+     * As the distributive transformer clones its input, this requires rebinding the cloned literals.
+     */
+    private static class AuxiliaryVariables {
+        private final AtomicInteger index = new AtomicInteger();
+        private final Map<String, Variable> variables = new ConcurrentHashMap<>();
+
+        private Variable newVariable() {
+            String name = TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX + "hybrid_" + index.incrementAndGet();
+            Variable variable = new Variable(name);
+            variables.put(name, variable);
+            return variable;
+        }
+
+        private void rebind(List<? extends IFormula> clauseFormulas) {
+            if (variables.isEmpty()) {
+                return;
+            }
+            for (IFormula clauseFormula : clauseFormulas) {
+                if (clauseFormula instanceof Literal) {
+                    rebind((Literal) clauseFormula);
+                } else {
+                    for (IExpression literal : clauseFormula.getChildren()) {
+                        if (literal instanceof Literal) {
+                            rebind((Literal) literal);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void rebind(Literal literal) {
+            IExpression expression = literal.getExpression();
+            if (expression instanceof Variable) {
+                Variable variable = variables.get(((Variable) expression).getName());
+                if (variable != null && variable != expression) {
+                    literal.setExpression(variable);
+                }
+            }
+        }
+    }
+
     private static IFormula toStrictForm(IFormula formula) {
         if (formula instanceof Literal) {
             formula = new And(new Or(formula));
@@ -25,9 +25,8 @@ import de.featjar.base.data.Result;
 import de.featjar.base.tree.Trees;
 import de.featjar.formula.structure.ExpressionKind;
 import de.featjar.formula.structure.formula.IFormula;
-import de.featjar.formula.structure.formula.connective.Reference;
+import de.featjar.formula.structure.formula.connective.CardinalityEncoding;
 import de.featjar.formula.structure.term.value.Variable;
-import de.featjar.formula.visitor.*;
 import java.util.List;
 
 /**
@@ -37,9 +36,15 @@ import java.util.List;
  */
 public class ComputeNNFFormula extends AComputation<IFormula> {
     protected static final Dependency<IFormula> FORMULA = Dependency.newDependency(IFormula.class);
+    /**
+     * Determines the default encoding for cardinality constraints.
+     * Can be overridden for individual cardinality constraints.
+     */
+    public static final Dependency<CardinalityEncoding> CARDINALITY_ENCODING =
+            Dependency.newDependency(CardinalityEncoding.class);
 
     public ComputeNNFFormula(IComputation<IFormula> formula) {
-        super(formula);
+        super(formula, Computations.of(CardinalityEncoding.BINOMIAL));
     }
 
     protected ComputeNNFFormula(ComputeNNFFormula other) {
@@ -49,13 +54,10 @@ public class ComputeNNFFormula extends AComputation<IFormula> {
     @Override
     public Result<IFormula> compute(List<Object> dependencyList, Progress progress) {
         IFormula formula = FORMULA.get(dependencyList);
+        CardinalityEncoding cardinalityEncoding = CARDINALITY_ENCODING.get(dependencyList);
         ExpressionKind.BOOLEAN.assertFor(formula);
-        if (formula.getVariables().isEmpty()) throw new IllegalArgumentException("requires at least one variable");
-        Variable variable = formula.getVariables().get(0);
-        return Reference.mutateClone(formula, reference -> Trees.traverse(reference, new ConnectiveSimplifier())
-                .flatMap(_void -> Trees.traverse(reference, new DeMorganApplier()))
-                .flatMap(_void -> Trees.traverse(reference, new TrueFalseSimplifier()))
-                .flatMap(_void -> Trees.traverse(reference, new TrueFalseRemover(variable)))
-                .flatMap(_void -> Trees.traverse(reference, new AndOrSimplifier())));
+        if (Trees.preOrderStream(formula).noneMatch(expression -> expression instanceof Variable))
+            throw new IllegalArgumentException("requires at least one variable");
+        return Result.of(new NNFTransformer(cardinalityEncoding).apply(formula));
     }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.transformer;
+
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.connective.And;
+import de.featjar.formula.structure.formula.connective.Or;
+import de.featjar.formula.structure.formula.predicate.False;
+import de.featjar.formula.structure.formula.predicate.Literal;
+import de.featjar.formula.structure.formula.predicate.True;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estimates the size of the result of a {@link DistributiveTransformer} without running it.
+ * Estimates are computed bottom-up and are upper bounds, as they ignore tautological and subsumed clauses.
+ * Counts are stored as doubles, so they saturate at infinity instead of overflowing.
+ */
+public class DistributiveSizeEstimate {
+    private static final DistributiveSizeEstimate LITERAL = new DistributiveSizeEstimate(1, 1, 0);
+    private static final DistributiveSizeEstimate TRUE = new DistributiveSizeEstimate(0, 0, 0);
+    private static final DistributiveSizeEstimate FALSE = new DistributiveSizeEstimate(1, 0, 0);
+
+    private final double clauseCount;
+    private final double literalCount;
+    private final double cost;
+
+    private DistributiveSizeEstimate(double clauseCount, double literalCount, double cost) {
+        this.clauseCount = clauseCount;
+        this.literalCount = literalCount;
+        this.cost = cost;
+    }
+
+    /**
+     * {@return the estimate for a given formula in NNF}
+     *
+     * @param formula the formula
+     */
+    public static DistributiveSizeEstimate of(IFormula formula) {
+        if (formula instanceof Literal) {
+            return LITERAL;
+        } else if (formula instanceof True) {
+            return TRUE;
+        } else if (formula instanceof False) {
+            return FALSE;
+        }
+        List<DistributiveSizeEstimate> childEstimates = new ArrayList<>(formula.getChildrenCount());
+        boolean hasNonLiteralChild = false;
+        for (IExpression child : formula.getChildren()) {
+            childEstimates.add(of((IFormula) child));
+            hasNonLiteralChild |= !(child instanceof Literal);
+        }
+        return of(formula, childEstimates, hasNonLiteralChild);
+    }
+
+    /**
+     * {@return the estimate for a given conjunction or disjunction, given estimates for its children}
+     *
+     * @param formula the conjunction or disjunction
+     * @param childEstimates the estimates of the children
+     * @param hasNonLiteralChild whether any child is not a literal
+     */
+    public static DistributiveSizeEstimate of(
+            IFormula formula, List<DistributiveSizeEstimate> childEstimates, boolean hasNonLiteralChild) {
+        if (formula instanceof And) {
+            double clauseCount = 0, literalCount = 0, cost = 0;
+            for (DistributiveSizeEstimate childEstimate : childEstimates) {
+                clauseCount += childEstimate.clauseCount;
+                literalCount += childEstimate.literalCount;
+                cost += childEstimate.cost;
+            }
+            return new DistributiveSizeEstimate(clauseCount, literalCount, cost);
+        } else if (formula instanceof Or) {
+            // each clause of the product contains one clause of each child
+            double clauseCount = 1, literalCount = 0, cost = 0;
+            for (DistributiveSizeEstimate childEstimate : childEstimates) {
+                literalCount = literalCount * childEstimate.clauseCount + clauseCount * childEstimate.literalCount;
+                clauseCount *= childEstimate.clauseCount;
+                cost += childEstimate.cost;
+            }
+            // the distributive transformer only expands disjunctions with non-literal children
+            return new DistributiveSizeEstimate(
+                    clauseCount, literalCount, hasNonLiteralChild ? cost + literalCount : cost);
+        } else {
+            throw new IllegalArgumentException("Formula is not in NNF");
+        }
+    }
+
+    /**
+     * {@return the estimated number of clauses in the result}
+     */
+    public double getClauseCount() {
+        return clauseCount;
+    }
+
+    /**
+     * {@return the estimated number of literals in the result}
+     */
+    public double getLiteralCount() {
+        return literalCount;
+    }
+
+    /**
+     * {@return the estimated number of literals generated during the transformation}
+     * This includes the literals of intermediate clauses and is what
+     * {@link DistributiveTransformer.MaximumNumberOfLiteralsCancelPredicate} limits.
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * {@return whether the transformation is estimated to not exceed a given maximum number of literals}
+     *
+     * @param maximumNumberOfLiterals the maximum number of literals
+     */
+    public boolean fits(int maximumNumberOfLiterals) {
+        return cost <= maximumNumberOfLiterals;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DistributiveSizeEstimate[clauses=%.0f, literals=%.0f, cost=%.0f]", clauseCount, literalCount, cost);
+    }
+}
@@ -31,7 +31,6 @@ import de.featjar.formula.structure.formula.connective.Or;
 import de.featjar.formula.structure.formula.predicate.Literal;
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Transforms a formula into strict normal form using the distributive law.
@@ -59,14 +58,37 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
 
     /**
      * Predicate for determining whether to cancel an ongoing distributive transformation.
+     * Called for every new clause.
      */
     public interface ICancelPredicate extends Function<LinkedHashSet<Literal>, Throwable> {}
 
+    /**
+     * Predicate for determining whether to cancel an ongoing distributive transformation that only depends on the
+     * number of literals of each clause.
+     * {@link #apply(int)} is called instead of {@link #apply(LinkedHashSet)}, which avoids creating a set of literals for
+     * each clause.
+     */
+    public interface ISizeBasedCancelPredicate extends ICancelPredicate {
+        /**
+         * {@return a throwable if the transformation should be cancelled, {@code null} otherwise}
+         *
+         * @param numberOfLiterals the number of literals of the new clause
+         */
+        Throwable apply(int numberOfLiterals);
+
+        @Override
+        default Throwable apply(LinkedHashSet<Literal> clause) {
+            return apply(clause.size());
+        }
+    }
+
+    private static final ISizeBasedCancelPredicate NO_CANCEL_PREDICATE = numberOfLiterals -> null;
+
     /**
      * Cancels an ongoing distributive transformation when a given maximum number of literals has been exceeded.
      * Limits the maximum number of literals in the resulting formula.
      */
-    public static class MaximumNumberOfLiteralsCancelPredicate implements ICancelPredicate {
+    public static class MaximumNumberOfLiteralsCancelPredicate implements ISizeBasedCancelPredicate {
         protected final int maximumNumberOfLiterals;
         int currentNumberOfLiterals = 0;
 
@@ -80,8 +102,8 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
         }
 
         @Override
-        public Throwable apply(LinkedHashSet<Literal> clause) {
-            currentNumberOfLiterals += clause.size();
+        public Throwable apply(int numberOfLiterals) {
+            currentNumberOfLiterals += numberOfLiterals;
             return currentNumberOfLiterals > maximumNumberOfLiterals
                     ? new RuntimeException("exceeded maximum number of literals " + maximumNumberOfLiterals
                             + " with clause of size " + currentNumberOfLiterals)
@@ -118,7 +140,7 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
      * @param cancelPredicate the cancel predicate, if any
      */
     public DistributiveTransformer(boolean isCNF, ICancelPredicate cancelPredicate) {
-        this.cancelPredicate = cancelPredicate != null ? cancelPredicate : clause -> null;
+        this.cancelPredicate = cancelPredicate != null ? cancelPredicate : NO_CANCEL_PREDICATE;
         this.isCNF = isCNF;
         if (this.isCNF) {
             clauseClass = Or.class;
@@ -136,6 +158,7 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
         if (isCNF) formula = (formula instanceof And) ? (And) formula : new And(formula);
         else formula = (formula instanceof Or) ? (Or) formula : new Or(formula);
 
+        LiteralEngine engine = new LiteralEngine();
         ArrayList<PathElement> path = new ArrayList<>();
         ArrayDeque<IFormula> stack = new ArrayDeque<>();
         stack.addLast(formula);
@@ -163,7 +186,7 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
                 if ((clauseClass == currentFormula.getClass()) && (currentElement.maximumDepth > 0)) {
                     PathElement parentElement = path.get(path.size() - 1);
                     try {
-                        parentElement.newChildren.addAll(transform(currentFormula));
+                        parentElement.newChildren.addAll(engine.transform(currentFormula));
                     } catch (CancelledException e) {
                         return Result.empty(e);
                     }
@@ -180,100 +203,231 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
         return Result.of(formula);
     }
 
-    @SuppressWarnings("unchecked")
-    private List<IFormula> transform(IFormula formula) throws CancelledException {
-        if (formula instanceof Literal) {
-            return new ArrayList<>();
-        } else {
-            ArrayList<LinkedHashSet<Literal>> clauses = new ArrayList<>();
+    /**
+     * Distributes a clause over its children using interned integer literals.
+     * Literals are identified by their variable index, negated for negative literals.
+     * The current partial clause is kept on a stack, and a mark per variable allows constant-time lookups of
+     * literals and their complements, so no objects are allocated while enumerating.
+     * Literals appear in the resulting clauses in the order they are added, as in a {@link LinkedHashSet}.
+     */
+    private class LiteralEngine {
+        private final HashMap<IExpression, Integer> variableIndices = new HashMap<>();
+        private final ArrayList<Literal> positiveLiterals = new ArrayList<>();
+        private final ArrayList<Literal> negativeLiterals = new ArrayList<>();
+        private byte[] marks = new byte[16];
+        private int[] stamps = new int[32];
+        private int stamp = 0;
+        private int[] stack = new int[16];
+        private int stackSize = 0;
+
+        private int[] childLiterals;
+        private int[][][] childClauses;
+        private List<int[]> clauses;
+
+        private LiteralEngine() {
+            positiveLiterals.add(null);
+            negativeLiterals.add(null);
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<IFormula> transform(IFormula formula) throws CancelledException {
+            if (formula instanceof Literal) {
+                return new ArrayList<>();
+            }
             List<IFormula> children = new ArrayList<>((List<IFormula>) formula.getChildren());
             children.sort(Comparator.comparingInt(ITree::getChildrenCount));
-            transform(children, clauses, new LinkedHashSet<>(children.size() * 2), 0);
+            childLiterals = new int[children.size()];
+            childClauses = new int[children.size()][][];
+            for (int i = 0; i < children.size(); i++) {
+                IFormula child = children.get(i);
+                if (child instanceof Literal) {
+                    childLiterals[i] = intern((Literal) child);
+                } else {
+                    List<? extends IExpression> grandChildren = child.getChildren();
+                    childClauses[i] = new int[grandChildren.size()][];
+                    for (int j = 0; j < grandChildren.size(); j++) {
+                        childClauses[i][j] = intern(grandChildren.get(j));
+                    }
+                }
+            }
+            if (stack.length < children.size() * 2) {
+                stack = new int[children.size() * 2];
+            }
+            clauses = new ArrayList<>();
+            enumerate(0);
 
+            clauses.sort(Comparator.comparingInt(clause -> clause.length));
             List<IFormula> filteredClauseList = new ArrayList<>(clauses.size());
-            clauses.sort(Comparator.comparingInt(Set::size));
+            long[] signatures = new long[clauses.size()];
+            for (int i = 0; i < signatures.length; i++) {
+                signatures[i] = getSignature(clauses.get(i));
+            }
             int lastIndex = clauses.size();
             for (int i = 0; i < lastIndex; i++) {
-                LinkedHashSet<Literal> set = clauses.get(i);
-                if (set != null) {
+                int[] clause = clauses.get(i);
+                if (clause != null) {
+                    stamp(clause);
                     for (int j = i + 1; j < lastIndex; j++) {
-                        LinkedHashSet<Literal> set2 = clauses.get(j);
-                        if (set2 != null) {
-                            if (set2.containsAll(set)) {
-                                clauses.set(j, null);
-                            }
+                        int[] clause2 = clauses.get(j);
+                        if (clause2 != null
+                                && (signatures[i] & ~signatures[j]) == 0
+                                && containsAllStamped(clause2, clause.length)) {
+                            clauses.set(j, null);
                         }
                     }
-                    filteredClauseList.add(clauseConstructor.apply(new ArrayList<>(set)));
+                    filteredClauseList.add(clauseConstructor.apply(toLiterals(clause)));
                 }
             }
-
             return filteredClauseList;
         }
-    }
 
-    @SuppressWarnings("unchecked")
-    private void transform(
-            List<IFormula> children, List<LinkedHashSet<Literal>> clauses, LinkedHashSet<Literal> literals, int index)
-            throws CancelledException {
-        if (index == children.size()) {
-            LinkedHashSet<Literal> newClause = new LinkedHashSet<>(literals);
-            Throwable cancelThrowable = cancelPredicate.apply(newClause);
-            if (cancelThrowable != null) {
-                throw new CancelledException(cancelThrowable);
-            }
-            clauses.add(newClause);
-        } else {
-            IExpression child = children.get(index);
-            if (child instanceof Literal) {
-                Literal clauseLiteral = (Literal) child;
-                if (literals.contains(clauseLiteral)) {
-                    transform(children, clauses, literals, index + 1);
-                } else if (!literals.contains(clauseLiteral.invert())) {
-                    literals.add(clauseLiteral);
-                    transform(children, clauses, literals, index + 1);
-                    literals.remove(clauseLiteral);
+        private void enumerate(int index) throws CancelledException {
+            if (index == childLiterals.length) {
+                int[] newClause = Arrays.copyOf(stack, stackSize);
+                Throwable cancelThrowable = cancelPredicate instanceof ISizeBasedCancelPredicate
+                        ? ((ISizeBasedCancelPredicate) cancelPredicate).apply(newClause.length)
+                        : cancelPredicate.apply(new LinkedHashSet<>(toLiterals(newClause)));
+                if (cancelThrowable != null) {
+                    throw new CancelledException(cancelThrowable);
+                }
+                clauses.add(newClause);
+            } else if (childClauses[index] == null) {
+                int literal = childLiterals[index];
+                if (contains(literal)) {
+                    enumerate(index + 1);
+                } else if (!contains(-literal)) {
+                    push(literal);
+                    enumerate(index + 1);
+                    pop(1);
                 }
+            } else if (isRedundant(childClauses[index])) {
+                enumerate(index + 1);
             } else {
-                if (isRedundant(literals, child)) {
-                    transform(children, clauses, literals, index + 1);
-                } else {
-                    for (IExpression grandChild : child.getChildren()) {
-                        if (grandChild instanceof Literal) {
-                            Literal newlyAddedLiteral = (Literal) grandChild;
-                            if (!literals.contains(newlyAddedLiteral.invert())) {
-                                literals.add(newlyAddedLiteral);
-                                transform(children, clauses, literals, index + 1);
-                                literals.remove(newlyAddedLiteral);
-                            }
-                        } else {
-                            List<Literal> greatGrandChildren = (List<Literal>) grandChild.getChildren();
-                            if (containsNoComplements(literals, greatGrandChildren)) {
-                                List<Literal> newlyAddedLiterals = greatGrandChildren.stream()
-                                        .filter(literals::add)
-                                        .collect(Collectors.toList());
-                                transform(children, clauses, literals, index + 1);
-                                newlyAddedLiterals.forEach(literals::remove);
+                for (int[] grandChild : childClauses[index]) {
+                    if (containsNoComplements(grandChild)) {
+                        int numberOfAddedLiterals = 0;
+                        for (int literal : grandChild) {
+                            if (!contains(literal)) {
+                                push(literal);
+                                numberOfAddedLiterals++;
                             }
                         }
+                        enumerate(index + 1);
+                        pop(numberOfAddedLiterals);
                     }
                 }
             }
         }
-    }
 
-    protected boolean containsNoComplements(LinkedHashSet<Literal> literals, List<Literal> greatGrandChildren) {
-        return greatGrandChildren.stream().map(Literal::invert).noneMatch(literals::contains);
-    }
+        private boolean isRedundant(int[][] grandChildren) {
+            for (int[] grandChild : grandChildren) {
+                boolean containsAll = true;
+                for (int literal : grandChild) {
+                    if (!contains(literal)) {
+                        containsAll = false;
+                        break;
+                    }
+                }
+                if (containsAll) {
+                    return true;
+                }
+            }
+            return false;
+        }
 
-    protected boolean isRedundant(LinkedHashSet<Literal> literals, IExpression child) {
-        return child.getChildren().stream().anyMatch(e -> isRedundant(e, literals));
-    }
+        private boolean containsNoComplements(int[] literals) {
+            for (int literal : literals) {
+                if (contains(-literal)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean contains(int literal) {
+            return marks[Math.abs(literal)] == (literal > 0 ? 1 : -1);
+        }
 
-    @SuppressWarnings("unchecked")
-    protected static boolean isRedundant(IExpression expression, LinkedHashSet<Literal> literals) {
-        return (expression instanceof Literal)
-                ? literals.contains(expression)
-                : literals.containsAll((List<Literal>) expression.getChildren());
+        private void push(int literal) {
+            if (stackSize == stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[stackSize++] = literal;
+            marks[Math.abs(literal)] = (byte) (literal > 0 ? 1 : -1);
+        }
+
+        private void pop(int count) {
+            for (int i = 0; i < count; i++) {
+                marks[Math.abs(stack[--stackSize])] = 0;
+            }
+        }
+
+        private int[] intern(IExpression expression) {
+            if (expression instanceof Literal) {
+                return new int[] {intern((Literal) expression)};
+            }
+            List<? extends IExpression> literals = expression.getChildren();
+            int[] clause = new int[literals.size()];
+            for (int i = 0; i < clause.length; i++) {
+                clause[i] = intern((Literal) literals.get(i));
+            }
+            return clause;
+        }
+
+        private int intern(Literal literal) {
+            Integer index = variableIndices.get(literal.getExpression());
+            if (index == null) {
+                index = variableIndices.size() + 1;
+                variableIndices.put(literal.getExpression(), index);
+                positiveLiterals.add(null);
+                negativeLiterals.add(null);
+                if (marks.length <= index) {
+                    marks = Arrays.copyOf(marks, marks.length * 2);
+                    stamps = Arrays.copyOf(stamps, marks.length * 2);
+                }
+            }
+            ArrayList<Literal> representatives = literal.isPositive() ? positiveLiterals : negativeLiterals;
+            if (representatives.get(index) == null) {
+                representatives.set(index, literal);
+            }
+            return literal.isPositive() ? index : -index;
+        }
+
+        private List<Literal> toLiterals(int[] clause) {
+            List<Literal> literals = new ArrayList<>(clause.length);
+            for (int literal : clause) {
+                literals.add(literal > 0 ? positiveLiterals.get(literal) : negativeLiterals.get(-literal));
+            }
+            return literals;
+        }
+
+        private long getSignature(int[] clause) {
+            long signature = 0;
+            for (int literal : clause) {
+                signature |= 1L << (getStampIndex(literal) & 63);
+            }
+            return signature;
+        }
+
+        private void stamp(int[] clause) {
+            stamp++;
+            for (int literal : clause) {
+                stamps[getStampIndex(literal)] = stamp;
+            }
+        }
+
+        private boolean containsAllStamped(int[] clause, int numberOfStampedLiterals) {
+            int count = 0;
+            for (int literal : clause) {
+                if (stamps[getStampIndex(literal)] == stamp) {
+                    count++;
+                }
+            }
+            return count == numberOfStampedLiterals;
+        }
+
+        private int getStampIndex(int literal) {
+            return literal > 0 ? 2 * literal : -2 * literal + 1;
+        }
     }
 }
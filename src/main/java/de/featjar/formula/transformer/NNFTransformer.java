@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.transformer;
+
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.connective.*;
+import de.featjar.formula.structure.formula.predicate.False;
+import de.featjar.formula.structure.formula.predicate.IPolarPredicate;
+import de.featjar.formula.structure.formula.predicate.Literal;
+import de.featjar.formula.structure.formula.predicate.True;
+import de.featjar.formula.structure.term.value.Variable;
+import de.featjar.formula.visitor.CardinalityEncoder;
+import de.featjar.formula.visitor.ConnectiveSimplifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Transforms a Boolean formula into strict negation normal form in a single traversal.
+ * Negations are pushed down and complex connectives are eliminated by tracking the polarity of each subformula,
+ * so the input is neither cloned nor mutated.
+ * Complex connectives are simplified as in {@link ConnectiveSimplifier}, and {@link True} and {@link False} are
+ * simplified and removed as in {@link de.featjar.formula.visitor.TrueFalseSimplifier},
+ * {@link de.featjar.formula.visitor.TrueFalseRemover}, and {@link de.featjar.formula.visitor.AndOrSimplifier}.
+ * Operands of a conjunction or disjunction that are dominated by a constant are not transformed at all.
+ * Only cardinality constraints are encoded into clauses first, which are then traversed to push down their negations.
+ * Requires the formula to be {@link de.featjar.formula.structure.ExpressionKind#BOOLEAN Boolean} and to contain
+ * at least one variable.
+ */
+public class NNFTransformer implements Function<IFormula, IFormula> {
+
+    private final CardinalityEncoding cardinalityEncoding;
+
+    private CardinalityEncoder cardinalityEncoder;
+    private IFormula root;
+    private Variable variable;
+
+    /**
+     * Creates a new negation normal form transformer.
+     *
+     * @param cardinalityEncoding the default encoding for cardinality constraints
+     */
+    public NNFTransformer(CardinalityEncoding cardinalityEncoding) {
+        this.cardinalityEncoding = cardinalityEncoding;
+    }
+
+    @Override
+    public IFormula apply(IFormula formula) {
+        cardinalityEncoder = new CardinalityEncoder();
+        root = formula;
+        variable = null;
+        try {
+            IFormula newFormula = removeConstant(transform(formula, true, false));
+            return isUnary(newFormula) ? (IFormula) newFormula.getFirstChild().get() : newFormula;
+        } finally {
+            cardinalityEncoder = null;
+            root = null;
+            variable = null;
+        }
+    }
+
+    /**
+     * {@return the negation normal form of the given formula or its negation}
+     *
+     * @param formula the formula
+     * @param isPositive whether the formula occurs unnegated
+     * @param isMixed whether the formula occurs both negated and unnegated (e.g., below a {@link BiImplies})
+     */
+    @SuppressWarnings("unchecked")
+    private IFormula transform(IFormula formula, boolean isPositive, boolean isMixed) {
+        if (formula instanceof True) {
+            return isPositive ? True.INSTANCE : False.INSTANCE;
+        } else if (formula instanceof False) {
+            return isPositive ? False.INSTANCE : True.INSTANCE;
+        } else if (formula instanceof IPolarPredicate) {
+            IPolarPredicate predicate = (IPolarPredicate) formula.cloneTree();
+            return isPositive ? predicate : predicate.invert();
+        } else if (formula instanceof Not) {
+            return transform((IFormula) formula.getFirstChild().get(), !isPositive, isMixed);
+        } else if (formula instanceof And || formula instanceof Or) {
+            List<IFormula> children = (List<IFormula>) formula.getChildren();
+            return transformJunction(
+                    children.size(),
+                    i -> transform(children.get(i), isPositive, isMixed),
+                    (formula instanceof And) == isPositive);
+        } else if (formula instanceof Implies) {
+            List<IFormula> children = (List<IFormula>) formula.getChildren();
+            return transformImplies(children.get(0), children.get(1), isPositive, isMixed);
+        } else if (formula instanceof BiImplies) {
+            List<IFormula> children = (List<IFormula>) formula.getChildren();
+            return transformJunction(
+                    2,
+                    i -> transformImplies(children.get(i), children.get(1 - i), isPositive, true),
+                    isPositive);
+        } else if (formula instanceof ACardinal) {
+            return transform(encode((ACardinal) formula, getPolarity(isPositive, isMixed)), isPositive, isMixed);
+        }
+        throw new IllegalArgumentException("unsupported formula " + formula);
+    }
+
+    private IFormula transformImplies(IFormula premise, IFormula conclusion, boolean isPositive, boolean isMixed) {
+        return transformJunction(
+                2,
+                i -> i == 0 ? transform(premise, !isPositive, isMixed) : transform(conclusion, isPositive, isMixed),
+                !isPositive);
+    }
+
+    @SuppressWarnings("unchecked")
+    private IFormula transformJunction(int childrenCount, IntFunction<IFormula> transformChild, boolean isAnd) {
+        IFormula dominant = isAnd ? False.INSTANCE : True.INSTANCE;
+        List<IFormula> newChildren = new ArrayList<>(childrenCount);
+        for (int i = 0; i < childrenCount; i++) {
+            IFormula newChild = transformChild.apply(i);
+            if (newChild == dominant) {
+                return removeConstant(dominant);
+            }
+            if (!(newChild instanceof True || newChild instanceof False)) {
+                if ((isAnd ? newChild instanceof And : newChild instanceof Or) || isUnary(newChild)) {
+                    for (IFormula grandChild : (List<IFormula>) newChild.getChildren()) {
+                        newChildren.add(isUnary(grandChild) ? (IFormula) grandChild.getFirstChild().get() : grandChild);
+                    }
+                } else {
+                    newChildren.add(newChild);
+                }
+            }
+        }
+        return isAnd ? new And(newChildren) : new Or(newChildren);
+    }
+
+    private static int getPolarity(boolean isPositive, boolean isMixed) {
+        return isMixed ? 0 : isPositive ? 1 : -1;
+    }
+
+    private static boolean isUnary(IFormula formula) {
+        return (formula instanceof And || formula instanceof Or) && formula.getChildrenCount() == 1;
+    }
+
+    private IFormula removeConstant(IFormula formula) {
+        if (formula instanceof True || formula instanceof False) {
+            if (variable == null) {
+                variable = root.getVariables().get(0);
+            }
+            Literal literal = new Literal(variable);
+            Literal negatedLiteral = new Literal(false, variable);
+            return formula instanceof True ? new Or(literal, negatedLiteral) : new And(literal, negatedLiteral);
+        }
+        return formula;
+    }
+
+    /**
+     * {@return the clauses that encode the given cardinality constraint}
+     * Cardinality constraints nested in its elements are encoded beforehand, so their auxiliary variables are shared
+     * by all copies of an element in the resulting clauses.
+     */
+    @SuppressWarnings("unchecked")
+    private IFormula encode(ACardinal formula, int polarity) {
+        List<IFormula> children = (List<IFormula>) formula.getChildren();
+        List<IFormula> elements = new ArrayList<>(children.size());
+        for (IFormula child : children) {
+            elements.add(encodeNested(child, CardinalityEncoder.getPolarity(formula, child, polarity)));
+        }
+        CardinalityEncoding encoding = getCardinalityEncoding(formula, polarity);
+        if (formula instanceof AtLeast) {
+            return new And(cardinalityEncoder.atLeast(elements, ((AtLeast) formula).getMinimum(), encoding));
+        } else if (formula instanceof AtMost) {
+            return new And(cardinalityEncoder.atMost(elements, ((AtMost) formula).getMaximum(), encoding));
+        } else if (formula instanceof Between) {
+            Between between = (Between) formula;
+            return new And(
+                    new And(cardinalityEncoder.atLeast(elements, between.getMinimum(), encoding)),
+                    new And(cardinalityEncoder.atMost(elements, between.getMaximum(), encoding)));
+        } else if (formula instanceof Choose) {
+            Choose choose = (Choose) formula;
+            return new And(
+                    new And(cardinalityEncoder.atLeast(elements, choose.getBound(), encoding)),
+                    new And(cardinalityEncoder.atMost(elements, choose.getBound(), encoding)));
+        }
+        throw new IllegalArgumentException("unsupported formula " + formula);
+    }
+
+    @SuppressWarnings("unchecked")
+    private IFormula encodeNested(IFormula formula, int polarity) {
+        if (formula instanceof ACardinal) {
+            return encode((ACardinal) formula, polarity);
+        } else if (formula instanceof IPolarPredicate || formula.getChildrenCount() == 0) {
+            return formula;
+        }
+        List<IFormula> children = (List<IFormula>) formula.getChildren();
+        List<IFormula> newChildren = new ArrayList<>(children.size());
+        boolean isChanged = false;
+        for (IFormula child : children) {
+            IFormula newChild = encodeNested(child, CardinalityEncoder.getPolarity(formula, child, polarity));
+            isChanged |= newChild != child;
+            newChildren.add(newChild);
+        }
+        if (!isChanged) {
+            return formula;
+        }
+        IFormula newFormula = (IFormula) formula.cloneNode();
+        newFormula.setChildren(newChildren);
+        return newFormula;
+    }
+
+    private CardinalityEncoding getCardinalityEncoding(ACardinal cardinal, int polarity) {
+        return CardinalityEncoder.getEncoding(cardinal.getCardinalityEncoding().orElse(cardinalityEncoding), polarity);
+    }
+}
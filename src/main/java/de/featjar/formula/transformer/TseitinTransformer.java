@@ -54,11 +54,14 @@ public class TseitinTransformer
     /**
      * A substitution of a formula with an auxiliary variable.
      * Hashed over the original (i.e., substituted) formula to simplify unification (i.e., using the same variable for the same substituted formula).
+     * As the original formula is not modified, its hash code is cached.
      */
     public static class Substitution {
         protected final IFormula originalFormula;
         protected final Variable auxiliaryVariable;
         protected final List<IFormula> clauseFormulas;
+        private int hashCode;
+        private boolean isHashCodeValid;
 
         protected Substitution(IFormula originalFormula, Variable auxiliaryVariable, int numberOfClauses) {
             this.originalFormula = originalFormula;
@@ -101,7 +104,11 @@ public class TseitinTransformer
 
         @Override
         public int hashCode() {
-            return Objects.hashCode(originalFormula);
+            if (!isHashCodeValid) {
+                hashCode = Objects.hashCode(originalFormula);
+                isHashCodeValid = true;
+            }
+            return hashCode;
         }
 
         @Override
@@ -119,6 +126,8 @@ public class TseitinTransformer
      */
     public static void unify(List<Substitution> substitutions) {
         int currentAuxiliaryVariableIndex = 0;
+        // hash before renaming any auxiliary variable, which invalidates all cached hash codes of expressions
+        substitutions.forEach(Substitution::hashCode);
         LinkedHashMap<Substitution, Substitution> unifiedSubstitutions = Maps.empty();
         for (Substitution substitution : substitutions) {
             Substitution storedSubstitution = unifiedSubstitutions.get(substitution);
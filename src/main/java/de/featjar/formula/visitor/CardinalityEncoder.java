@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.visitor;
+
+import de.featjar.base.tree.Trees;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.connective.And;
+import de.featjar.formula.structure.formula.connective.AtLeast;
+import de.featjar.formula.structure.formula.connective.AtMost;
+import de.featjar.formula.structure.formula.connective.AtMostOneEncoding;
+import de.featjar.formula.structure.formula.connective.BiImplies;
+import de.featjar.formula.structure.formula.connective.CardinalityEncoding;
+import de.featjar.formula.structure.formula.connective.Implies;
+import de.featjar.formula.structure.formula.connective.Not;
+import de.featjar.formula.structure.formula.connective.Or;
+import de.featjar.formula.structure.formula.connective.Reference;
+import de.featjar.formula.structure.formula.predicate.Literal;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Transforms cardinality constraints into clauses using a given {@link CardinalityEncoding}.
+ * Encodings with auxiliary variables are only equisatisfiable, which preserves equivalence only if the encoded
+ * constraint occurs in positive position (see {@link #getPolarity(IFormula, IFormula, int)}).
+ * Auxiliary variables are incrementally numbered per encoder, so encoding the same constraints in the same order
+ * always yields the same variable names.
+ * To compose formulas encoded by different encoders without unintentionally sharing auxiliary variables, each
+ * encoder may be given its own scope (see {@link #CardinalityEncoder(String)} and {@link #setScope(IFormula, String)}).
+ */
+public class CardinalityEncoder {
+    /**
+     * Prefix for naming auxiliary variables.
+     */
+    public static final String AUXILIARY_VARIABLE_NAME_PREFIX = "_card_";
+
+    /**
+     * Maximum number of elements for which at-most-one constraints are always encoded pairwise.
+     */
+    public static final int PAIRWISE_AT_MOST_ONE_LIMIT = 4;
+
+    private static final int COMMANDER_GROUP_SIZE = 3;
+
+    private final String auxiliaryVariableNamePrefix;
+    private int auxiliaryVariableIndex = 0;
+
+    /**
+     * Creates a new cardinality encoder that names auxiliary variables {@code _card_1}, {@code _card_2}, and so on.
+     */
+    public CardinalityEncoder() {
+        auxiliaryVariableNamePrefix = AUXILIARY_VARIABLE_NAME_PREFIX;
+    }
+
+    /**
+     * Creates a new cardinality encoder that names auxiliary variables {@code _card_<scope>_1},
+     * {@code _card_<scope>_2}, and so on.
+     *
+     * @param scope the scope of the auxiliary variables
+     */
+    public CardinalityEncoder(String scope) {
+        auxiliaryVariableNamePrefix = getAuxiliaryVariableNamePrefix(scope);
+    }
+
+    /**
+     * Moves all auxiliary variables of a formula encoded without scope into the given scope.
+     * That is, renames each auxiliary variable {@code _card_<i>} to {@code _card_<scope>_<i>}, as if the formula
+     * had been encoded with {@link #CardinalityEncoder(String)}.
+     *
+     * @param formula the formula
+     * @param scope the scope of the auxiliary variables
+     */
+    public static void setScope(IFormula formula, String scope) {
+        final String prefix = getAuxiliaryVariableNamePrefix(scope);
+        final Set<Variable> variables = Collections.newSetFromMap(new IdentityHashMap<>());
+        Trees.preOrderStream(formula)
+                .filter(expression -> expression instanceof Variable)
+                .map(expression -> (Variable) expression)
+                .filter(variable -> variable.getName().startsWith(AUXILIARY_VARIABLE_NAME_PREFIX))
+                .forEach(variables::add);
+        for (Variable variable : variables) {
+            variable.setName(prefix + variable.getName().substring(AUXILIARY_VARIABLE_NAME_PREFIX.length()));
+        }
+    }
+
+    private static String getAuxiliaryVariableNamePrefix(String scope) {
+        return AUXILIARY_VARIABLE_NAME_PREFIX + scope + "_";
+    }
+
+    /**
+     * {@return the polarity of a child of the given formula}
+     * A subformula has positive polarity (1) if it only occurs unnegated, negative polarity (-1) if it only occurs
+     * negated, and mixed polarity (0) otherwise, for example, below a {@link BiImplies}.
+     *
+     * @param formula the formula
+     * @param child the child of the formula
+     * @param polarity the polarity of the formula
+     */
+    public static int getPolarity(IFormula formula, IFormula child, int polarity) {
+        if (formula instanceof And
+                || formula instanceof Or
+                || formula instanceof Reference
+                || formula instanceof AtLeast) {
+            return polarity;
+        } else if (formula instanceof Not || formula instanceof AtMost) {
+            return -polarity;
+        } else if (formula instanceof Implies) {
+            return formula.getChildren().get(0) == child ? -polarity : polarity;
+        }
+        return 0;
+    }
+
+    /**
+     * {@return the given encoding if a cardinality constraint with the given polarity may be encoded with it}
+     * Otherwise, returns {@link CardinalityEncoding#BINOMIAL}, which introduces no auxiliary variables.
+     *
+     * @param encoding the requested encoding
+     * @param polarity the polarity of the cardinality constraint
+     */
+    public static CardinalityEncoding getEncoding(CardinalityEncoding encoding, int polarity) {
+        return polarity > 0 ? encoding : CardinalityEncoding.BINOMIAL;
+    }
+
+    /**
+     * {@return clauses that encode that at most k of the given elements are true}
+     *
+     * @param elements the elements
+     * @param k the maximum number of true elements
+     * @param encoding the cardinality encoding
+     */
+    public List<IFormula> atMost(List<? extends IFormula> elements, int k, CardinalityEncoding encoding) {
+        final int n = elements.size();
+
+        // return contradiction
+        if (k < 0) {
+            return Collections.singletonList(Expressions.False);
+        }
+
+        // return tautology
+        if (k >= n) {
+            return Collections.singletonList(Expressions.True);
+        }
+
+        switch (k == 0 ? CardinalityEncoding.BINOMIAL : resolve(encoding, n, k)) {
+            case SEQUENTIAL_COUNTER:
+                return sequentialCounter(elements, k);
+            case TOTALIZER:
+                return totalizer(elements, k);
+            case SORTING_NETWORK:
+                return sortingNetwork(elements, k);
+            default:
+                return ConnectiveSimplifier.groupElements(
+                        elements.stream().map(Not::new).collect(Collectors.toList()), k, n);
+        }
+    }
+
+    /**
+     * {@return clauses that encode that at least k of the given elements are true}
+     * Encoded as at most n - k of the negated elements being true.
+     *
+     * @param elements the elements
+     * @param k the minimum number of true elements
+     * @param encoding the cardinality encoding
+     */
+    public List<IFormula> atLeast(List<? extends IFormula> elements, int k, CardinalityEncoding encoding) {
+        final int n = elements.size();
+
+        // return tautology
+        if (k <= 0) {
+            return Collections.singletonList(Expressions.True);
+        }
+
+        // return contradiction
+        if (k > n) {
+            return Collections.singletonList(Expressions.False);
+        }
+
+        if (resolve(encoding, n, n - k) == CardinalityEncoding.BINOMIAL) {
+            return ConnectiveSimplifier.groupElements(elements, n - k, n);
+        }
+        return atMost(
+                elements.stream().map(CardinalityEncoder::negate).collect(Collectors.toList()), n - k, encoding);
+    }
+
+    /**
+     * {@return the encoding to use for a constraint of at most k of n elements}
+     * Resolves {@link CardinalityEncoding#AUTOMATIC} by comparing the estimated number of clauses of each encoding.
+     *
+     * @param encoding the requested encoding
+     * @param n the number of elements
+     * @param k the maximum number of true elements
+     */
+    public static CardinalityEncoding resolve(CardinalityEncoding encoding, int n, int k) {
+        if (encoding != CardinalityEncoding.AUTOMATIC) {
+            return encoding;
+        }
+        final long sequentialCounterClauses = 2L * n * k + n;
+        final long binomialClauses = binomial(n, k + 1, sequentialCounterClauses + 1);
+        if (binomialClauses <= sequentialCounterClauses) {
+            return CardinalityEncoding.BINOMIAL;
+        }
+        final int logN = 32 - Integer.numberOfLeadingZeros(n - 1);
+        final long sortingNetworkClauses = 3L * n * logN * logN / 4;
+        return sequentialCounterClauses <= sortingNetworkClauses
+                ? CardinalityEncoding.SEQUENTIAL_COUNTER
+                : CardinalityEncoding.SORTING_NETWORK;
+    }
+
+    /**
+     * {@return clauses that encode that at most one of the given elements is true}
+     *
+     * @param elements the elements
+     * @param encoding the at-most-one encoding
+     */
+    public List<IFormula> atMostOne(List<? extends IFormula> elements, AtMostOneEncoding encoding) {
+        final int n = elements.size();
+        if (n <= 1) {
+            return new ArrayList<>();
+        }
+        switch (resolve(encoding, n)) {
+            case LADDER:
+                return sequentialCounter(elements, 1);
+            case COMMANDER:
+                return commander(elements);
+            case PRODUCT:
+                return product(elements);
+            case BIMANDER:
+                return bimander(elements);
+            default:
+                return ConnectiveSimplifier.groupElements(
+                        elements.stream().map(Not::new).collect(Collectors.toList()), 1, n);
+        }
+    }
+
+    /**
+     * {@return the encoding to use for an at-most-one constraint of n elements}
+     * Resolves {@link AtMostOneEncoding#AUTOMATIC} and uses {@link AtMostOneEncoding#PAIRWISE} for up to
+     * {@link #PAIRWISE_AT_MOST_ONE_LIMIT} elements, for which it requires the fewest clauses.
+     *
+     * @param encoding the requested encoding
+     * @param n the number of elements
+     */
+    public static AtMostOneEncoding resolve(AtMostOneEncoding encoding, int n) {
+        if (n <= PAIRWISE_AT_MOST_ONE_LIMIT) {
+            return AtMostOneEncoding.PAIRWISE;
+        }
+        return encoding == AtMostOneEncoding.AUTOMATIC ? AtMostOneEncoding.PRODUCT : encoding;
+    }
+
+    private static long binomial(int n, int k, long limit) {
+        k = Math.min(k, n - k);
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+            if (result > limit) {
+                return limit;
+            }
+        }
+        return result;
+    }
+
+    private List<IFormula> sequentialCounter(List<? extends IFormula> elements, int k) {
+        final int n = elements.size();
+        final List<IFormula> clauses = new ArrayList<>();
+        // counters[i][j] is true if at least j + 1 of the first i + 1 elements are true
+        final Literal[][] counters = new Literal[n - 1][k];
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = 0; j < k; j++) {
+                counters[i][j] = newAuxiliaryLiteral();
+            }
+        }
+        clauses.add(new Or(negate(elements.get(0)), copy(counters[0][0])));
+        for (int j = 1; j < k; j++) {
+            clauses.add(new Or(counters[0][j].invert()));
+        }
+        for (int i = 1; i < n - 1; i++) {
+            clauses.add(new Or(negate(elements.get(i)), copy(counters[i][0])));
+            clauses.add(new Or(counters[i - 1][0].invert(), copy(counters[i][0])));
+            for (int j = 1; j < k; j++) {
+                clauses.add(new Or(negate(elements.get(i)), counters[i - 1][j - 1].invert(), copy(counters[i][j])));
+                clauses.add(new Or(counters[i - 1][j].invert(), copy(counters[i][j])));
+            }
+            clauses.add(new Or(negate(elements.get(i)), counters[i - 1][k - 1].invert()));
+        }
+        clauses.add(new Or(negate(elements.get(n - 1)), counters[n - 2][k - 1].invert()));
+        return clauses;
+    }
+
+    private List<IFormula> totalizer(List<? extends IFormula> elements, int k) {
+        final List<IFormula> clauses = new ArrayList<>();
+        final List<IFormula> outputs = totalize(elements, 0, elements.size(), k + 1, clauses);
+        clauses.add(new Or(negate(outputs.get(k))));
+        return clauses;
+    }
+
+    /**
+     * {@return the unary counter of the given range of elements}
+     * The i-th output is forced to be true if at least i + 1 elements are true.
+     */
+    private List<IFormula> totalize(
+            List<? extends IFormula> elements, int from, int to, int maximumCount, List<IFormula> clauses) {
+        if (to - from == 1) {
+            return Collections.singletonList(elements.get(from));
+        }
+        final int middle = (from + to) >>> 1;
+        final List<IFormula> left = totalize(elements, from, middle, maximumCount, clauses);
+        final List<IFormula> right = totalize(elements, middle, to, maximumCount, clauses);
+        final int count = Math.min(left.size() + right.size(), maximumCount);
+        final List<IFormula> outputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            outputs.add(newAuxiliaryLiteral());
+        }
+        for (int i = 0; i <= left.size(); i++) {
+            for (int j = 0; j <= right.size() && i + j <= count; j++) {
+                if (i + j > 0) {
+                    final List<IFormula> clause = new ArrayList<>(3);
+                    if (i > 0) clause.add(negate(left.get(i - 1)));
+                    if (j > 0) clause.add(negate(right.get(j - 1)));
+                    clause.add(copy(outputs.get(i + j - 1)));
+                    clauses.add(new Or(clause));
+                }
+            }
+        }
+        return outputs;
+    }
+
+    private List<IFormula> sortingNetwork(List<? extends IFormula> elements, int k) {
+        final int n = elements.size();
+        final List<IFormula> clauses = new ArrayList<>();
+        int size = 1;
+        while (size < n) {
+            size <<= 1;
+        }
+        // wires beyond the elements are constantly false and represented by null
+        final IFormula[] wires = new IFormula[size];
+        for (int i = 0; i < n; i++) {
+            wires[i] = elements.get(i);
+        }
+        for (int p = 1; p < size; p <<= 1) {
+            for (int d = p; d >= 1; d >>= 1) {
+                for (int j = d % p; j + d < size; j += 2 * d) {
+                    for (int i = 0; i < d && i + j + d < size; i++) {
+                        if ((i + j) / (2 * p) == (i + j + d) / (2 * p)) {
+                            compare(wires, i + j, i + j + d, clauses);
+                        }
+                    }
+                }
+            }
+        }
+        clauses.add(new Or(negate(wires[k])));
+        return clauses;
+    }
+
+    private List<IFormula> commander(List<? extends IFormula> elements) {
+        final List<IFormula> clauses = new ArrayList<>();
+        final List<IFormula> commanders = new ArrayList<>();
+        for (int from = 0; from < elements.size(); from += COMMANDER_GROUP_SIZE) {
+            final List<? extends IFormula> group =
+                    elements.subList(from, Math.min(from + COMMANDER_GROUP_SIZE, elements.size()));
+            if (group.size() == 1) {
+                commanders.add(group.get(0));
+            } else {
+                final Literal commander = newAuxiliaryLiteral();
+                clauses.addAll(atMostOne(copy(group), AtMostOneEncoding.PAIRWISE));
+                for (IFormula element : group) {
+                    clauses.add(new Or(negate(element), copy(commander)));
+                }
+                commanders.add(commander);
+            }
+        }
+        clauses.addAll(atMostOne(commanders, AtMostOneEncoding.COMMANDER));
+        return clauses;
+    }
+
+    private List<IFormula> product(List<? extends IFormula> elements) {
+        final int n = elements.size();
+        final int rowCount = (int) Math.ceil(Math.sqrt(n));
+        final int columnCount = (n + rowCount - 1) / rowCount;
+        final List<IFormula> rows = new ArrayList<>(rowCount);
+        final List<IFormula> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(newAuxiliaryLiteral());
+        }
+        for (int j = 0; j < columnCount; j++) {
+            columns.add(newAuxiliaryLiteral());
+        }
+        final List<IFormula> clauses = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            clauses.add(new Or(negate(elements.get(i)), copy(rows.get(i / columnCount))));
+            clauses.add(new Or(negate(elements.get(i)), copy(columns.get(i % columnCount))));
+        }
+        clauses.addAll(atMostOne(rows, AtMostOneEncoding.PRODUCT));
+        clauses.addAll(atMostOne(columns, AtMostOneEncoding.PRODUCT));
+        return clauses;
+    }
+
+    private List<IFormula> bimander(List<? extends IFormula> elements) {
+        final int groupCount = (elements.size() + 1) / 2;
+        final int bitCount = 32 - Integer.numberOfLeadingZeros(groupCount - 1);
+        final Literal[] bits = new Literal[bitCount];
+        for (int j = 0; j < bitCount; j++) {
+            bits[j] = newAuxiliaryLiteral();
+        }
+        final List<IFormula> clauses = new ArrayList<>();
+        for (int group = 0; group < groupCount; group++) {
+            final List<? extends IFormula> groupElements =
+                    elements.subList(2 * group, Math.min(2 * group + 2, elements.size()));
+            clauses.addAll(atMostOne(copy(groupElements), AtMostOneEncoding.PAIRWISE));
+            for (IFormula element : groupElements) {
+                for (int j = 0; j < bitCount; j++) {
+                    clauses.add(new Or(
+                            negate(element), ((group >> j) & 1) == 1 ? copy(bits[j]) : bits[j].invert()));
+                }
+            }
+        }
+        return clauses;
+    }
+
+    /**
+     * Sorts two wires in descending order.
+     * Only encodes that the outputs are at least as large as the sorted inputs, which suffices for upper bounds.
+     */
+    private void compare(IFormula[] wires, int upper, int lower, List<IFormula> clauses) {
+        final IFormula a = wires[upper];
+        final IFormula b = wires[lower];
+        if (b == null) {
+            return;
+        }
+        if (a == null) {
+            wires[upper] = b;
+            wires[lower] = null;
+            return;
+        }
+        final Literal maximum = newAuxiliaryLiteral();
+        final Literal minimum = newAuxiliaryLiteral();
+        clauses.add(new Or(negate(a), maximum));
+        clauses.add(new Or(negate(b), maximum));
+        clauses.add(new Or(negate(a), negate(b), minimum));
+        wires[upper] = maximum;
+        wires[lower] = minimum;
+    }
+
+    private Literal newAuxiliaryLiteral() {
+        return new Literal(auxiliaryVariableNamePrefix + (++auxiliaryVariableIndex));
+    }
+
+    private static IFormula negate(IFormula formula) {
+        if (formula instanceof Literal) {
+            return ((Literal) formula).invert();
+        } else if (formula instanceof Not) {
+            return copy((IFormula) ((Not) formula).getExpression());
+        }
+        return new Not(copy(formula));
+    }
+
+    private static IFormula copy(IFormula formula) {
+        return (IFormula) formula.cloneTree();
+    }
+
+    private static List<IFormula> copy(List<? extends IFormula> formulas) {
+        return formulas.stream().map(CardinalityEncoder::copy).collect(Collectors.toList());
+    }
+}
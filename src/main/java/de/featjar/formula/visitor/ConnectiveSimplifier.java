@@ -23,27 +23,45 @@ package de.featjar.formula.visitor;
 import de.featjar.base.data.Result;
 import de.featjar.base.data.Void;
 import de.featjar.base.tree.visitor.ITreeVisitor;
-import de.featjar.formula.structure.Expressions;
 import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.formula.IFormula;
 import de.featjar.formula.structure.formula.connective.*;
 import de.featjar.formula.structure.formula.predicate.IPredicate;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Simplifies complex connectives using well-known identities.
  * That is, replaces {@link Implies}, {@link BiImplies}, {@link AtLeast}, {@link AtMost}, {@link Between},
  * and {@link Choose} with {@link And}, {@link Or}, and {@link Not}.
+ * Cardinality constraints are encoded with their own {@link CardinalityEncoding}, if set,
+ * or the default encoding of this simplifier otherwise (see {@link CardinalityEncoder}).
+ * Encodings with auxiliary variables are only used for cardinality constraints in positive position.
  *
  * @author Sebastian Krieter
  */
 public class ConnectiveSimplifier implements ITreeVisitor<IFormula, Void> {
 
+    private final CardinalityEncoding cardinalityEncoding;
+    private final CardinalityEncoder cardinalityEncoder = new CardinalityEncoder();
     private boolean fail;
 
+    /**
+     * Creates a new connective simplifier that encodes cardinality constraints without auxiliary variables.
+     */
+    public ConnectiveSimplifier() {
+        this(CardinalityEncoding.BINOMIAL);
+    }
+
+    /**
+     * Creates a new connective simplifier.
+     *
+     * @param cardinalityEncoding the default encoding for cardinality constraints
+     */
+    public ConnectiveSimplifier(CardinalityEncoding cardinalityEncoding) {
+        this.cardinalityEncoding = cardinalityEncoding;
+    }
+
     @Override
     public void reset() {
         fail = false;
@@ -72,15 +90,27 @@ public class ConnectiveSimplifier implements ITreeVisitor<IFormula, Void> {
     @Override
     public TraversalAction lastVisit(List<IFormula> path) {
         final IFormula formula = ITreeVisitor.getCurrentNode(path);
-        if (!(formula instanceof IPredicate)) formula.replaceChildren(this::replace);
+        if (!(formula instanceof IPredicate)) {
+            final int polarity = getPolarity(path);
+            formula.replaceChildren(
+                    child -> replace(child, CardinalityEncoder.getPolarity(formula, (IFormula) child, polarity)));
+        }
         if (fail) {
             return TraversalAction.FAIL;
         }
         return TraversalAction.CONTINUE;
     }
 
+    private static int getPolarity(List<IFormula> path) {
+        int polarity = 1;
+        for (int i = 1; i < path.size() && polarity != 0; i++) {
+            polarity = CardinalityEncoder.getPolarity(path.get(i - 1), path.get(i), polarity);
+        }
+        return polarity;
+    }
+
     @SuppressWarnings("unchecked")
-    private IFormula replace(IExpression formula) {
+    private IFormula replace(IExpression formula, int polarity) {
         if ((formula instanceof IPredicate)
                 || (formula instanceof And)
                 || (formula instanceof Or)
@@ -96,18 +126,27 @@ public class ConnectiveSimplifier implements ITreeVisitor<IFormula, Void> {
                     new Or(new Not(children.get(0)), children.get(1)),
                     new Or(new Not(children.get(1)), children.get(0)));
         } else if (formula instanceof AtLeast) {
-            newFormula = new And(atLeastK(children, ((AtLeast) formula).getMinimum()));
+            newFormula = new And(cardinalityEncoder.atLeast(
+                    children,
+                    ((AtLeast) formula).getMinimum(),
+                    getCardinalityEncoding((ACardinal) formula, polarity)));
         } else if (formula instanceof AtMost) {
-            newFormula = new And(atMostK(children, ((AtMost) formula).getMaximum()));
+            newFormula = new And(cardinalityEncoder.atMost(
+                    children,
+                    ((AtMost) formula).getMaximum(),
+                    getCardinalityEncoding((ACardinal) formula, polarity)));
         } else if (formula instanceof Between) {
             final Between between = (Between) formula;
+            final CardinalityEncoding encoding = getCardinalityEncoding(between, polarity);
             newFormula = new And(
-                    new And(atLeastK(children, between.getMinimum())),
-                    new And(atMostK(children, between.getMaximum())));
+                    new And(cardinalityEncoder.atLeast(children, between.getMinimum(), encoding)),
+                    new And(cardinalityEncoder.atMost(children, between.getMaximum(), encoding)));
         } else if (formula instanceof Choose) {
             final Choose choose = (Choose) formula;
+            final CardinalityEncoding encoding = getCardinalityEncoding(choose, polarity);
             newFormula = new And(
-                    new And(atLeastK(children, choose.getBound())), new And(atMostK(children, choose.getBound())));
+                    new And(cardinalityEncoder.atLeast(children, choose.getBound(), encoding)),
+                    new And(cardinalityEncoder.atMost(children, choose.getBound(), encoding)));
         } else {
             fail = true;
             return null;
@@ -115,36 +154,8 @@ public class ConnectiveSimplifier implements ITreeVisitor<IFormula, Void> {
         return newFormula;
     }
 
-    private List<IFormula> atMostK(List<? extends IFormula> elements, int k) {
-        final int n = elements.size();
-
-        // return tautology
-        if (k <= 0) {
-            return Collections.singletonList(Expressions.False);
-        }
-
-        // return contradiction
-        if (k > n) {
-            return Collections.singletonList(Expressions.True);
-        }
-
-        return groupElements(elements.stream().map(Not::new).collect(Collectors.toList()), k, n);
-    }
-
-    private List<IFormula> atLeastK(List<? extends IFormula> elements, int k) {
-        final int n = elements.size();
-
-        // return tautology
-        if (k <= 0) {
-            return Collections.singletonList(Expressions.True);
-        }
-
-        // return contradiction
-        if (k > n) {
-            return Collections.singletonList(Expressions.False);
-        }
-
-        return groupElements(elements, n - k, n);
+    private CardinalityEncoding getCardinalityEncoding(ACardinal cardinal, int polarity) {
+        return CardinalityEncoder.getEncoding(cardinal.getCardinalityEncoding().orElse(cardinalityEncoding), polarity);
     }
 
     public static List<IFormula> groupElements(List<? extends IFormula> elements, int k, final int n) {
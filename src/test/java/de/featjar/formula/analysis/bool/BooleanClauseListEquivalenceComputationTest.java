@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.base.data.Pair;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BooleanClauseListEquivalenceComputationTest {
+
+    private static Pair<BooleanClauseList, LiteralMapping> compute(int variableCount, BooleanClause... clauses) {
+        return Computations.of(new BooleanClauseList(List.of(clauses), variableCount))
+                .map(BooleanClauseListEquivalenceComputation::new)
+                .get()
+                .get();
+    }
+
+    @Test
+    void substitutesEquivalentLiterals() {
+        Pair<BooleanClauseList, LiteralMapping> result = compute(
+                5,
+                new BooleanClause(-1, 2),
+                new BooleanClause(1, -2),
+                new BooleanClause(-2, 3),
+                new BooleanClause(-3, 1),
+                new BooleanClause(1, 4),
+                new BooleanClause(-2, -4, 5),
+                new BooleanClause(-3, -4, 5));
+        assertEquals(List.of(new BooleanClause(1, 4), new BooleanClause(-1, -4, 5)), result.getKey().getAll());
+        assertEquals(new LiteralMapping(new int[] {1, 1, 1, 4, 5}), result.getValue());
+        assertEquals(3, result.getValue().countRepresentatives());
+        assertEquals(
+                new BooleanSolution(1, 2, 3, -4, 5),
+                result.getValue().expand(new BooleanSolution(1, 0, 0, -4, 5)));
+    }
+
+    @Test
+    void substitutesComplementaryLiterals() {
+        Pair<BooleanClauseList, LiteralMapping> result =
+                compute(3, new BooleanClause(1, 2), new BooleanClause(-1, -2), new BooleanClause(2, 3));
+        assertEquals(List.of(new BooleanClause(-1, 3)), result.getKey().getAll());
+        assertEquals(-1, result.getValue().map(2));
+        assertEquals(new BooleanSolution(1, -2, 3), result.getValue().expand(new BooleanSolution(1, 0, 3)));
+    }
+
+    @Test
+    void detectsContradictions() {
+        Pair<BooleanClauseList, LiteralMapping> result = compute(
+                2,
+                new BooleanClause(1, 2),
+                new BooleanClause(1, -2),
+                new BooleanClause(-1, 2),
+                new BooleanClause(-1, -2));
+        assertEquals(List.of(new BooleanClause()), result.getKey().getAll());
+    }
+}
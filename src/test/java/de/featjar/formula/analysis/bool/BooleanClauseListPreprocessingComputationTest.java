@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.base.data.Pair;
+import de.featjar.formula.analysis.VariableMap;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BooleanClauseListPreprocessingComputationTest {
+
+    private static Pair<BooleanClauseList, VariableMap> createCNF(BooleanClause... clauses) {
+        VariableMap variableMap = new VariableMap();
+        variableMap.add(1, "a");
+        variableMap.add(2, "b");
+        variableMap.add(3, "_aux_1");
+        variableMap.add(4, "c");
+        return new Pair<>(new BooleanClauseList(List.of(clauses), 4), variableMap);
+    }
+
+    @Test
+    void propagatesUnits() {
+        Pair<BooleanClauseList, ReconstructionStack> result = Computations.of(createCNF(
+                        new BooleanClause(-3, 1),
+                        new BooleanClause(-3, 2),
+                        new BooleanClause(3, -1, -2),
+                        new BooleanClause(3),
+                        new BooleanClause(-1, -2, 4)))
+                .map(BooleanClauseListPreprocessingComputation::new)
+                .get()
+                .get();
+        assertEquals(List.of(), result.getKey().getAll());
+        assertEquals(
+                new BooleanSolution(1, 2, 3, 4),
+                result.getValue().reconstruct(new BooleanSolution(new int[4], false)));
+    }
+
+    @Test
+    void eliminatesAuxiliaryVariables() {
+        Pair<BooleanClauseList, ReconstructionStack> result = Computations.of(createCNF(
+                        new BooleanClause(-3, 1),
+                        new BooleanClause(-3, 2),
+                        new BooleanClause(3, -1, -2),
+                        new BooleanClause(3, 4)))
+                .map(BooleanClauseListPreprocessingComputation::new)
+                .set(BooleanClauseListPreprocessingComputation.IS_AUXILIARY_VARIABLES_ONLY, Boolean.TRUE)
+                .get()
+                .get();
+        assertEquals(List.of(new BooleanClause(1, 4), new BooleanClause(2, 4)), result.getKey().getAll());
+        assertEquals(
+                new BooleanSolution(-1, -2, -3, 4),
+                result.getValue().reconstruct(new BooleanSolution(-1, -2, 0, 4)));
+        assertEquals(
+                new BooleanSolution(1, 2, 3, -4),
+                result.getValue().reconstruct(new BooleanSolution(1, 2, 0, -4)));
+    }
+
+    @Test
+    void detectsContradictions() {
+        Pair<BooleanClauseList, ReconstructionStack> result = Computations.of(
+                        createCNF(new BooleanClause(1, 2), new BooleanClause(-1), new BooleanClause(-2)))
+                .map(BooleanClauseListPreprocessingComputation::new)
+                .get()
+                .get();
+        assertEquals(List.of(new BooleanClause()), result.getKey().getAll());
+    }
+}
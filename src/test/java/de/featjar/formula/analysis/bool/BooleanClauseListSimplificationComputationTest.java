@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.base.computation.Computations;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BooleanClauseListSimplificationComputationTest {
+
+    private static BooleanClauseList createClauseList() {
+        BooleanClauseList clauseList = new BooleanClauseList(4);
+        clauseList.add(new BooleanClause(1, 2));
+        clauseList.add(new BooleanClause(1, 2, 3));
+        clauseList.add(new BooleanClause(1, 2));
+        clauseList.add(new BooleanClause(1, -1));
+        clauseList.add(new BooleanClause(2, 2, -3));
+        clauseList.add(new BooleanClause(-1, 2, 4));
+        return clauseList;
+    }
+
+    @Test
+    void removesSubsumedClauses() {
+        BooleanClauseList clauseList = Computations.of(createClauseList())
+                .map(BooleanClauseListSimplificationComputation::new)
+                .set(BooleanClauseListSimplificationComputation.IS_STRENGTHENING, Boolean.FALSE)
+                .get()
+                .get();
+        assertEquals(
+                List.of(new BooleanClause(1, 2), new BooleanClause(-3, 2), new BooleanClause(-1, 2, 4)),
+                clauseList.getAll());
+        assertEquals(4, clauseList.getVariableCount());
+    }
+
+    @Test
+    void strengthensClauses() {
+        BooleanClauseList clauseList = Computations.of(createClauseList())
+                .map(BooleanClauseListSimplificationComputation::new)
+                .get()
+                .get();
+        assertEquals(
+                List.of(new BooleanClause(1, 2), new BooleanClause(-3, 2), new BooleanClause(2, 4)),
+                clauseList.getAll());
+    }
+
+    @Test
+    void removesClausesOfFrequentLiteral() {
+        int variableCount = 1000;
+        BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+        List<BooleanClause> expectedClauses = new ArrayList<>();
+        for (int i = 2; i <= variableCount; i++) {
+            clauseList.add(new BooleanClause(1, i));
+            clauseList.add(new BooleanClause(1, i));
+            clauseList.add(new BooleanClause(-1, i));
+            expectedClauses.add(new BooleanClause(i));
+        }
+        clauseList.add(new BooleanClause(1));
+        expectedClauses.add(new BooleanClause(1));
+        BooleanClauseList simplifiedClauseList = Computations.of(clauseList)
+                .map(BooleanClauseListSimplificationComputation::new)
+                .get()
+                .get();
+        assertEquals(expectedClauses, simplifiedClauseList.getAll());
+    }
+
+    @Test
+    void keepsCompactRepresentation() {
+        BooleanClauseList clauseList = Computations.of(
+                        (BooleanClauseList) new CompactBooleanClauseList(createClauseList()))
+                .map(BooleanClauseListSimplificationComputation::new)
+                .get()
+                .get();
+        assertEquals(CompactBooleanClauseList.class, clauseList.getClass());
+        assertEquals(
+                List.of(new BooleanClause(1, 2), new BooleanClause(-3, 2), new BooleanClause(2, 4)),
+                clauseList.getAll());
+    }
+}
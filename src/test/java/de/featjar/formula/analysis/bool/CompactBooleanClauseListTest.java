@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CompactBooleanClauseListTest {
+
+    @Test
+    void addsClausesInOrder() {
+        CompactBooleanClauseList clauseList = new CompactBooleanClauseList(1, 1, 3);
+        clauseList.addClause(2, -1);
+        clauseList.addClause(3);
+        clauseList.addClause(-3, 1, -2);
+        assertEquals(3, clauseList.size());
+        assertEquals(6, clauseList.getLiteralCount());
+        assertArrayEquals(new int[] {-1, 2}, clauseList.getClauseLiterals(0));
+        assertArrayEquals(new int[] {3}, clauseList.getClauseLiterals(1));
+        assertArrayEquals(new int[] {-3, -2, 1}, clauseList.getClauseLiterals(2));
+        assertEquals(new BooleanClause(-3, -2, 1), clauseList.get(2).get());
+    }
+
+    @Test
+    void addsClausesOfOtherList() {
+        CompactBooleanClauseList clauseList = new CompactBooleanClauseList(1, 1, 3);
+        clauseList.addClause(2, -1);
+        CompactBooleanClauseList otherClauseList = new CompactBooleanClauseList(3);
+        otherClauseList.addClause(3);
+        otherClauseList.addClause(-3, 1, -2);
+        clauseList.addClauses(otherClauseList);
+        clauseList.addClauses(new CompactBooleanClauseList(3));
+        assertEquals(3, clauseList.size());
+        assertEquals(6, clauseList.getLiteralCount());
+        assertArrayEquals(new int[] {3}, clauseList.getClauseLiterals(1));
+        assertArrayEquals(new int[] {-3, -2, 1}, clauseList.getClauseLiterals(2));
+    }
+
+    @Test
+    void supportsListModifications() {
+        CompactBooleanClauseList clauseList = new CompactBooleanClauseList(3);
+        clauseList.add(new BooleanClause(1, 2));
+        clauseList.add(new BooleanClause(3));
+        clauseList.add(1, new BooleanClause(-1, -2, -3));
+        assertEquals(
+                List.of(new BooleanClause(1, 2), new BooleanClause(-1, -2, -3), new BooleanClause(3)),
+                clauseList.getAll());
+
+        clauseList.getAll().set(0, new BooleanClause(-2));
+        clauseList.remove(1);
+        assertEquals(List.of(new BooleanClause(-2), new BooleanClause(3)), clauseList.getAll());
+        assertEquals(2, clauseList.getLiteralCount());
+
+        clauseList.clear();
+        assertEquals(0, clauseList.size());
+        assertEquals(0, clauseList.getLiteralCount());
+    }
+
+    @Test
+    void equalsRegularClauseList() {
+        BooleanClauseList regularClauseList = new BooleanClauseList(3);
+        regularClauseList.add(new BooleanClause(1, -2));
+        regularClauseList.add(new BooleanClause(3));
+        CompactBooleanClauseList compactClauseList = new CompactBooleanClauseList(regularClauseList);
+        assertEquals(regularClauseList, compactClauseList);
+        assertEquals(compactClauseList, regularClauseList);
+        assertEquals(regularClauseList.hashCode(), compactClauseList.hashCode());
+        assertEquals(compactClauseList, new CompactBooleanClauseList(compactClauseList));
+    }
+
+    @Test
+    void sortsClausesOnPackedArrays() {
+        CompactBooleanClauseList clauseList = new CompactBooleanClauseList(3);
+        clauseList.addClause(3, -1);
+        clauseList.addClause(2);
+        clauseList.addClause(-3, 1, -2);
+        clauseList.getAll().sort(Comparator.comparingInt(BooleanClause::size));
+        assertEquals(
+                List.of(new BooleanClause(2), new BooleanClause(-1, 3), new BooleanClause(-3, -2, 1)),
+                clauseList.getAll());
+        assertArrayEquals(
+                new int[] {2, -1, 3, -3, -2, 1},
+                Arrays.copyOf(clauseList.getLiteralArray(), clauseList.getLiteralCount()));
+        assertEquals(3, clauseList.getClauseStart(2));
+    }
+
+    @Test
+    void replacesClausesInPlace() {
+        CompactBooleanClauseList clauseList = new CompactBooleanClauseList(3);
+        clauseList.addClause(1, 2);
+        clauseList.addClause(3);
+        clauseList.getAll().set(0, new BooleanClause(-2, -1));
+        assertArrayEquals(new int[] {-2, -1}, clauseList.getClauseLiterals(0));
+        assertArrayEquals(new int[] {3}, clauseList.getClauseLiterals(1));
+        clauseList.getAll().set(1, new BooleanClause(2, -3));
+        assertArrayEquals(new int[] {-3, 2}, clauseList.getClauseLiterals(1));
+        assertEquals(4, clauseList.getLiteralCount());
+    }
+}
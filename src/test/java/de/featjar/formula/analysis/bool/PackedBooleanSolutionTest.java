@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.bool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class PackedBooleanSolutionTest {
+
+    private static BooleanSolution randomSolution(Random random, int variableCount) {
+        final int[] literals = new int[variableCount];
+        for (int i = 0; i < variableCount; i++) {
+            literals[i] = random.nextInt(3) == 0 ? 0 : random.nextBoolean() ? i + 1 : -(i + 1);
+        }
+        return new BooleanSolution(literals, false);
+    }
+
+    @Test
+    void convertsLosslessly() {
+        Random random = new Random(1);
+        for (int variableCount : new int[] {0, 1, 63, 64, 65, 200}) {
+            BooleanSolution solution = randomSolution(random, variableCount);
+            PackedBooleanSolution packedSolution = new PackedBooleanSolution(solution);
+            assertEquals(solution, packedSolution.toSolution());
+            assertEquals(solution.countPositives(), packedSolution.countPositives());
+            for (int i = 1; i <= variableCount; i++) {
+                assertEquals(solution.get(i - 1), packedSolution.get(i));
+            }
+        }
+    }
+
+    @Test
+    void matchesUnpackedOperations() {
+        Random random = new Random(2);
+        for (int k = 0; k < 20; k++) {
+            BooleanSolution solution1 = randomSolution(random, 130);
+            BooleanSolution solution2 = randomSolution(random, 130);
+            PackedBooleanSolution packedSolution1 = new PackedBooleanSolution(solution1);
+            PackedBooleanSolution packedSolution2 = new PackedBooleanSolution(solution2);
+
+            assertEquals(solution1.countConflicts(solution2.get()), packedSolution1.countConflicts(packedSolution2));
+            assertEquals(solution1.conflictsWith(solution2.get()), packedSolution1.conflictsWith(packedSolution2));
+            assertArrayEquals(
+                    solution1.removeConflicts(solution2.get()),
+                    packedSolution1.removeConflicts(packedSolution2).toSolution().get());
+        }
+    }
+
+    @Test
+    void setsAndUnsetsVariables() {
+        PackedBooleanSolution solution = new PackedBooleanSolution(70);
+        solution.set(-70);
+        solution.set(3);
+        assertEquals(-70, solution.get(70));
+        assertEquals(3, solution.get(3));
+        assertEquals(2, solution.countAssigned());
+        assertEquals(1, solution.countNegatives());
+        solution.unset(3);
+        assertEquals(0, solution.get(3));
+        PackedBooleanSolution otherSolution = new PackedBooleanSolution(70);
+        otherSolution.set(3);
+        assertFalse(solution.conflictsWith(otherSolution));
+        otherSolution.set(70);
+        assertTrue(solution.conflictsWith(otherSolution));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.formula.analysis.bool.BooleanSolution;
+import de.featjar.formula.analysis.bool.BooleanSolutionList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class CountMetricsTest {
+
+    private static BooleanSolutionList sample(int[]... solutions) {
+        final BooleanSolutionList sample = new BooleanSolutionList();
+        for (int[] literals : solutions) {
+            sample.add(new BooleanSolution(literals, false));
+        }
+        return sample;
+    }
+
+    @Test
+    void countsAllSolutions() {
+        CountMetrics metrics = new CountMetrics(new PositiveCount());
+        metrics.setSample(sample(new int[] {1, 2}, new int[] {-1, 2}, new int[] {-1, -2}));
+        assertArrayEquals(new double[] {1, 0.5, 0}, metrics.getValues());
+    }
+
+    @Test
+    void updatesAppendedSolutions() {
+        BooleanSolutionList sample = sample(new int[] {1, 2}, new int[] {-1, 2});
+        CountMetrics metrics = new CountMetrics(new NegativeCount());
+        metrics.setSample(sample);
+        assertArrayEquals(new double[] {0, 0.5}, metrics.getValues());
+        sample.add(new BooleanSolution(new int[] {-1, -2}, false));
+        metrics.setSample(sample);
+        assertArrayEquals(new double[] {0, 0.5, 1}, metrics.getValues());
+    }
+
+    @Test
+    void computesAllMetricsForSampleList() {
+        List<BooleanSolutionList> sampleList = List.of(
+                sample(new int[] {1, 2}, new int[] {-1, 2}),
+                sample(new int[] {-1, -2}),
+                sample(new int[] {1, 2}, new int[] {1, -2}, new int[] {-1, -2}));
+        List<ICountFunction> functions = List.of(new PositiveCount(), new NegativeCount());
+        Map<String, double[]> metrics = CountMetrics.computeAll(sampleList, functions);
+        assertArrayEquals(new double[] {2, 1, 3}, metrics.get("Size"));
+        assertEquals(1 + 6 * functions.size(), metrics.size());
+        for (ICountFunction function : functions) {
+            for (ISampleMetric aggregate : CountMetrics.getAllAggregates(function)) {
+                assertArrayEquals(aggregate.get(sampleList), metrics.get(aggregate.getName()));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.formula.analysis.bool.BooleanSolution;
+import de.featjar.formula.analysis.bool.PackedBooleanSolution;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class DistanceFunctionTest {
+
+    private static final List<IDistanceFunction> FUNCTIONS = List.of(
+            new HammingDistance(),
+            new EuclideanDistance(),
+            new CosineNegativeDistance(),
+            new CosineZeroDistance(),
+            new JaccardSelectedDistance(),
+            new JaccardDeselectedDistance(),
+            new OverlapSelectedDistance(),
+            new OverlapDeselectedDistance(),
+            new SorensenDiceSelectedDistance(),
+            new SorensenDiceDeselectedDistance());
+
+    private static int[] randomLiterals(Random random, int variableCount) {
+        final int[] literals = new int[variableCount];
+        for (int i = 0; i < variableCount; i++) {
+            literals[i] = random.nextInt(4) == 0 ? 0 : random.nextBoolean() ? i + 1 : -(i + 1);
+        }
+        return literals;
+    }
+
+    @Test
+    void packedDistancesMatchUnpackedDistances() {
+        Random random = new Random(3);
+        for (int variableCount : new int[] {1, 5, 63, 64, 65, 130}) {
+            for (int k = 0; k < 20; k++) {
+                int[] literals1 = randomLiterals(random, variableCount);
+                int[] literals2 = randomLiterals(random, variableCount);
+                PackedBooleanSolution solution1 = new PackedBooleanSolution(new BooleanSolution(literals1, false));
+                PackedBooleanSolution solution2 = new PackedBooleanSolution(new BooleanSolution(literals2, false));
+                for (IDistanceFunction function : FUNCTIONS) {
+                    assertEquals(
+                            function.computeDistance(literals1, literals2),
+                            function.computeDistance(solution1, solution2),
+                            function.getName());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.formula.analysis.bool.BooleanSolution;
+import de.featjar.formula.analysis.bool.BooleanSolutionList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class DistanceMetricsTest {
+
+    private static BooleanSolutionList randomSample(Random random, int size, int variableCount) {
+        final List<BooleanSolution> solutions = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            final int[] literals = new int[variableCount];
+            for (int i = 0; i < variableCount; i++) {
+                literals[i] = random.nextBoolean() ? i + 1 : -(i + 1);
+            }
+            solutions.add(new BooleanSolution(literals, false));
+        }
+        return new BooleanSolutionList(solutions);
+    }
+
+    @Test
+    void parallelModeMatchesSequentialMode() {
+        BooleanSolutionList sample = randomSample(new Random(4), 600, 40);
+        for (IDistanceFunction function : List.of(new HammingDistance(), new JaccardSelectedDistance())) {
+            DistanceMetrics sequential = new DistanceMetrics(function);
+            DistanceMetrics parallel = new DistanceMetrics(function, true);
+            sequential.setSample(sample);
+            parallel.setSample(sample);
+            assertArrayEquals(sequential.getValues(), parallel.getValues());
+
+            List<ISampleMetric> sequentialAggregates = DistanceMetrics.getAllAggregates(function);
+            List<ISampleMetric> parallelAggregates = DistanceMetrics.getAllAggregates(function, true);
+            for (int i = 0; i < sequentialAggregates.size(); i++) {
+                assertEquals(
+                        sequentialAggregates.get(i).get(sample),
+                        parallelAggregates.get(i).get(sample),
+                        1e-12,
+                        sequentialAggregates.get(i).getName());
+            }
+        }
+    }
+
+    @Test
+    void parallelModeIsDeterministic() {
+        BooleanSolutionList sample = randomSample(new Random(5), 700, 70);
+        List<ISampleMetric> aggregates1 = DistanceMetrics.getAllAggregates(new HammingDistance(), true);
+        List<ISampleMetric> aggregates2 = DistanceMetrics.getAllAggregates(new HammingDistance(), true);
+        for (int i = 0; i < aggregates1.size(); i++) {
+            assertEquals(aggregates1.get(i).get(sample), aggregates2.get(i).get(sample));
+        }
+    }
+
+    @Test
+    void streamingModeMatchesMaterializedMode() {
+        BooleanSolutionList sample = randomSample(new Random(6), 300, 50);
+        List<ISampleMetric> materialized = DistanceMetrics.getAllAggregates(new HammingDistance());
+        List<ISampleMetric> streaming = StreamingDistanceMetrics.getAllAggregates(new HammingDistance(), 0.001);
+        assertEquals(materialized.size(), streaming.size());
+        for (int i = 0; i < materialized.size(); i++) {
+            String name = materialized.get(i).getName();
+            assertEquals(name, streaming.get(i).getName());
+            double expected = materialized.get(i).get(sample);
+            double actual = streaming.get(i).get(sample);
+            assertEquals(expected, actual, name.endsWith("median") ? 0.02 : 1e-9, name);
+        }
+    }
+
+    @Test
+    void streamingModeComputesPercentiles() {
+        BooleanSolutionList sample = randomSample(new Random(7), 200, 40);
+        IAggregatableMetrics materialized = new DistanceMetrics(new HammingDistance());
+        IAggregatableMetrics streaming = new StreamingDistanceMetrics(new HammingDistance(), 0.001);
+        for (double percentile : new double[] {0, 10, 50, 90, 100}) {
+            ISampleMetric expected = materialized.getPercentileAggregate(percentile);
+            ISampleMetric actual = streaming.getPercentileAggregate(percentile);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.get(sample), actual.get(sample), 0.03, expected.getName());
+        }
+    }
+
+    @Test
+    void quantileSketchRespectsRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        for (int i = 1; i <= 10000; i++) {
+            sketch.add(i);
+        }
+        sketch.add(0);
+        assertEquals(10001, sketch.getCount());
+        assertEquals(0, sketch.getQuantile(0));
+        assertEquals(5000, sketch.getQuantile(0.5), 50);
+        assertEquals(9000, sketch.getQuantile(0.9), 90);
+        assertEquals(10000, sketch.getQuantile(1), 100);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.analysis.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class SampleStatisticsTest {
+
+    @Test
+    void matchesSortedValues() {
+        Random random = new Random(7);
+        for (int k = 0; k < 200; k++) {
+            double[] values = new double[1 + random.nextInt(100)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(10) / 4.0;
+            }
+            SampleStatistics statistics = new SampleStatistics(values, 0, 50, 90, 99, 100);
+            double[] sortedValues = values.clone();
+            Arrays.sort(sortedValues);
+            int middle = values.length / 2;
+
+            assertEquals(sortedValues[0], statistics.getMin());
+            assertEquals(sortedValues[values.length - 1], statistics.getMax());
+            assertEquals(
+                    values.length % 2 != 0
+                            ? sortedValues[middle]
+                            : (sortedValues[middle - 1] + sortedValues[middle]) / 2.0,
+                    statistics.getMedian());
+            assertEquals(sortedValues[0], statistics.getPercentile(0));
+            assertEquals(statistics.getMedian(), statistics.getPercentile(50), 1e-12);
+            assertEquals(sortedValues[values.length - 1], statistics.getPercentile(100));
+
+            double mean = Arrays.stream(values).sum() / values.length;
+            double variance = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / values.length;
+            assertEquals(mean, statistics.getMean(), 1e-12);
+            assertEquals(variance, statistics.getVariance(), 1e-12);
+        }
+    }
+
+    @Test
+    void interpolatesPercentiles() {
+        SampleStatistics statistics = new SampleStatistics(new double[] {4, 1, 3, 2, 5}, 90, 25);
+        assertEquals(4.6, statistics.getPercentile(90), 1e-12);
+        assertEquals(2, statistics.getPercentile(25));
+        assertThrows(IllegalArgumentException.class, () -> statistics.getPercentile(99));
+    }
+}
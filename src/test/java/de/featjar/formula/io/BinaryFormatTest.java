@@ -20,14 +20,30 @@
  */
 package de.featjar.formula.io;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import de.featjar.base.computation.Computations;
+import de.featjar.base.data.Pair;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.IO;
+import de.featjar.formula.analysis.VariableMap;
 import de.featjar.formula.analysis.bool.BooleanAssignmentSpace;
 import de.featjar.formula.analysis.bool.BooleanAssignmentSpaceComputation;
+import de.featjar.formula.analysis.bool.BooleanClause;
+import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.analysis.bool.CompactBooleanClauseList;
 import de.featjar.formula.analysis.bool.BooleanRepresentationComputation;
 import de.featjar.formula.io.binary.BooleanAssignmentSpaceBinaryFormat;
+import de.featjar.formula.io.binary.BooleanClauseListBinaryFormat;
+import de.featjar.formula.io.dimacs.CnfDimacsFormat;
 import de.featjar.formula.test.CommonFormulas;
 import de.featjar.formula.transformer.ComputeCNFFormula;
 import de.featjar.formula.transformer.ComputeNNFFormula;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -52,6 +68,53 @@ public class BinaryFormatTest {
         test("nAB");
     }
 
+    @Test
+    public void BooleanClauseList_saveAndLoad() throws IOException {
+        VariableMap variableMap = new VariableMap();
+        variableMap.add(1, "a");
+        variableMap.add(2, "b\u00e4");
+        variableMap.add(4, "d");
+        BooleanClauseList clauseList = new BooleanClauseList(4);
+        clauseList.add(new BooleanClause(-4, 1, 2));
+        clauseList.add(new BooleanClause());
+        clauseList.add(new BooleanClause(-2));
+        clauseList.add(new BooleanClause(Integer.MIN_VALUE + 1, Integer.MAX_VALUE));
+
+        byte[] bytes = save(new Pair<>(clauseList, variableMap));
+        Pair<BooleanClauseList, VariableMap> cnf = load(bytes).get();
+        assertEquals(clauseList, cnf.getKey());
+        assertEquals(4, cnf.getKey().getVariableCount());
+        assertEquals(variableMap.getVariableNames(), cnf.getValue().getVariableNames());
+        assertEquals(4, cnf.getValue().get("d").get());
+        assertFalse(cnf.getValue().get(3).isPresent());
+
+        bytes[bytes.length / 2] ^= 1;
+        assertFalse(load(bytes).isPresent());
+    }
+
+    @Test
+    public void BooleanClauseList_smallerThanDimacs() throws IOException {
+        CompactBooleanClauseList clauseList = new CompactBooleanClauseList(10000);
+        VariableMap variableMap = new VariableMap();
+        for (int i = 1; i <= 10000; i++) {
+            variableMap.add(i, "x" + i);
+            clauseList.addClause(-i, i % 10000 + 1, (i * 7) % 10000 + 1);
+        }
+        byte[] bytes = save(new Pair<>(clauseList, variableMap));
+        assertEquals(clauseList, load(bytes).get().getKey());
+        assertTrue(bytes.length < new CnfDimacsFormat().serialize(clauseList).get().length());
+    }
+
+    private static byte[] save(Pair<BooleanClauseList, VariableMap> cnf) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        IO.save(cnf, outputStream, new BooleanClauseListBinaryFormat());
+        return outputStream.toByteArray();
+    }
+
+    private static Result<Pair<BooleanClauseList, VariableMap>> load(byte[] bytes) {
+        return IO.load(new ByteArrayInputStream(bytes), new BooleanClauseListBinaryFormat());
+    }
+
     private static void test(String name) {
         final BooleanAssignmentSpace assignmentSpace = Computations.of(CommonFormulas.getFormula(name))
                 .map(ComputeNNFFormula::new)
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.featjar.base.data.Pair;
+import de.featjar.base.io.IO;
+import de.featjar.formula.analysis.VariableMap;
+import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.analysis.bool.CompactBooleanClauseList;
+import de.featjar.formula.io.dimacs.CnfDimacsFormat;
+import de.featjar.formula.io.dimacs.CnfDimacsParser;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link CnfDimacsFormat DIMACS} format for clause lists.
+ */
+public class CnfDimacsFormatTest {
+
+    @Test
+    public void parsesClausesAndVariableDirectory() throws ParseException, IOException {
+        Pair<BooleanClauseList, VariableMap> cnf =
+                parse("c 1 a\nc 2 b c\r\nc comment\np cnf 3 4\n1 -2 0\n2\n3 0 -1 -3 0\nc comment\n-2 0\n");
+        assertInstanceOf(CompactBooleanClauseList.class, cnf.getKey());
+        assertEquals(3, cnf.getKey().getVariableCount());
+        assertEquals(4, cnf.getKey().size());
+        assertArrayEquals(new int[] {-2, 1}, cnf.getKey().getAll().get(0).get());
+        assertArrayEquals(new int[] {2, 3}, cnf.getKey().getAll().get(1).get());
+        assertArrayEquals(new int[] {-3, -1}, cnf.getKey().getAll().get(2).get());
+        assertArrayEquals(new int[] {-2}, cnf.getKey().getAll().get(3).get());
+        assertEquals(1, cnf.getValue().get("a").get());
+        assertEquals(2, cnf.getValue().get("b c").get());
+        assertEquals(3, cnf.getValue().get("3").get());
+    }
+
+    @Test
+    public void parsesLastClauseWithoutEnd() throws ParseException, IOException {
+        Pair<BooleanClauseList, VariableMap> cnf = parse("p cnf 2 3 1 -2 0\n0\n2");
+        assertEquals(4, cnf.getKey().size());
+    }
+
+    @Test
+    public void parsesSerializedClauseList() throws ParseException, IOException {
+        CompactBooleanClauseList clauseList = new CompactBooleanClauseList(4);
+        clauseList.addClause(1, -2, 4);
+        clauseList.addClause(-3);
+        clauseList.addClause(2, 3, -4);
+        String dimacs = new CnfDimacsFormat().serialize(clauseList).get();
+        BooleanClauseList parsedClauseList = parse(dimacs).getKey();
+        assertEquals(clauseList.size(), parsedClauseList.size());
+        for (int i = 0; i < clauseList.size(); i++) {
+            assertArrayEquals(clauseList.getAll().get(i).get(), parsedClauseList.getAll().get(i).get());
+        }
+    }
+
+    @Test
+    public void writesSameDocumentAsSerialize() throws IOException {
+        CompactBooleanClauseList clauseList = new CompactBooleanClauseList(100000);
+        for (int i = 1; i < 100000; i++) {
+            clauseList.addClause(-i, i + 1);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        IO.save(clauseList, outputStream, new CnfDimacsFormat());
+        String dimacs = outputStream.toString(StandardCharsets.UTF_8);
+        assertEquals(new CnfDimacsFormat().serialize(clauseList).get(), dimacs);
+        assertTrue(dimacs.startsWith("p cnf 100000 99999" + System.lineSeparator() + "-1 2 0"));
+    }
+
+    @Test
+    public void parsesMappedFileInChunks(@TempDir Path directory) throws ParseException, IOException {
+        Random random = new Random(0);
+        StringBuilder sb = new StringBuilder("c 1 a\np cnf 100000 500000\n");
+        for (int i = 0; i < 500000; i++) {
+            for (int j = 0; j < 3; j++) {
+                sb.append(random.nextBoolean() ? "-" : "")
+                        .append(random.nextInt(100000) + 1)
+                        .append(random.nextInt(10) == 0 ? "\n" : " ");
+            }
+            sb.append("0\n");
+            if (i % 1000 == 0) {
+                sb.append("c 0\n");
+            }
+        }
+        Path path = directory.resolve("large.dimacs");
+        Files.writeString(path, sb);
+        CnfDimacsParser parser = new CnfDimacsParser();
+        parser.setReadingVariableDirectory(true);
+        Pair<BooleanClauseList, VariableMap> mappedCnf = parser.parse(path);
+        Pair<BooleanClauseList, VariableMap> cnf = parse(sb.toString());
+        assertEquals(cnf.getKey(), mappedCnf.getKey());
+        assertEquals(1, mappedCnf.getValue().get("a").get());
+
+        Files.writeString(path, sb.append("1 x 0\n"));
+        ParseException exception = assertThrows(ParseException.class, () -> parser.parse(path));
+        assertEquals(sb.toString().split("\n").length, exception.getErrorOffset());
+    }
+
+    @Test
+    public void rejectsInvalidInput() {
+        assertThrows(ParseException.class, () -> parse("1 2 0\n"));
+        assertThrows(ParseException.class, () -> parse("p cnf 2\n1 2 0\n"));
+        assertThrows(ParseException.class, () -> parse("p cnf 2 1\n1 x 0\n"));
+        assertThrows(ParseException.class, () -> parse("p cnf 2 1\n1 -0 0\n"));
+        assertThrows(ParseException.class, () -> parse("p cnf 2 1\n1 -3 0\n"));
+        assertThrows(ParseException.class, () -> parse("p cnf 2 1\n1 0 2 0\n"));
+        assertThrows(ParseException.class, () -> parse("p cnf 2 2\n1 2 0\n"));
+        assertThrows(ParseException.class, () -> parse("c 3 c\np cnf 2 1\n1 2 0\n"));
+    }
+
+    private static Pair<BooleanClauseList, VariableMap> parse(String dimacs) throws ParseException, IOException {
+        CnfDimacsParser parser = new CnfDimacsParser();
+        parser.setReadingVariableDirectory(true);
+        return parser.parse(new ByteArrayInputStream(dimacs.getBytes(StandardCharsets.UTF_8)));
+    }
+}
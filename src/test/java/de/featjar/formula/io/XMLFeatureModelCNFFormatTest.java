@@ -20,7 +20,50 @@
  */
 package de.featjar.formula.io;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.FeatJAR;
+import de.featjar.base.io.IO;
+import de.featjar.base.io.format.IFormat;
+import de.featjar.formula.io.xml.XMLFeatureModelCNFFormulaFormat;
+import de.featjar.formula.io.xml.XMLFeatureModelFormulaFormat;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.connective.AtMostOneEncoding;
+import de.featjar.formula.test.BruteForce;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
 public class XMLFeatureModelCNFFormatTest {
+    private static final Path alternativesPath =
+            FormatTest.rootDirectory.resolve("testFeatureModels").resolve("alternatives.xml");
+
+    @Test
+    public void preservesSolutionsByDefault() {
+        IFormula formula = load(new XMLFeatureModelFormulaFormat());
+        IFormula cnf = load(new XMLFeatureModelCNFFormulaFormat());
+        List<String> features = BruteForce.getVariableNames(formula);
+        assertEquals(new HashSet<>(features), new HashSet<>(BruteForce.getVariableNames(cnf)));
+        assertEquals(BruteForce.countSolutions(formula, features), BruteForce.countSolutions(cnf, features));
+    }
+
+    @Test
+    public void preservesSatisfiabilityWithAuxiliaryVariables() {
+        IFormula formula = load(new XMLFeatureModelFormulaFormat());
+        XMLFeatureModelCNFFormulaFormat format = new XMLFeatureModelCNFFormulaFormat();
+        format.setAtMostOneEncoding(AtMostOneEncoding.PRODUCT);
+        IFormula cnf = load(format);
+        List<String> features = BruteForce.getVariableNames(formula);
+        assertTrue(BruteForce.getVariableNames(cnf).size() > features.size());
+        assertEquals(BruteForce.countSolutions(formula, features), BruteForce.countSolutions(cnf, features));
+    }
+
+    private static IFormula load(IFormat<IExpression> format) {
+        return (IFormula) FeatJAR.apply(featJAR -> IO.load(alternativesPath, format).get());
+    }
     //
     //    @Test
     //    public void FeatureIDE_CNF_ABC_nAnBnC() {
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.structure;
+
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.or;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.formula.structure.formula.IFormula;
+import org.junit.jupiter.api.Test;
+
+class ExpressionFactoryTest {
+
+    @Test
+    void sharesEqualSubexpressions() {
+        ExpressionFactory factory = new ExpressionFactory();
+        IFormula formula1 = factory.or(factory.literal("a"), factory.literal(false, "b"));
+        IFormula formula2 = factory.or(factory.literal("a"), factory.literal(false, "b"));
+        assertSame(formula1, formula2);
+        assertNotSame(formula1, factory.or(factory.literal(false, "b"), factory.literal("a")));
+        assertNotSame(factory.atMost(1, formula1), factory.atMost(2, formula1));
+        assertSame(factory.literal("a").getExpression(), factory.literal(false, "a").getExpression());
+    }
+
+    @Test
+    void internsWithoutModifyingInput() {
+        ExpressionFactory factory = new ExpressionFactory();
+        IFormula formula = and(
+                biImplies(or(literal("a"), literal("b")), literal("c")),
+                biImplies(or(literal("a"), literal("b")), literal("c")));
+        IFormula copy = (IFormula) formula.cloneTree();
+        IFormula internedFormula = factory.intern(formula);
+        assertEquals(copy, formula);
+        assertEquals(formula, internedFormula);
+        assertNotSame(formula, internedFormula);
+        assertSame(internedFormula.getChildren().get(0), internedFormula.getChildren().get(1));
+        assertSame(internedFormula, factory.intern(copy));
+        assertTrue(factory.isCanonical(internedFormula));
+        assertFalse(factory.isCanonical(formula));
+        // and, biImplies, or, three literals, three variables
+        assertEquals(9, factory.size());
+    }
+}
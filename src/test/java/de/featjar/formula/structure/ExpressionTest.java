@@ -26,6 +26,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import de.featjar.base.data.Sets;
 import de.featjar.formula.analysis.value.ValueAssignment;
 import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.predicate.Literal;
 import de.featjar.formula.structure.term.ITerm;
 import de.featjar.formula.structure.term.value.Constant;
 import de.featjar.formula.structure.term.value.Variable;
@@ -115,4 +116,44 @@ class ExpressionTest {
     void printParseable() {
         // TODO
     }
+
+    @Test
+    void hashCodeReflectsModifications() {
+        Variable variable = variable("a");
+        IFormula formula1 = and(or(literal(true, variable), literal("b")), literal("c"));
+        IFormula formula2 = and(or(literal("x"), literal("b")), literal("c"));
+        assertNotEquals(formula1, formula2);
+        int hashCode = formula1.hashCode();
+        assertEquals(hashCode, formula1.hashCode());
+
+        variable.setName("x");
+        assertEquals(formula1, formula2);
+        assertEquals(formula2.hashCode(), formula1.hashCode());
+
+        formula1.getChildren().get(0).setChildren(List.of(literal("a"), literal("b")));
+        assertEquals(hashCode, formula1.hashCode());
+        formula1.replaceChildren(child -> child instanceof Literal ? literal(false, "c") : null);
+        assertNotEquals(hashCode, formula1.hashCode());
+    }
+
+    @Test
+    void hashCodeReflectsModificationsOfDescendants() {
+        IFormula child = or(literal("a"), literal("b"));
+        IFormula formula = and(child, literal("c"));
+        formula.hashCode();
+
+        child.addChild(0, literal("d"));
+        assertEquals(and(or(literal("d"), literal("a"), literal("b")), literal("c")), formula);
+        assertEquals(and(or(literal("d"), literal("a"), literal("b")), literal("c")).hashCode(), formula.hashCode());
+
+        child.removeChild(0);
+        assertEquals(and(or(literal("a"), literal("b")), literal("c")).hashCode(), formula.hashCode());
+
+        child.replaceChild(child.getChildren().get(1), literal("e"));
+        assertEquals(and(or(literal("a"), literal("e")), literal("c")).hashCode(), formula.hashCode());
+
+        child.clearChildren();
+        assertEquals(and(or(), literal("c")).hashCode(), formula.hashCode());
+        assertEquals(and(or(), literal("c")), formula);
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.structure.formula;
+
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.atMost;
+import static de.featjar.formula.structure.Expressions.between;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.implies;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.not;
+import static de.featjar.formula.structure.Expressions.or;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.formula.analysis.value.ValueAssignment;
+import de.featjar.formula.structure.ExpressionKindNotSupportedException;
+import de.featjar.formula.structure.Expressions;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CompactFormulaTest {
+    IFormula formula = and(
+            implies(literal("a"), or(literal("b"), not(literal("c")))),
+            biImplies(literal(false, "d"), literal("a")),
+            atMost(1, literal("a"), literal("b"), literal("c")),
+            between(1, 2, literal("b"), literal("d"), Expressions.True));
+
+    @Test
+    void convertsLosslessly() {
+        CompactFormula compactFormula = new CompactFormula(formula);
+        assertEquals(formula, compactFormula.toFormula());
+        assertEquals(18, compactFormula.getNodeCount());
+        assertEquals(CompactFormula.AND, compactFormula.getKind(compactFormula.getRoot()));
+        assertEquals(4, compactFormula.getChildCount(compactFormula.getRoot()));
+    }
+
+    @Test
+    void collectsVariables() {
+        CompactFormula compactFormula = new CompactFormula(formula);
+        assertEquals(List.of("a", "b", "c", "d"), List.copyOf(compactFormula.getVariableNames()));
+        assertEquals(3, compactFormula.getVariableIndex("c").get());
+        int root = compactFormula.getRoot();
+        assertArrayEquals(new int[] {1, 4}, compactFormula.getVariables(compactFormula.getChild(root, 1)));
+        assertArrayEquals(new int[] {1, 2, 3, 4}, compactFormula.getVariables(root));
+    }
+
+    @Test
+    void checksNNF() {
+        assertFalse(new CompactFormula(formula).isNNF());
+        CompactFormula nnf = new CompactFormula(and(or(literal("a"), not(literal("b"))), literal("c")));
+        assertTrue(nnf.isNNF());
+        assertFalse(nnf.isStrictNNF());
+        assertTrue(new CompactFormula(and(or(literal("a"), literal(false, "b")))).isStrictNNF());
+        assertFalse(new CompactFormula(not(and(literal("a")))).isNNF());
+    }
+
+    @Test
+    void evaluatesLikeExpressionTree() {
+        CompactFormula compactFormula = new CompactFormula(formula);
+        for (int i = 0; i < 16; i++) {
+            ValueAssignment assignment = new ValueAssignment(
+                    "a", (i & 1) != 0, "b", (i & 2) != 0, "c", (i & 4) != 0, "d", (i & 8) != 0);
+            assertEquals(formula.evaluate(assignment), compactFormula.evaluate(assignment));
+        }
+        assertNull(compactFormula.evaluate(1));
+        assertFalse(compactFormula.evaluate(1, 2, 3));
+    }
+
+    @Test
+    void rejectsNonBooleanFormulas() {
+        assertThrows(
+                ExpressionKindNotSupportedException.class,
+                () -> new CompactFormula(Expressions.equals(
+                        Expressions.variable("x", Integer.class), Expressions.constant(1, Integer.class))));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.formula.analysis.value.ValueAssignment;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Checks small formulas by enumerating all assignments of their variables.
+ */
+public class BruteForce {
+
+    /**
+     * Asserts that an assignment satisfies the given formula if and only if it can be extended to satisfy the new
+     * formula.
+     * All variables of the new formula that do not occur in the given formula are considered auxiliary variables.
+     *
+     * @param formula the formula
+     * @param newFormula the new formula
+     */
+    public static void assertEquisatisfiable(IFormula formula, IFormula newFormula) {
+        List<String> variables = getVariableNames(formula);
+        assertEquisatisfiable(
+                formula,
+                getVariableNames(newFormula).stream()
+                        .filter(name -> !variables.contains(name))
+                        .collect(Collectors.toList()),
+                assignment -> isSatisfied(newFormula, assignment),
+                newFormula.toString());
+    }
+
+    /**
+     * Asserts that an assignment satisfies the given formula if and only if it can be extended with the given
+     * auxiliary variables to satisfy the given predicate.
+     *
+     * @param formula the formula
+     * @param auxiliaryVariables the names of the auxiliary variables
+     * @param isSatisfied whether an assignment of all variables satisfies the new formula
+     * @param message the message to report when the assertion fails
+     */
+    public static void assertEquisatisfiable(
+            IFormula formula,
+            List<String> auxiliaryVariables,
+            Predicate<LinkedHashMap<String, Object>> isSatisfied,
+            String message) {
+        List<String> variables = getVariableNames(formula);
+        for (int i = 0; i < 1 << variables.size(); i++) {
+            LinkedHashMap<String, Object> assignment = assign(variables, i);
+            Object expected = formula.evaluate(new ValueAssignment(assignment));
+            assertEquals(expected, isSatisfiable(assignment, auxiliaryVariables, isSatisfied), message);
+        }
+    }
+
+    /**
+     * {@return the number of assignments of the given variables that can be extended to satisfy the given formula}
+     *
+     * @param formula the formula
+     * @param variables the names of the variables to count assignments for
+     */
+    public static int countSolutions(IFormula formula, List<String> variables) {
+        List<String> otherVariables = getVariableNames(formula).stream()
+                .filter(name -> !variables.contains(name))
+                .collect(Collectors.toList());
+        int count = 0;
+        for (int i = 0; i < 1 << variables.size(); i++) {
+            if (isSatisfiable(assign(variables, i), otherVariables, assignment -> isSatisfied(formula, assignment))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@return the names of all variables of the given formula}
+     *
+     * @param formula the formula
+     */
+    public static List<String> getVariableNames(IFormula formula) {
+        return formula.getVariables().stream().map(Variable::getName).collect(Collectors.toList());
+    }
+
+    private static LinkedHashMap<String, Object> assign(List<String> variables, int values) {
+        LinkedHashMap<String, Object> assignment = new LinkedHashMap<>();
+        for (int k = 0; k < variables.size(); k++) {
+            assignment.put(variables.get(k), ((values >> k) & 1) == 1);
+        }
+        return assignment;
+    }
+
+    private static boolean isSatisfiable(
+            LinkedHashMap<String, Object> assignment,
+            List<String> auxiliaryVariables,
+            Predicate<LinkedHashMap<String, Object>> isSatisfied) {
+        for (int j = 0; j < 1 << auxiliaryVariables.size(); j++) {
+            for (int k = 0; k < auxiliaryVariables.size(); k++) {
+                assignment.put(auxiliaryVariables.get(k), ((j >> k) & 1) == 1);
+            }
+            if (isSatisfied.test(assignment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSatisfied(IFormula formula, LinkedHashMap<String, Object> assignment) {
+        return Boolean.TRUE.equals(formula.evaluate(new ValueAssignment(assignment)));
+    }
+}
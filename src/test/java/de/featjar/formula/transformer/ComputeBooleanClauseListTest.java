@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2023 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatJAR> for further information.
+ */
+package de.featjar.formula.transformer;
+
+import static de.featjar.base.computation.Computations.async;
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.not;
+import static de.featjar.formula.structure.Expressions.or;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.base.data.Pair;
+import de.featjar.formula.analysis.VariableMap;
+import de.featjar.formula.analysis.bool.BooleanClause;
+import de.featjar.formula.analysis.bool.BooleanClauseList;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.test.BruteForce;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class ComputeBooleanClauseListTest {
+    private static final IFormula formula = not(
+            or(and(literal("C"), biImplies(or(literal("D"), literal("E")), literal("C"))), and(or(literal("E")))));
+
+    private static Pair<BooleanClauseList, VariableMap> compute(
+            IFormula formula, int maximumNumberOfLiterals, boolean isPlaistedGreenbaum) {
+        return async(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeBooleanClauseList::new)
+                .set(ComputeBooleanClauseList.MAXIMUM_NUMBER_OF_LITERALS, maximumNumberOfLiterals)
+                .set(ComputeBooleanClauseList.IS_PLAISTED_GREENBAUM, isPlaistedGreenbaum)
+                .get()
+                .get();
+    }
+
+    @Test
+    void distributive() {
+        Pair<BooleanClauseList, VariableMap> cnf = compute(formula, Integer.MAX_VALUE, false);
+        assertEquals(formula.getVariables().size(), cnf.getKey().getVariableCount());
+        assertEquisatisfiable(formula, cnf);
+    }
+
+    @Test
+    void tseitin() {
+        assertEquisatisfiable(formula, compute(formula, 0, false));
+    }
+
+    @Test
+    void plaistedGreenbaum() {
+        assertEquisatisfiable(formula, compute(formula, 0, true));
+    }
+
+    @Test
+    void alreadyCNF() {
+        IFormula cnfFormula = and(or(literal("a"), literal(false, "b")), literal("c"));
+        Pair<BooleanClauseList, VariableMap> cnf = compute(cnfFormula, 0, false);
+        assertEquals(2, cnf.getKey().size());
+        assertEquals(3, cnf.getKey().getVariableCount());
+        assertEquisatisfiable(cnfFormula, cnf);
+    }
+
+    @Test
+    void reusesAuxiliaryVariables() {
+        IFormula sharedFormula = and(
+                or(and(literal("a"), literal("b")), literal("c")), or(and(literal("a"), literal("b")), literal("d")));
+        Pair<BooleanClauseList, VariableMap> cnf = compute(sharedFormula, 0, false);
+        assertEquals(5, cnf.getKey().getVariableCount());
+        assertEquisatisfiable(sharedFormula, cnf);
+    }
+
+    private static void assertEquisatisfiable(IFormula formula, Pair<BooleanClauseList, VariableMap> cnf) {
+        List<String> variables = BruteForce.getVariableNames(formula);
+        VariableMap variableMap = cnf.getValue();
+        BruteForce.assertEquisatisfiable(
+                formula,
+                variableMap.getVariableNames().stream()
+                        .filter(name -> !variables.contains(name))
+                        .collect(Collectors.toList()),
+                assignment -> isSatisfied(cnf.getKey(), variableMap, assignment),
+                cnf.getKey().toString());
+    }
+
+    private static boolean isSatisfied(
+            BooleanClauseList clauseList, VariableMap variableMap, Map<String, Object> assignment) {
+        boolean[] values = new boolean[clauseList.getVariableCount()];
+        assignment.forEach((name, value) -> values[variableMap.get(name).get() - 1] = (Boolean) value);
+        return isSatisfied(clauseList, values);
+    }
+
+    private static boolean isSatisfied(BooleanClauseList clauseList, boolean[] values) {
+        for (BooleanClause clause : clauseList.getAll()) {
+            boolean isClauseSatisfied = false;
+            for (int literal : clause.get()) {
+                if (values[Math.abs(literal) - 1] == literal > 0) {
+                    isClauseSatisfied = true;
+                    break;
+                }
+            }
+            if (!isClauseSatisfied) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -26,7 +26,10 @@ import static de.featjar.formula.structure.Expressions.biImplies;
 import static de.featjar.formula.structure.Expressions.literal;
 import static de.featjar.formula.structure.Expressions.not;
 import static de.featjar.formula.structure.Expressions.or;
+import static de.featjar.formula.test.BruteForce.assertEquisatisfiable;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import de.featjar.base.FeatJAR;
 import de.featjar.base.computation.Computations;
@@ -34,8 +37,11 @@ import de.featjar.base.computation.IComputation;
 import de.featjar.base.io.IO;
 import de.featjar.formula.io.FormulaFormats;
 import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.connective.And;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class ComputeCNFFormulaTest {
@@ -59,6 +65,87 @@ class ComputeCNFFormulaTest {
                 and(or(literal("c"), literal("b")), or(literal("c"), literal("a"))));
     }
 
+    @Test
+    void distributesWithoutRedundantClauses() {
+        DistributiveTransformer transformer = new DistributiveTransformer();
+        assertEquals(
+                and(
+                        or(literal("c"), literal("b")),
+                        or(literal("c"), literal("a")),
+                        or(literal(false, "a"), literal("b"))),
+                transformer
+                        .apply(or(and(literal("a"), literal("b")), and(literal(false, "a"), literal("c"))))
+                        .get());
+        assertEquals(
+                and(or(literal("a")), or(literal("c"), literal("b"))),
+                transformer
+                        .apply(or(and(literal("a"), literal("b")), and(literal("a"), literal("c"))))
+                        .get());
+        assertFalse(new DistributiveTransformer(
+                        true, new DistributiveTransformer.MaximumNumberOfLiteralsCancelPredicate(4))
+                .apply(or(and(literal("a"), literal("b")), and(literal("a"), literal("c"))))
+                .isPresent());
+        assertFalse(new DistributiveTransformer(
+                        true, clause -> clause.contains(literal("c")) ? new RuntimeException() : null)
+                .apply(or(and(literal("a"), literal("b")), and(literal("a"), literal("c"))))
+                .isPresent());
+    }
+
+    @Test
+    void reusesCachedTransformations() {
+        CNFCache cnfCache = new CNFCache();
+        IFormula formula = and(
+                or(and(literal("a"), literal("b")), and(literal("c"), literal("d"))),
+                or(literal("a"), literal("e")),
+                or(and(literal("a"), literal(false, "c")), and(literal("b"), literal("e"))));
+        for (int maximumNumberOfLiterals : new int[] {Integer.MAX_VALUE, 0}) {
+            IFormula uncachedCNF = Computations.of(formula)
+                    .map(ComputeNNFFormula::new)
+                    .map(ComputeCNFFormula::new)
+                    .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, maximumNumberOfLiterals)
+                    .get()
+                    .get();
+            for (int i = 0; i < 2; i++) {
+                IFormula cachedCNF = Computations.of(formula)
+                        .map(ComputeNNFFormula::new)
+                        .map(ComputeCNFFormula::new)
+                        .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, maximumNumberOfLiterals)
+                        .set(ComputeCNFFormula.CNF_CACHE, cnfCache)
+                        .get()
+                        .get();
+                assertEquals(uncachedCNF, cachedCNF);
+            }
+        }
+        assertEquals(4, cnfCache.size());
+        assertEquals(4, cnfCache.getMissCount());
+        assertEquals(4, cnfCache.getHitCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedTransformations() {
+        CNFCache cnfCache = new CNFCache(2);
+        IFormula formula = or(and(literal("a"), literal("b")), and(literal("c"), literal("d")));
+        IFormula otherFormula = or(and(literal("a"), literal("c")), and(literal("b"), literal("d")));
+        IFormula thirdFormula = or(and(literal("a"), literal("d")), and(literal("b"), literal("c")));
+        for (IFormula nextFormula : List.of(formula, otherFormula, formula, thirdFormula, formula, otherFormula)) {
+            assertEquals(
+                    Computations.of(nextFormula)
+                            .map(ComputeNNFFormula::new)
+                            .map(ComputeCNFFormula::new)
+                            .get()
+                            .get(),
+                    Computations.of(nextFormula)
+                            .map(ComputeNNFFormula::new)
+                            .map(ComputeCNFFormula::new)
+                            .set(ComputeCNFFormula.CNF_CACHE, cnfCache)
+                            .get()
+                            .get());
+        }
+        assertEquals(2, cnfCache.size());
+        assertEquals(4, cnfCache.getMissCount());
+        assertEquals(2, cnfCache.getHitCount());
+    }
+
     @Test
     void basic() {
         IFormula formula = FeatJAR.apply(featJAR -> Computations.of(
@@ -111,4 +198,68 @@ class ComputeCNFFormulaTest {
             assertEquals(formula.evaluate(assignment), tseitinCNF.evaluate(assignment));
         });
     }
+
+    @Test
+    void parallelEqualsSequential() {
+        List<IFormula> children = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            children.add(or(
+                    and(literal("A" + i), literal(false, "B" + (i % 7))),
+                    and(literal("C" + (i % 5)), or(literal("D" + i), literal(false, "A" + ((i + 1) % 50))))));
+        }
+        IFormula formula = new And(children);
+        for (int maximumNumberOfLiterals : new int[] {0, 4, Integer.MAX_VALUE}) {
+            IFormula sequentialCNF = async(formula)
+                    .map(ComputeNNFFormula::new)
+                    .map(ComputeCNFFormula::new)
+                    .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, maximumNumberOfLiterals)
+                    .get()
+                    .get();
+            IFormula parallelCNF = async(formula)
+                    .map(ComputeNNFFormula::new)
+                    .map(ComputeCNFFormula::new)
+                    .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, maximumNumberOfLiterals)
+                    .set(ComputeCNFFormula.IS_PARALLEL, Boolean.TRUE)
+                    .get()
+                    .get();
+            assertEquals(sequentialCNF, parallelCNF);
+        }
+    }
+
+    @Test
+    void estimatesDistributiveSize() {
+        DistributiveSizeEstimate estimate = DistributiveSizeEstimate.of(or(
+                and(literal("a"), literal("b")), and(literal("c"), literal("d")), and(literal("e"), literal("f"))));
+        assertEquals(8, estimate.getClauseCount());
+        assertEquals(24, estimate.getLiteralCount());
+        assertEquals(24, estimate.getCost());
+        assertTrue(estimate.fits(24));
+    }
+
+    @Test
+    void abstractsOnlyLargeSubformulas() {
+        IFormula formula = or(
+                and(literal("a"), literal("b")), and(literal("c"), literal("d")), and(literal("e"), literal("f")));
+        for (boolean isPlaistedGreenbaum : new boolean[] {false, true}) {
+            IFormula hybridCNF = async(formula)
+                    .map(ComputeNNFFormula::new)
+                    .map(ComputeCNFFormula::new)
+                    .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, 12)
+                    .set(ComputeCNFFormula.IS_PLAISTED_GREENBAUM, isPlaistedGreenbaum)
+                    .get()
+                    .get();
+            assertEquals(formula.getVariables().size() + 1, hybridCNF.getVariables().size());
+            assertEquisatisfiable(formula, hybridCNF);
+
+            IFormula tseitinCNF = async(formula)
+                    .map(ComputeNNFFormula::new)
+                    .map(ComputeCNFFormula::new)
+                    .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, 0)
+                    .set(ComputeCNFFormula.IS_PLAISTED_GREENBAUM, isPlaistedGreenbaum)
+                    .get()
+                    .get();
+            assertEquals(formula.getVariables().size() + 3, tseitinCNF.getVariables().size());
+            assertEquisatisfiable(formula, tseitinCNF);
+        }
+    }
 }
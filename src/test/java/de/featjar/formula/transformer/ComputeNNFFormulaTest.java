@@ -23,8 +23,14 @@ package de.featjar.formula.transformer;
 import static de.featjar.formula.structure.Expressions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import de.featjar.base.data.Result;
+import de.featjar.base.tree.Trees;
 import de.featjar.formula.structure.ExpressionKind;
 import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.connective.CardinalityEncoding;
+import de.featjar.formula.structure.formula.connective.Reference;
+import de.featjar.formula.structure.term.value.Variable;
+import de.featjar.formula.visitor.*;
 import org.junit.jupiter.api.Test;
 
 class ComputeNNFFormulaTest {
@@ -54,4 +60,69 @@ class ComputeNNFFormulaTest {
                 and(or(), or(literal("x"), literal(false, "x")), literal("x")) // todo: also remove empty or
                 );
     }
+
+    void sameAsVisitors(IFormula formula, CardinalityEncoding cardinalityEncoding) {
+        Variable variable = formula.getVariables().get(0);
+        Result<IFormula> expected = Reference.mutateClone(formula, reference -> Trees.traverse(
+                        reference, new ConnectiveSimplifier(cardinalityEncoding))
+                .flatMap(_void -> Trees.traverse(reference, new DeMorganApplier()))
+                .flatMap(_void -> Trees.traverse(reference, new TrueFalseSimplifier()))
+                .flatMap(_void -> Trees.traverse(reference, new TrueFalseRemover(variable)))
+                .flatMap(_void -> Trees.traverse(reference, new AndOrSimplifier())));
+        IFormula clone = (IFormula) formula.cloneTree();
+        assertEquals(expected.get(), new NNFTransformer(cardinalityEncoding).apply(formula));
+        assertEquals(clone, formula);
+    }
+
+    @Test
+    public void transformsLikeVisitors() {
+        sameAsVisitors(
+                and(
+                        atMost(1, literal("a"), literal("b"), literal("c"), literal("d"), literal("e")),
+                        not(or(literal("a"), implies(literal("b"), literal("c")))),
+                        or(False, literal("d"))),
+                CardinalityEncoding.SEQUENTIAL_COUNTER);
+        sameAsVisitors(
+                not(and(atLeast(2, literal("a"), literal("b"), literal("c")), True, not(literal(false, "e")))),
+                CardinalityEncoding.BINOMIAL);
+        sameAsVisitors(
+                or(
+                        and(False, atMost(1, literal("a"), literal("b"), literal("c"), literal("d"), literal("e"))),
+                        not(atMost(1, literal("a"), literal("b"), literal("c"), literal("d"), literal("e")))),
+                CardinalityEncoding.SEQUENTIAL_COUNTER);
+        sameAsVisitors(
+                implies(choose(1, literal("a"), literal("b"), literal("c")), between(1, 2, literal("c"), literal("d"))),
+                CardinalityEncoding.BINOMIAL);
+        sameAsVisitors(and(or(True, literal("a")), not(not(and(literal("b"))))), CardinalityEncoding.BINOMIAL);
+        sameAsVisitors(
+                biImplies(
+                        literal("a"),
+                        not(atLeast(2, literal("a"), literal("b"), literal("c"), literal("d"), literal("e")))),
+                CardinalityEncoding.TOTALIZER);
+        sameAsVisitors(
+                atMost(1, implies(literal("a"), literal("b")), biImplies(literal("c"), literal("d")), literal("e")),
+                CardinalityEncoding.BINOMIAL);
+    }
+
+    @Test
+    public void doesNotEncodeDominatedCardinalityConstraints() {
+        IFormula formula = new NNFTransformer(CardinalityEncoding.SEQUENTIAL_COUNTER)
+                .apply(or(
+                        literal("f"),
+                        and(False, atMost(1, literal("a"), literal("b"), literal("c"), literal("d"), literal("e")))));
+        assertTrue(formula.getVariables().stream()
+                .map(Variable::getName)
+                .noneMatch(name -> name.startsWith(CardinalityEncoder.AUXILIARY_VARIABLE_NAME_PREFIX)));
+    }
+
+    @Test
+    public void usesAuxiliaryVariablesOnlyInPositivePosition() {
+        IFormula formula = new NNFTransformer(CardinalityEncoding.SEQUENTIAL_COUNTER)
+                .apply(or(
+                        literal("f"),
+                        not(atMost(1, literal("a"), literal("b"), literal("c"), literal("d"), literal("e")))));
+        assertTrue(formula.getVariables().stream()
+                .map(Variable::getName)
+                .noneMatch(name -> name.startsWith(CardinalityEncoder.AUXILIARY_VARIABLE_NAME_PREFIX)));
+    }
 }
@@ -21,7 +21,19 @@
 package de.featjar.formula.visitor;
 
 import static de.featjar.formula.structure.Expressions.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import de.featjar.base.tree.Trees;
+import de.featjar.formula.structure.formula.IFormula;
+import de.featjar.formula.structure.formula.connective.And;
+import de.featjar.formula.structure.formula.connective.AtMost;
+import de.featjar.formula.structure.formula.connective.AtMostOneEncoding;
+import de.featjar.formula.structure.formula.connective.CardinalityEncoding;
+import de.featjar.formula.structure.term.value.Variable;
+import de.featjar.formula.test.BruteForce;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 
 class ConnectiveSimplifierTest {
@@ -45,5 +57,115 @@ class ConnectiveSimplifierTest {
                 and(or(not(literal("x")), not(literal("y")), not(literal("z")))));
     }
 
+    @Test
+    void encodesCardinalityConstraints() {
+        for (CardinalityEncoding encoding : CardinalityEncoding.values()) {
+            for (int k = 0; k <= 5; k++) {
+                assertEquisatisfiable(
+                        atMost(k, literal("a"), literal(false, "b"), literal("c"), literal("d")), encoding);
+                assertEquisatisfiable(
+                        atLeast(k, literal("a"), literal(false, "b"), literal("c"), literal("d")), encoding);
+            }
+        }
+        assertEquisatisfiable(
+                between(1, 2, literal("a"), literal("b"), literal("c"), literal("d")),
+                CardinalityEncoding.SEQUENTIAL_COUNTER);
+        assertEquisatisfiable(
+                choose(1, literal("a"), literal("b"), literal("c"), literal("d")), CardinalityEncoding.TOTALIZER);
+    }
+
+    @Test
+    void encodesCardinalityConstraintsInNonPositivePosition() {
+        for (CardinalityEncoding encoding : CardinalityEncoding.values()) {
+            assertEquisatisfiable(not(atMost(1, literal("a"), literal("b"), literal("c"))), encoding);
+            assertEquisatisfiable(
+                    implies(atLeast(2, literal("a"), literal("b"), literal("c")), literal("d")), encoding);
+            assertEquisatisfiable(
+                    biImplies(atMost(1, literal("a"), literal("b"), literal("c")), literal("d")), encoding);
+            assertEquisatisfiable(
+                    not(atMost(1, not(atLeast(2, literal("a"), literal("b"), literal("c"))), literal("d"))),
+                    encoding);
+            assertEquisatisfiable(
+                    or(literal("d"), not(between(1, 2, literal("a"), literal("b"), literal("c")))), encoding);
+        }
+    }
+
+    @Test
+    void usesAuxiliaryVariablesOnlyInPositivePosition() {
+        IFormula newFormula = reference(and(
+                atMost(1, literal("a"), literal("b"), literal("c")),
+                not(atMost(1, literal("c"), literal("d"), literal("e")))));
+        assertTrue(Trees.traverse(newFormula, new ConnectiveSimplifier(CardinalityEncoding.SEQUENTIAL_COUNTER))
+                .getProblems()
+                .isEmpty());
+        IFormula negatedFormula = (IFormula) ((IFormula) newFormula.getFirstChild().get())
+                .getChildren()
+                .get(1);
+        assertTrue(negatedFormula.getVariables().stream()
+                .map(Variable::getName)
+                .noneMatch(name -> name.startsWith(CardinalityEncoder.AUXILIARY_VARIABLE_NAME_PREFIX)));
+        assertTrue(newFormula.getVariables().stream()
+                .map(Variable::getName)
+                .anyMatch(name -> name.startsWith(CardinalityEncoder.AUXILIARY_VARIABLE_NAME_PREFIX)));
+    }
+
+    @Test
+    void usesCardinalityEncodingOfFormula() {
+        AtMost formula = atMost(1, literal("a"), literal("b"), literal("c"));
+        formula.setCardinalityEncoding(CardinalityEncoding.SEQUENTIAL_COUNTER);
+        IFormula newFormula = reference(formula);
+        assertTrue(Trees.traverse(newFormula, new ConnectiveSimplifier())
+                .getProblems()
+                .isEmpty());
+        assertTrue(newFormula.getVariables().stream()
+                .map(Variable::getName)
+                .anyMatch(name -> name.startsWith(CardinalityEncoder.AUXILIARY_VARIABLE_NAME_PREFIX)));
+    }
+
+    @Test
+    void namesAuxiliaryVariablesReproducibly() {
+        List<IFormula> elements = List.of(literal("a"), literal("b"), literal("c"), literal("d"), literal("e"));
+        IFormula formula = new And(new CardinalityEncoder().atMost(elements, 1, CardinalityEncoding.TOTALIZER));
+        assertEquals(formula, new And(new CardinalityEncoder().atMost(elements, 1, CardinalityEncoding.TOTALIZER)));
+    }
+
+    @Test
+    void usesUniqueAuxiliaryVariablesPerScope() {
+        List<IFormula> elements = List.of(literal("a"), literal("b"), literal("c"), literal("d"), literal("e"));
+        IFormula formula = new And(new CardinalityEncoder("1").atMost(elements, 1, CardinalityEncoding.TOTALIZER));
+        IFormula otherFormula =
+                new And(new CardinalityEncoder("2").atMost(elements, 1, CardinalityEncoding.TOTALIZER));
+        List<String> variables =
+                formula.getVariables().stream().map(Variable::getName).collect(Collectors.toList());
+        assertTrue(otherFormula.getVariables().stream()
+                .map(Variable::getName)
+                .filter(name -> name.startsWith(CardinalityEncoder.AUXILIARY_VARIABLE_NAME_PREFIX))
+                .noneMatch(variables::contains));
+
+        IFormula unscopedFormula =
+                new And(new CardinalityEncoder().atMost(elements, 1, CardinalityEncoding.TOTALIZER));
+        CardinalityEncoder.setScope(unscopedFormula, "2");
+        assertEquals(otherFormula, unscopedFormula);
+    }
+
+    @Test
+    void encodesAtMostOneConstraints() {
+        List<IFormula> elements = List.of(
+                literal("a"), literal(false, "b"), literal("c"), literal("d"), literal("e"), literal(false, "f"));
+        for (AtMostOneEncoding encoding : AtMostOneEncoding.values()) {
+            BruteForce.assertEquisatisfiable(
+                    atMost(1, elements.toArray(new IFormula[0])),
+                    new And(new CardinalityEncoder().atMostOne(elements, encoding)));
+        }
+    }
+
+    private static void assertEquisatisfiable(IFormula formula, CardinalityEncoding encoding) {
+        IFormula newFormula = (IFormula) reference(formula).cloneTree();
+        assertTrue(Trees.traverse(newFormula, new ConnectiveSimplifier(encoding))
+                .getProblems()
+                .isEmpty());
+        BruteForce.assertEquisatisfiable(formula, newFormula);
+    }
+
     // TODO: test other operators
 }